@@ -7,7 +7,12 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.OptionBuilder;
@@ -15,11 +20,19 @@ import org.apache.commons.cli.ParseException;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
 import org.apache.sqoop.SqoopOptions;
+import org.apache.sqoop.SqoopOptions.IncrementalMode;
 import org.apache.sqoop.SqoopOptions.InvalidOptionsException;
 import org.apache.sqoop.cli.RelatedOptions;
 import org.apache.sqoop.manager.ExportJobContext;
 import org.apache.sqoop.manager.ImportJobContext;
+import org.apache.sqoop.mapreduce.ExportJobBase;
+import org.apache.sqoop.mapreduce.db.DataDrivenDBInputFormat;
+import org.apache.sqoop.orm.ClassWriter;
+import org.apache.sqoop.orm.CompilationManager;
+import org.apache.sqoop.tool.ImportAllTablesTool;
 import org.apache.sqoop.util.ExportException;
 import org.apache.sqoop.util.ImportException;
 
@@ -38,13 +51,76 @@ public class DirectNetezzaManager extends NetezzaManager {
   public static final String NZ_MAXERRORS_CONF = "nz.export.maxerrors";
   public static final String NZ_LOGDIR_CONF = "nz.export.logdir";
   public static final String NZ_UPLOADDIR_CONF = "nz.export.uploaddir";
+  public static final String NZ_UPLOAD_THREADS_CONF =
+      "nz.export.upload.threads";
+  public static final String NZ_UPLOAD_COMPRESS_CONF =
+      "nz.export.upload.compress";
   public static final String NZ_CTRLCHARS_CONF = "nz.export.ctrlchars";
+  public static final String NZ_ROUTE_COLUMN_CONF = "nz.export.route.column";
+  public static final String NZ_ROUTE_TABLES_CONF = "nz.export.route.tables";
+  public static final String NZ_STANDBY_CONNECT_CONF =
+      "nz.export.standby.connect";
+  public static final String NZ_STANDBY_DEGRADE_CONF =
+      "nz.export.standby.degrade";
+  public static final String NZ_REJECTDIR_CONF = "nz.export.rejectdir";
+  public static final String NZ_MATERIALIZE_CONF = "nz.import.materialize";
+  public static final String NZ_MATERIALIZE_DISTRIBUTE_CONF =
+      "nz.import.materialize.distribute";
+  public static final String NZ_LAZY_CODEGEN_CONF = "nz.direct.codegen.lazy";
+  public static final String NZ_BATCH_TABLES_CONF = "nz.import.batch.tables";
+  public static final String NZ_LOCAL_CONF = "nz.direct.local";
+  public static final String NZ_LOCAL_MAX_BYTES_CONF =
+      "nz.direct.local.max.bytes";
+  public static final String NZ_LOCAL_MAX_ROWS_CONF =
+      "nz.direct.local.max.rows";
+  public static final String NZ_SESSION_SLOTS_CONF = "nz.session.slots";
+  public static final String NZ_SESSION_SLOTS_DIR_CONF = "nz.session.slots.dir";
+  public static final String NZ_SESSION_PRIORITY_CONF = "nz.session.priority";
+  public static final String NZ_SESSION_SQL_CONF = "nz.session.sql";
+  public static final String NZ_SESSION_TIMEOUT_CONF = "nz.session.timeout";
+  public static final String NZ_VIRTUAL_THREADS_CONF =
+      "nz.session.virtual.threads";
+  public static final String NZ_PIPE_SIZE_CONF = "nz.fifo.pipe.size";
+  public static final String NZ_STAGING_DIR_CONF = "nz.import.staging.dir";
+  public static final String NZ_STAGING_CHUNK_BYTES_CONF =
+      "nz.import.staging.chunk.bytes";
+  public static final String NZ_STAGING_MAX_BYTES_CONF =
+      "nz.import.staging.max.bytes";
+  public static final String NZ_TRANSPORT_CONF = "nz.transport";
+
+  // Largest transfers run inside of the client JVM by default
+  public static final long DEFAULT_LOCAL_MAX_BYTES = 256L * 1024 * 1024;
+  public static final long DEFAULT_LOCAL_MAX_ROWS = 5000000L;
+
+  // Size of chunk files of local staging during import
+  public static final long DEFAULT_STAGING_CHUNK_BYTES = 64L * 1024 * 1024;
 
   // cmd line args
   public static final String NZ_MAXERRORS_ARG = "nz-maxerrors";
   public static final String NZ_LOGDIR_ARG = "nz-logdir";
   public static final String NZ_UPLOADDIR_ARG = "nz-uploaddir";
   public static final String NZ_CTRLCHARS_ARG = "nz-ctrlchars";
+  public static final String NZ_ROUTE_COLUMN_ARG = "nz-route-column";
+  public static final String NZ_ROUTE_TABLES_ARG = "nz-route-tables";
+  public static final String NZ_STANDBY_CONNECT_ARG = "nz-standby-connect";
+  public static final String NZ_STANDBY_DEGRADE_ARG = "nz-standby-degrade";
+  public static final String NZ_REJECTDIR_ARG = "nz-rejectdir";
+  public static final String NZ_MATERIALIZE_ARG = "nz-materialize";
+  public static final String NZ_MATERIALIZE_DISTRIBUTE_ARG =
+      "nz-materialize-distribute";
+  public static final String NZ_BATCH_TABLES_ARG = "nz-batch-tables";
+  public static final String NZ_SESSION_SLOTS_ARG = "nz-session-slots";
+  public static final String NZ_SESSION_PRIORITY_ARG = "nz-session-priority";
+  public static final String NZ_SESSION_SQL_ARG = "nz-session-sql";
+  public static final String NZ_SESSION_TIMEOUT_ARG = "nz-session-timeout";
+  public static final String NZ_STAGING_DIR_ARG = "nz-staging-dir";
+  public static final String NZ_TRANSPORT_ARG = "nz-transport";
+
+  // Prefix of the output directory shared by all tables of a batch import
+  public static final String BATCH_WORK_DIR_PREFIX = "_sqoop_nz_batch_";
+
+  // Prefix of tables holding materialized queries and views during import
+  public static final String MATERIALIZED_TABLE_PREFIX = "SQOOP_NZ_MAT_";
 
   public static final String NETEZZA_SCHEMA_OPT = "netezza.schema";
   public static final String NETEZZA_TABLE_SCHEMA_LONG_ARG = "schema";
@@ -53,6 +129,11 @@ public class DirectNetezzaManager extends NetezzaManager {
   private static final String QUERY_OBJECTY_TYPE = "SELECT OBJTYPE FROM "
       + "_V_OBJECTS WHERE OBJNAME = ? AND SCHEMA = CURRENT_SCHEMA";
 
+  // Catalog query for estimated number of rows and size of a table
+  private static final String QUERY_TABLE_SIZE = "SELECT t.RELTUPLES, "
+      + "s.USED_BYTES FROM _V_TABLE t LEFT OUTER JOIN _V_TABLE_STORAGE_STAT s "
+      + "ON s.OBJID = t.OBJID WHERE t.TABLENAME = ? AND t.SCHEMA = ";
+
   private static final String QUERY_OBJECTY_TYPE_WITH_SCHEMA = "SELECT OBJTYPE FROM "
       + "_V_OBJECTS WHERE OBJNAME = ? AND SCHEMA = ?";
 
@@ -64,10 +145,100 @@ public class DirectNetezzaManager extends NetezzaManager {
           + "real tables. Using it against view or other types is not "
           + "supported.";
 
+  /*
+   * Jar with the record class used by the current export or null if the
+   * class hasn't been generated.
+   */
+  private String ormJarFile;
+
+  /*
+   * Tables already imported by a multi-table import job.
+   */
+  private final Set<String> batchImportedTables = new HashSet<String>();
+
+  /*
+   * Whether imports keep the default of no escape character instead of
+   * forcing '\\'.
+   */
+  private boolean defaultEscapeKept;
+
   public DirectNetezzaManager(final SqoopOptions opts) {
     super(opts);
   }
 
+  /**
+   * Keep imported text unescaped when no escape character was specified,
+   * as the JDBC import does. Used when NetezzaManager delegates to this
+   * manager, which vetoes unescaped imports of string columns.
+   */
+  void setDefaultEscapeKept(boolean kept) {
+    this.defaultEscapeKept = kept;
+  }
+
+  boolean isDefaultEscapeKept() {
+    return defaultEscapeKept;
+  }
+
+  /**
+   * Direct transfers move delimited text, so the record class is not
+   * generated up front. Exports of SequenceFiles generate it lazily.
+   *
+   * The class is still generated when the user asked for it by name,
+   * provided a jar or runs an incremental import that merges the results.
+   */
+  @Override
+  public boolean isORMFacilitySelfManaged() {
+    if (null != ormJarFile
+        || !options.getConf().getBoolean(NZ_LAZY_CODEGEN_CONF, true)) {
+      return false;
+    }
+
+    return null == options.getClassName()
+        && null == options.getExistingJarName()
+        && null == options.getHCatTableName()
+        && null == options.getHBaseTable()
+        && null == options.getAccumuloTable()
+        && options.getIncrementalMode() != IncrementalMode.DateLastModified;
+  }
+
+  /**
+   * Generate the record class if the exported files have to be parsed into
+   * records and Sqoop didn't generate it.
+   *
+   * @return Context of the export referring to the generated jar
+   */
+  private ExportJobContext prepareRecordClass(ExportJobContext context)
+      throws IOException {
+    if (null != context.getJarFile()) {
+      ormJarFile = context.getJarFile();
+      return context;
+    }
+    if (!isORMFacilitySelfManaged()) {
+      return context;
+    }
+
+    Path exportDir = new Path(options.getExportDir());
+    if (ExportJobBase.getFileType(options.getConf(), exportDir)
+        == ExportJobBase.FileType.UNKNOWN) {
+      LOG.info("Exporting delimited text, skipping code generation");
+      return context;
+    }
+
+    LOG.info("Generating record class to parse files in " + exportDir);
+    CompilationManager compileMgr = new CompilationManager(options);
+    ClassWriter classWriter = new ClassWriter(options, this,
+        context.getTableName(), compileMgr);
+    classWriter.generate();
+    compileMgr.compile();
+    compileMgr.jar();
+    ormJarFile = compileMgr.getJarFilename();
+
+    ExportJobContext generated = new ExportJobContext(context.getTableName(),
+        ormJarFile, options);
+    generated.setConnManager(this);
+    return generated;
+  }
+
   /**
    *  Export the table from HDFS to NZ by using remote external
    *  tables to insert the data back into the database.
@@ -106,8 +277,20 @@ public class DirectNetezzaManager extends NetezzaManager {
     propagateNullSubstituteValues(options.getInNullStringValue(),
                                   options.getInNullNonStringValue(),
                                   options.getConf());
+
+    context = prepareRecordClass(context);
+
     // Run the export itself
     NetezzaExportJob exportJob = new NetezzaExportJob(context);
+    if (isLocalTransferEnabled()) {
+      // Summing up a large export directory costs NameNode round trips
+      Path exportDir = new Path(options.getExportDir());
+      long bytes = exportDir.getFileSystem(options.getConf())
+          .getContentSummary(exportDir).getLength();
+      if (isLocalTransfer(-1, bytes)) {
+        exportJob.setLocalThreads(options.getNumMappers());
+      }
+    }
     exportJob.runExport();
   }
 
@@ -170,7 +353,24 @@ public class DirectNetezzaManager extends NetezzaManager {
    * @throws IOException if the target object is not a TABLE type.
    */
   private void validateTargetObjectType() throws IOException {
+    String objType = getTargetObjectType();
+    if (!objType.equalsIgnoreCase("TABLE")) {
+      throw new IOException(ERROR_MESSAGE_TABLE_SUPPORT_ONLY);
+    }
+  }
+
+  /**
+   * Look up type of the object given by the table name.
+   *
+   * @return Object type as stored in the catalog, e.g. TABLE or VIEW
+   * @throws IOException if the object type can't be found.
+   */
+  String getTargetObjectType() throws IOException {
     String givenTableName = options.getTableName();
+    NetezzaTableMetadata metadata = getTableMetadata(givenTableName);
+    if (null != metadata) {
+      return metadata.getObjectType();
+    }
 
     String owner = options.getUsername();
     String shortTableName = givenTableName;
@@ -209,9 +409,7 @@ public class DirectNetezzaManager extends NetezzaManager {
 
       String objType = rset.getString(1);
       LOG.debug("Object type found to be: " + objType);
-      if (!objType.equalsIgnoreCase("TABLE")) {
-        throw new IOException(ERROR_MESSAGE_TABLE_SUPPORT_ONLY);
-      }
+      return objType;
     } catch (SQLException ex) {
       LOG.error("Unable to verify object type", ex);
       throw new IOException(ex);
@@ -236,7 +434,67 @@ public class DirectNetezzaManager extends NetezzaManager {
   public void importTable(ImportJobContext context)
       throws IOException, ImportException {
     context.setConnManager(this);
+    configureImport(context);
+
+    if (batchImportedTables.contains(context.getTableName())) {
+      LOG.info("Table " + context.getTableName()
+          + " has already been imported together with other tables");
+      return;
+    }
+    if (options.getConf().getBoolean(NZ_BATCH_TABLES_CONF, false)) {
+      if (options.getActiveSqoopTool() instanceof ImportAllTablesTool) {
+        runBatchImport(context);
+        return;
+      }
+      LOG.warn("--" + NZ_BATCH_TABLES_ARG + " is only supported by "
+          + "import-all-tables. Importing single table.");
+    }
+
+    // Netezza specific validations
+    String objType = getTargetObjectType();
+    if (objType.equalsIgnoreCase("TABLE")) {
+      runImport(context, null);
+      return;
+    }
 
+    if (!objType.toUpperCase().contains("VIEW")
+        || !options.getConf().getBoolean(NZ_MATERIALIZE_CONF, false)) {
+      LOG.info("Views can be imported in direct mode with --"
+          + NZ_MATERIALIZE_ARG);
+      throw new IOException(ERROR_MESSAGE_TABLE_SUPPORT_ONLY);
+    }
+
+    String query = "SELECT * FROM " + escapeTableName(options.getTableName());
+    if (null != options.getWhereClause()) {
+      query += " WHERE " + options.getWhereClause();
+    }
+    runMaterializedImport(context, query);
+  }
+
+  /**
+   * Import result of a free-form query by materializing it into a table
+   * first.
+   * {@inheritDoc}
+   */
+  @Override
+  public void importQuery(ImportJobContext context)
+      throws IOException, ImportException {
+    context.setConnManager(this);
+    configureImport(context);
+
+    if (!options.getConf().getBoolean(NZ_MATERIALIZE_CONF, false)) {
+      throw new IOException("Cannot import a free-form query with --direct "
+          + "unless --" + NZ_MATERIALIZE_ARG + " is specified.");
+    }
+
+    runMaterializedImport(context, options.getSqlQuery().replace(
+        DataDrivenDBInputFormat.SUBSTITUTE_TOKEN, "(1 = 1)"));
+  }
+
+  /**
+   * Apply Netezza specific arguments and validate them for import.
+   */
+  private void configureImport(ImportJobContext context) {
     // set netezza specific settings in context's sqoop options.
     String[] extras = context.getOptions().getExtraArgs();
     LOG.debug("extraArgs " + Arrays.toString(extras));
@@ -256,10 +514,159 @@ public class DirectNetezzaManager extends NetezzaManager {
 
     // Validate parameter compatiblitiy
     validateParameterCompatibility(options);
+  }
 
+  /**
+   * Store result of the query in a table distributed as requested by the
+   * user, import the table using remote external tables and drop it.
+   *
+   * @param context Import context
+   * @param query Query to materialize
+   */
+  private void runMaterializedImport(ImportJobContext context, String query)
+      throws IOException, ImportException {
+    // Jobs scheduled at the same time must not share the table
+    String table = MATERIALIZED_TABLE_PREFIX
+        + UUID.randomUUID().toString().replace("-", "").toUpperCase();
+
+    String distribute = "RANDOM";
+    String columns = options.getConf().get(NZ_MATERIALIZE_DISTRIBUTE_CONF);
+    if (null != columns && !columns.trim().isEmpty()) {
+      StringBuilder sb = new StringBuilder();
+      for (String column : columns.split(",")) {
+        sb.append(sb.length() == 0 ? "(" : ", ")
+            .append(escapeColName(column.trim()));
+      }
+      distribute = sb.append(")").toString();
+    }
+
+    LOG.info("Materializing query into table " + table);
+    try {
+      executeUpdateStatement("CREATE TABLE " + escapeTableName(table)
+          + " AS " + query + " DISTRIBUTE ON " + distribute);
+    } catch (SQLException e) {
+      throw new IOException("Can't materialize query into table " + table, e);
+    }
+
+    try {
+      runImport(context, table);
+    } finally {
+      try {
+        executeUpdateStatement("DROP TABLE " + escapeTableName(table));
+      } catch (SQLException e) {
+        LOG.warn("Can't drop materialized table " + table, e);
+      }
+    }
+  }
+
+  /**
+   * Import all tables that import-all-tables is going to import in a single
+   * job, starting with the one given by the context. Output of every table
+   * is moved into its target directory separately once the job succeeds.
+   */
+  private void runBatchImport(ImportJobContext context)
+      throws IOException, ImportException {
+    // import-all-tables deletes the target directory of every table right
+    // before importing it, which would remove output committed by the batch
+    if (options.isAppendMode()
+        || options.getIncrementalMode() != IncrementalMode.None
+        || null != options.getWhereClause()
+        || null != options.getColumns()
+        || options.isDeleteMode()) {
+      throw new IOException("--" + NZ_BATCH_TABLES_ARG + " can't be used "
+          + "with --append, --incremental, --where, --columns or "
+          + "--delete-target-dir");
+    }
+
+    List<String> tables = getBatchTables(context.getTableName());
+    Path parent = context.getDestination().getParent();
+    FileSystem fs = parent.getFileSystem(options.getConf());
+    for (String table : tables) {
+      Path target = new Path(parent, table);
+      if (fs.exists(target)) {
+        throw new IOException("Target directory " + target
+            + " of table " + table + " already exists");
+      }
+    }
+
+    Path workDir = new Path(parent,
+        BATCH_WORK_DIR_PREFIX + System.currentTimeMillis());
+    ImportJobContext batchContext = new ImportJobContext(
+        context.getTableName(), context.getJarFile(), options, workDir);
+    batchContext.setConnManager(this);
+
+    propagateNullSubstituteValues(options.getNullStringValue(),
+                                  options.getNullNonStringValue(),
+                                  options.getConf());
+
+    try {
+      NetezzaBatchImportJob importer;
+      try {
+        importer = new NetezzaBatchImportJob(batchContext, tables);
+      } catch (ClassNotFoundException cnfe) {
+        throw new IOException("Could not load required class", cnfe);
+      }
+      importer.runImport(context.getTableName(), context.getJarFile(), null,
+          options.getConf());
+
+      List<String> failed = new ArrayList<String>();
+      for (String table : tables) {
+        Path output = new Path(workDir, table);
+        Path target = new Path(parent, table);
+        try {
+          // Tables without rows have no output
+          if (!fs.exists(output)) {
+            fs.mkdirs(target);
+          } else if (!fs.rename(output, target)) {
+            throw new IOException("Can't rename " + output + " to " + target);
+          }
+          batchImportedTables.add(table);
+        } catch (IOException e) {
+          LOG.error("Can't commit import of table " + table, e);
+          failed.add(table);
+        }
+      }
+      if (!failed.isEmpty()) {
+        throw new ImportException("Imported data of tables " + failed
+            + " could not be moved to their target directories");
+      }
+    } finally {
+      if (fs.exists(workDir) && !fs.delete(workDir, true)) {
+        LOG.warn("Can't delete " + workDir);
+      }
+    }
+  }
+
+  /**
+   * @return Tables imported by import-all-tables, starting with the given one
+   */
+  private List<String> getBatchTables(String firstTable) {
+    Set<String> excluded = new HashSet<String>();
+    if (null != options.getAllTablesExclude()) {
+      excluded.addAll(Arrays.asList(options.getAllTablesExclude().split(",")));
+    }
+
+    List<String> tables = new ArrayList<String>();
+    tables.add(firstTable);
+    for (String table : listTables()) {
+      if (!excluded.contains(table) && !table.equals(firstTable)) {
+        tables.add(table);
+      }
+    }
+    return tables;
+  }
+
+  /**
+   * Run the direct import job.
+   *
+   * @param context Import context
+   * @param sourceTable Table to read instead of the imported one or null
+   */
+  private void runImport(ImportJobContext context, String sourceTable)
+      throws IOException, ImportException {
     NetezzaImportJob importer = null;
     try {
-      importer = new NetezzaImportJob(context);
+      importer = new NetezzaImportJob(context, sourceTable);
     } catch (ClassNotFoundException cnfe) {
       throw new IOException("Could not load required class", cnfe);
     }
@@ -273,19 +680,110 @@ public class DirectNetezzaManager extends NetezzaManager {
           + "as text files.");
     }
 
-    // Netezza specific validations
-    validateTargetObjectType();
-
     // Handle NULL string
     propagateNullSubstituteValues(options.getNullStringValue(),
                                   options.getNullNonStringValue(),
                                   options.getConf());
 
+    if (isLocalTransferEnabled()) {
+      long[] size = getTableSize(null == sourceTable
+          ? options.getTableName() : sourceTable);
+      if (null != size && isLocalTransfer(size[0], size[1])) {
+        importer.setLocalThreads(options.getNumMappers());
+      }
+    }
+
     // Run import job
     importer.runImport(options.getTableName(), context.getJarFile(), null,
         options.getConf());
   }
 
+  /**
+   * @return False if transfers must not run in the client JVM regardless of
+   *         their size
+   */
+  boolean isLocalTransferEnabled() {
+    Configuration conf = options.getConf();
+    return conf.getBoolean(NZ_LOCAL_CONF, true)
+        && !"local".equals(conf.get("mapreduce.framework.name"));
+  }
+
+  /**
+   * Decide whether the transfer is small enough to run its slices as
+   * threads of the client JVM. Submitting a job and starting its tasks
+   * takes longer than transferring a small table.
+   *
+   * @param rows Estimated number of rows or -1 if not known
+   * @param bytes Estimated size of the data in bytes
+   * @return True if the job should use the local job runner
+   */
+  boolean isLocalTransfer(long rows, long bytes) {
+    if (!isLocalTransferEnabled()) {
+      return false;
+    }
+
+    Configuration conf = options.getConf();
+    long maxBytes = conf.getLong(NZ_LOCAL_MAX_BYTES_CONF,
+        DEFAULT_LOCAL_MAX_BYTES);
+    long maxRows = conf.getLong(NZ_LOCAL_MAX_ROWS_CONF,
+        DEFAULT_LOCAL_MAX_ROWS);
+    if (bytes > maxBytes || rows > maxRows) {
+      return false;
+    }
+    if (!isFifoSupported()) {
+      LOG.debug("Named pipes are not available in the client");
+      return false;
+    }
+
+    LOG.info("Transferring " + bytes + " bytes"
+        + (rows >= 0 ? " (" + rows + " rows)" : "") + " in "
+        + options.getNumMappers() + " threads of this process, use -D"
+        + NZ_LOCAL_CONF + "=false to submit a MapReduce job instead");
+    return true;
+  }
+
+  /**
+   * Read estimated number of rows and size of the table from the catalog.
+   *
+   * @return Rows and bytes or null if the estimate is not available
+   */
+  private long[] getTableSize(String tableName) {
+    String sql = QUERY_TABLE_SIZE
+        + (null == getSchema() ? "CURRENT_SCHEMA" : "?");
+    PreparedStatement pstmt = null;
+    try {
+      pstmt = getConnection().prepareStatement(sql,
+          ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+      pstmt.setString(1, tableName);
+      if (null != getSchema()) {
+        pstmt.setString(2, getSchema());
+      }
+
+      ResultSet rset = pstmt.executeQuery();
+      if (!rset.next()) {
+        return null;
+      }
+      long rows = rset.getLong(1);
+      long bytes = rset.getLong(2);
+      if (rset.wasNull()) {
+        return null;
+      }
+      return new long[] {rows, bytes};
+    } catch (SQLException ex) {
+      LOG.debug("Unable to estimate size of table " + tableName, ex);
+      return null;
+    } finally {
+      if (pstmt != null) {
+        try {
+          pstmt.close();
+        } catch (SQLException ex) {
+          LOG.error("Unable to close prepared statement for size estimate",
+              ex);
+        }
+      }
+    }
+  }
+
   /**
    * @return NZ related command line options used by cli parser
    */
@@ -313,6 +811,79 @@ public class DirectNetezzaManager extends NetezzaManager {
         .withDescription("Pass CTRLCHARS option to nzLoad")
         .withLongOpt(NZ_CTRLCHARS_ARG).create());
 
+    nzOpts.addOption(OptionBuilder.withArgName(NZ_ROUTE_COLUMN_CONF).hasArg()
+        .withDescription("Column whose value selects the target table of "
+            + "each exported record")
+        .withLongOpt(NZ_ROUTE_COLUMN_ARG).create());
+
+    nzOpts.addOption(OptionBuilder.withArgName(NZ_ROUTE_TABLES_CONF).hasArg()
+        .withDescription("Comma separated list of value=table pairs used to "
+            + "route exported records into additional tables")
+        .withLongOpt(NZ_ROUTE_TABLES_ARG).create());
+
+    nzOpts.addOption(OptionBuilder.withArgName(NZ_STANDBY_CONNECT_CONF)
+        .hasArg()
+        .withDescription("JDBC connect string of a standby appliance that "
+            + "should be loaded with the same data")
+        .withLongOpt(NZ_STANDBY_CONNECT_ARG).create());
+
+    nzOpts.addOption(OptionBuilder.withArgName(NZ_STANDBY_DEGRADE_CONF)
+        .withDescription("Do not fail the export when only one of the "
+            + "primary and standby appliances fails")
+        .withLongOpt(NZ_STANDBY_DEGRADE_ARG).create());
+
+    nzOpts.addOption(OptionBuilder.withArgName(NZ_REJECTDIR_CONF).hasArg()
+        .withDescription("Validate exported records against the target "
+            + "table columns and store invalid ones in this HDFS directory")
+        .withLongOpt(NZ_REJECTDIR_ARG).create());
+
+    nzOpts.addOption(OptionBuilder.withArgName(NZ_MATERIALIZE_CONF)
+        .withDescription("Import views and free-form queries by storing "
+            + "their result in a temporary table first")
+        .withLongOpt(NZ_MATERIALIZE_ARG).create());
+
+    nzOpts.addOption(OptionBuilder.withArgName(NZ_MATERIALIZE_DISTRIBUTE_CONF)
+        .hasArg()
+        .withDescription("Comma separated columns used to distribute the "
+            + "temporary table, random distribution is used by default")
+        .withLongOpt(NZ_MATERIALIZE_DISTRIBUTE_ARG).create());
+
+    nzOpts.addOption(OptionBuilder.withArgName(NZ_BATCH_TABLES_CONF)
+        .withDescription("Import all tables of import-all-tables in a "
+            + "single MapReduce job")
+        .withLongOpt(NZ_BATCH_TABLES_ARG).create());
+
+    nzOpts.addOption(OptionBuilder.withArgName(NZ_SESSION_SLOTS_CONF).hasArg()
+        .withDescription("Maximum number of Netezza sessions opened at once "
+            + "by all direct jobs sharing the same slot directory")
+        .withLongOpt(NZ_SESSION_SLOTS_ARG).create());
+
+    nzOpts.addOption(OptionBuilder.withArgName(NZ_SESSION_PRIORITY_CONF)
+        .hasArg()
+        .withDescription("Priority of Netezza sessions, one of critical, "
+            + "high, normal or low")
+        .withLongOpt(NZ_SESSION_PRIORITY_ARG).create());
+
+    nzOpts.addOption(OptionBuilder.withArgName(NZ_SESSION_SQL_CONF).hasArg()
+        .withDescription("Semicolon separated SET statements executed in "
+            + "every Netezza session right after connecting")
+        .withLongOpt(NZ_SESSION_SQL_ARG).create());
+
+    nzOpts.addOption(OptionBuilder.withArgName(NZ_SESSION_TIMEOUT_CONF)
+        .hasArg()
+        .withDescription("Timeout of the transfer statements in seconds")
+        .withLongOpt(NZ_SESSION_TIMEOUT_ARG).create());
+
+    nzOpts.addOption(OptionBuilder.withArgName(NZ_STAGING_DIR_CONF).hasArg()
+        .withDescription("Local directory staging unloaded data, so that "
+            + "import sessions finish before the data is stored")
+        .withLongOpt(NZ_STAGING_DIR_ARG).create());
+
+    nzOpts.addOption(OptionBuilder.withArgName(NZ_TRANSPORT_CONF).hasArg()
+        .withDescription("Channel between tasks and Netezza sessions, one of "
+            + "fifo, file or a NetezzaTransport class name")
+        .withLongOpt(NZ_TRANSPORT_ARG).create());
+
     nzOpts.addOption(OptionBuilder.withArgName(NETEZZA_SCHEMA_OPT)
         .hasArg().withDescription("Allow Schema")
         .withLongOpt(NETEZZA_TABLE_SCHEMA_LONG_ARG).create());
@@ -353,6 +924,72 @@ public class DirectNetezzaManager extends NetezzaManager {
       conf.setBoolean(NZ_CTRLCHARS_CONF, true);
     }
 
+    // Routing of exported records into multiple tables
+    if (in.hasOption(NZ_ROUTE_COLUMN_ARG)) {
+      conf.set(NZ_ROUTE_COLUMN_CONF, in.getOptionValue(NZ_ROUTE_COLUMN_ARG));
+    }
+    if (in.hasOption(NZ_ROUTE_TABLES_ARG)) {
+      conf.set(NZ_ROUTE_TABLES_CONF, in.getOptionValue(NZ_ROUTE_TABLES_ARG));
+    }
+
+    // Standby appliance
+    if (in.hasOption(NZ_STANDBY_CONNECT_ARG)) {
+      conf.set(NZ_STANDBY_CONNECT_CONF,
+          in.getOptionValue(NZ_STANDBY_CONNECT_ARG));
+    }
+    if (in.hasOption(NZ_STANDBY_DEGRADE_ARG)) {
+      conf.setBoolean(NZ_STANDBY_DEGRADE_CONF, true);
+    }
+
+    // REJECTDIR option
+    if (in.hasOption(NZ_REJECTDIR_ARG)) {
+      conf.set(NZ_REJECTDIR_CONF, in.getOptionValue(NZ_REJECTDIR_ARG));
+    }
+
+    // Materialization of views and queries
+    if (in.hasOption(NZ_MATERIALIZE_ARG)) {
+      conf.setBoolean(NZ_MATERIALIZE_CONF, true);
+    }
+    if (in.hasOption(NZ_MATERIALIZE_DISTRIBUTE_ARG)) {
+      conf.set(NZ_MATERIALIZE_DISTRIBUTE_CONF,
+          in.getOptionValue(NZ_MATERIALIZE_DISTRIBUTE_ARG));
+    }
+
+    // Multi-table import
+    if (in.hasOption(NZ_BATCH_TABLES_ARG)) {
+      conf.setBoolean(NZ_BATCH_TABLES_CONF, true);
+    }
+
+    // Cluster wide limit of sessions
+    if (in.hasOption(NZ_SESSION_SLOTS_ARG)) {
+      int slots = Integer.parseInt(in.getOptionValue(NZ_SESSION_SLOTS_ARG));
+      conf.setInt(NZ_SESSION_SLOTS_CONF, slots);
+    }
+
+    // Workload management settings of all sessions
+    if (in.hasOption(NZ_SESSION_PRIORITY_ARG)) {
+      conf.set(NZ_SESSION_PRIORITY_CONF,
+          in.getOptionValue(NZ_SESSION_PRIORITY_ARG));
+    }
+    if (in.hasOption(NZ_SESSION_SQL_ARG)) {
+      conf.set(NZ_SESSION_SQL_CONF, in.getOptionValue(NZ_SESSION_SQL_ARG));
+    }
+    if (in.hasOption(NZ_SESSION_TIMEOUT_ARG)) {
+      int timeout = Integer.parseInt(in.getOptionValue(NZ_SESSION_TIMEOUT_ARG));
+      conf.setInt(NZ_SESSION_TIMEOUT_CONF, timeout);
+    }
+
+    // Local staging of imported data
+    if (in.hasOption(NZ_STAGING_DIR_ARG)) {
+      conf.set(NZ_STAGING_DIR_CONF, in.getOptionValue(NZ_STAGING_DIR_ARG));
+    }
+
+    // Channel carrying the data
+    if (in.hasOption(NZ_TRANSPORT_ARG)) {
+      conf.set(NZ_TRANSPORT_CONF,
+          getTransportClass(in.getOptionValue(NZ_TRANSPORT_ARG)));
+    }
+
     // SCHEMA option
     if (in.hasOption(NETEZZA_TABLE_SCHEMA_LONG_ARG)) {
       String schemaName = in.getOptionValue(NETEZZA_TABLE_SCHEMA_LONG_ARG);
@@ -361,6 +998,19 @@ public class DirectNetezzaManager extends NetezzaManager {
     }
   }
 
+  /**
+   * @return Class name of the transport with given short name, other
+   *         values are taken as class names
+   */
+  static String getTransportClass(String transport) {
+    if ("fifo".equalsIgnoreCase(transport)) {
+      return NetezzaFifoTransport.class.getName();
+    } else if ("file".equalsIgnoreCase(transport)) {
+      return NetezzaFileTransport.class.getName();
+    }
+    return transport;
+  }
+
   /**
    * Verify compatibility of this connector with user entered parameters.
    *
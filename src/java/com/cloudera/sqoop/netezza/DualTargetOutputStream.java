@@ -0,0 +1,138 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+
+package com.cloudera.sqoop.netezza;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * OutputStream that writes every block into FIFOs of both the primary and
+ * the standby appliance.
+ *
+ * When degrading is allowed, failure of one side is logged and the side is
+ * dropped; the export continues with the remaining one. Failure of both
+ * sides, or of any side when degrading is not allowed, fails the write.
+ */
+public class DualTargetOutputStream extends OutputStream {
+
+  public static final Log LOG = LogFactory.getLog(
+      DualTargetOutputStream.class.getName());
+
+  private OutputStream primary;
+  private OutputStream standby;
+  private final boolean degrade;
+
+  private boolean primaryFailed;
+  private boolean standbyFailed;
+
+  public DualTargetOutputStream(OutputStream primary, OutputStream standby,
+                                boolean degrade) {
+    this.primary = primary;
+    this.standby = standby;
+    this.degrade = degrade;
+  }
+
+  public boolean isPrimaryFailed() {
+    return primaryFailed;
+  }
+
+  public boolean isStandbyFailed() {
+    return standbyFailed;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    write(new byte[] { (byte) b }, 0, 1);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    if (null != primary) {
+      try {
+        primary.write(b, off, len);
+      } catch (IOException e) {
+        failPrimary(e);
+      }
+    }
+
+    if (null != standby) {
+      try {
+        standby.write(b, off, len);
+      } catch (IOException e) {
+        failStandby(e);
+      }
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    if (null != primary) {
+      try {
+        primary.flush();
+      } catch (IOException e) {
+        failPrimary(e);
+      }
+    }
+
+    if (null != standby) {
+      try {
+        standby.flush();
+      } catch (IOException e) {
+        failStandby(e);
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    IOException ex = null;
+    for (OutputStream stream : new OutputStream[] { primary, standby }) {
+      if (null != stream) {
+        try {
+          stream.close();
+        } catch (IOException e) {
+          ex = e;
+        }
+      }
+    }
+    primary = null;
+    standby = null;
+
+    if (null != ex) {
+      throw ex;
+    }
+  }
+
+  private void failPrimary(IOException e) throws IOException {
+    if (!degrade || standbyFailed) {
+      throw e;
+    }
+    LOG.warn("Write to primary appliance failed, continuing with standby "
+        + "only: " + e);
+    primaryFailed = true;
+    closeQuietly(primary);
+    primary = null;
+  }
+
+  private void failStandby(IOException e) throws IOException {
+    if (!degrade || primaryFailed) {
+      throw e;
+    }
+    LOG.warn("Write to standby appliance failed, continuing with primary "
+        + "only: " + e);
+    standbyFailed = true;
+    closeQuietly(standby);
+    standby = null;
+  }
+
+  private static void closeQuietly(OutputStream stream) {
+    try {
+      stream.close();
+    } catch (IOException e) {
+      LOG.debug("Error closing failed FIFO stream: " + e);
+    }
+  }
+}
@@ -0,0 +1,78 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+
+package com.cloudera.sqoop.netezza;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.lib.output.LazyOutputFormat;
+import org.apache.sqoop.manager.ConnManager;
+import org.apache.sqoop.manager.ImportJobContext;
+
+import static com.cloudera.sqoop.netezza.util.NetezzaConstants.*;
+
+/**
+ * Direct import of several tables in one MapReduce job.
+ *
+ * Every split reads one slice group of one table. Mappers write each table
+ * into its own subdirectory of the job output directory, the manager moves
+ * the subdirectories into place once the job succeeds.
+ */
+public class NetezzaBatchImportJob extends NetezzaImportJob {
+
+  public static final Log LOG =
+      LogFactory.getLog(NetezzaBatchImportJob.class.getName());
+
+  // Hadoop 2.7+ limit of concurrently running map tasks
+  private static final String RUNNING_MAP_LIMIT =
+      "mapreduce.job.running.map.limit";
+
+  private final List<String> tables;
+
+  /**
+   * @param context Import context with the job output directory as
+   *        destination
+   * @param tables Names of all imported tables
+   */
+  public NetezzaBatchImportJob(ImportJobContext context, List<String> tables)
+      throws ClassNotFoundException {
+    super(context);
+    this.tables = tables;
+  }
+
+  @Override
+  protected void configureInputFormat(Job job, String tableName,
+      String tableClassName, String splitByCol)
+      throws ClassNotFoundException, IOException {
+    super.configureInputFormat(job, tableName, tableClassName, splitByCol);
+
+    ConnManager mgr = getContext().getConnManager();
+    Configuration conf = job.getConfiguration();
+    conf.setInt(PROPERTY_BATCH_TABLE_COUNT, tables.size());
+    for (int i = 0; i < tables.size(); i++) {
+      conf.set(PROPERTY_BATCH_TABLE + "." + i + ".name", tables.get(i));
+      conf.set(PROPERTY_BATCH_TABLE + "." + i + ".sql",
+          mgr.escapeTableName(tables.get(i)));
+    }
+
+    // Every table is read by as many slice groups as a single table import,
+    // but no more than the requested number of connections is open at once.
+    int slices = options.getNumMappers();
+    conf.setInt(PROPERTY_BATCH_SLICES, slices);
+    conf.setInt(RUNNING_MAP_LIMIT, slices);
+    LOG.info("Importing " + tables.size() + " tables in "
+        + (tables.size() * slices) + " splits");
+  }
+
+  @Override
+  protected void configureOutputFormat(Job job, String tableName,
+      String tableClassName) throws ClassNotFoundException, IOException {
+    super.configureOutputFormat(job, tableName, tableClassName);
+    // Mappers write only to per-table outputs
+    LazyOutputFormat.setOutputFormatClass(job, getOutputFormatClass());
+  }
+}
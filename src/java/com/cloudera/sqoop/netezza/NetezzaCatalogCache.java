@@ -0,0 +1,132 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+
+package com.cloudera.sqoop.netezza;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * On-disk cache of table metadata shared by all jobs started on one host.
+ *
+ * Every table is stored in its own properties file named by a digest of the
+ * connect string, schema and table name. Files are replaced atomically, so
+ * concurrently running clients never read a partially written entry. The
+ * cache never decides whether an entry is current, callers compare the
+ * signature of the loaded entry with the one read from the catalog.
+ */
+public class NetezzaCatalogCache {
+
+  public static final Log LOG = LogFactory.getLog(
+      NetezzaCatalogCache.class.getName());
+
+  private final File directory;
+
+  public NetezzaCatalogCache(File directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * @return Cached metadata or null if there is no usable entry
+   */
+  public NetezzaTableMetadata load(String connectString, String schema,
+                                   String table) {
+    File file = getFile(connectString, schema, table);
+    if (!file.isFile()) {
+      return null;
+    }
+
+    Properties props = new Properties();
+    InputStream in = null;
+    try {
+      in = new FileInputStream(file);
+      props.load(in);
+    } catch (IOException e) {
+      LOG.warn("Can't read metadata cache file " + file, e);
+      return null;
+    } finally {
+      closeQuietly(in);
+    }
+    return NetezzaTableMetadata.fromProperties(props);
+  }
+
+  /**
+   * Store metadata of the table. Failures are only logged as the cache is
+   * not needed for correctness.
+   */
+  public void store(String connectString, String schema, String table,
+                    NetezzaTableMetadata metadata) {
+    File file = getFile(connectString, schema, table);
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      LOG.warn("Can't create metadata cache directory " + directory);
+      return;
+    }
+
+    OutputStream out = null;
+    File temp = null;
+    try {
+      temp = File.createTempFile(file.getName(), ".tmp", directory);
+      out = new FileOutputStream(temp);
+      metadata.toProperties().store(out, "Metadata of " + table);
+      out.close();
+      out = null;
+      if (!temp.renameTo(file)) {
+        // Windows can't rename over an existing file
+        if (!file.delete() || !temp.renameTo(file)) {
+          throw new IOException("Can't rename " + temp + " to " + file);
+        }
+      }
+      temp = null;
+    } catch (IOException e) {
+      LOG.warn("Can't write metadata cache file " + file, e);
+    } finally {
+      closeQuietly(out);
+      if (null != temp && !temp.delete()) {
+        LOG.debug("Can't delete " + temp);
+      }
+    }
+  }
+
+  private File getFile(String connectString, String schema, String table) {
+    String key = connectString + '\u0000' + schema + '\u0000' + table;
+    return new File(directory, digest(key) + ".properties");
+  }
+
+  /**
+   * @return Hex encoded SHA-1 digest of the value
+   */
+  public static String digest(String value) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-1");
+      byte[] hash = digest.digest(value.getBytes(StandardCharsets.UTF_8));
+      StringBuilder hex = new StringBuilder();
+      for (byte b : hash) {
+        hex.append(String.format("%02x", b & 0xff));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-1 is not available", e);
+    }
+  }
+
+  private static void closeQuietly(Closeable closeable) {
+    if (null != closeable) {
+      try {
+        closeable.close();
+      } catch (IOException e) {
+        LOG.debug("Can't close metadata cache file", e);
+      }
+    }
+  }
+}
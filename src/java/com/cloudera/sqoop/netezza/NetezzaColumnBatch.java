@@ -0,0 +1,365 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+
+package com.cloudera.sqoop.netezza;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+
+/**
+ * Batch of rows fetched from Netezza stored column by column.
+ *
+ * Integer columns are kept in long arrays and floating point columns in
+ * double arrays. All other columns are kept as UTF-8 encoded text in one
+ * byte array per column, formatted the same way as the generated record
+ * class formats them. Dates and ASCII text are encoded straight into the
+ * array, other values go through String.getBytes. Nulls are tracked in a
+ * bitmap per column. Arrays are reused by all batches read by one task.
+ */
+public class NetezzaColumnBatch {
+
+  // Storage kind of a column
+  public static final int KIND_LONG = 0;
+  public static final int KIND_FLOAT = 1;
+  public static final int KIND_DOUBLE = 2;
+  public static final int KIND_TEXT = 3;
+
+  private final int[] sqlTypes;
+  private final int[] kinds;
+  private final int capacity;
+  private final boolean plainBigDecimal;
+
+  private final long[][] longs;
+  private final double[][] doubles;
+  private final byte[][] text;
+  private final int[][] textEnds;
+  private final long[][] nulls;
+
+  private int size;
+
+  /**
+   * @param sqlType Type of column as defined in java.sql.Types
+   * @return True if columns of given type can be stored in the batch
+   */
+  public static boolean isSupportedType(int sqlType) {
+    return kindOf(sqlType) >= 0;
+  }
+
+  /**
+   * @param sqlType Type of column as defined in java.sql.Types
+   * @return True if the column is mapped to String in generated code
+   */
+  public static boolean isStringType(int sqlType) {
+    switch (sqlType) {
+      case Types.CHAR:
+      case Types.VARCHAR:
+      case Types.LONGVARCHAR:
+      case Types.NCHAR:
+      case Types.NVARCHAR:
+      case Types.LONGNVARCHAR:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Get types of all columns of the result set.
+   */
+  public static int[] getSqlTypes(ResultSetMetaData metaData)
+      throws SQLException {
+    int[] types = new int[metaData.getColumnCount()];
+    for (int i = 0; i < types.length; i++) {
+      types[i] = metaData.getColumnType(i + 1);
+    }
+    return types;
+  }
+
+  private static int kindOf(int sqlType) {
+    switch (sqlType) {
+      case Types.TINYINT:
+      case Types.SMALLINT:
+      case Types.INTEGER:
+      case Types.BIGINT:
+        return KIND_LONG;
+      case Types.REAL:
+        return KIND_FLOAT;
+      case Types.FLOAT:
+      case Types.DOUBLE:
+        return KIND_DOUBLE;
+      case Types.NUMERIC:
+      case Types.DECIMAL:
+      case Types.BIT:
+      case Types.BOOLEAN:
+      case Types.DATE:
+      case Types.TIME:
+      case Types.TIMESTAMP:
+        return KIND_TEXT;
+      default:
+        return isStringType(sqlType) ? KIND_TEXT : -1;
+    }
+  }
+
+  /**
+   * @param sqlTypes Types of columns in the batch
+   * @param capacity Maximal number of rows in the batch
+   * @param plainBigDecimal Format decimals without exponent
+   */
+  public NetezzaColumnBatch(int[] sqlTypes, int capacity,
+                            boolean plainBigDecimal) {
+    this.sqlTypes = sqlTypes.clone();
+    this.kinds = new int[sqlTypes.length];
+    this.capacity = capacity;
+    this.plainBigDecimal = plainBigDecimal;
+
+    this.longs = new long[sqlTypes.length][];
+    this.doubles = new double[sqlTypes.length][];
+    this.text = new byte[sqlTypes.length][];
+    this.textEnds = new int[sqlTypes.length][];
+    this.nulls = new long[sqlTypes.length][(capacity + 63) / 64];
+    for (int i = 0; i < sqlTypes.length; i++) {
+      kinds[i] = kindOf(sqlTypes[i]);
+      switch (kinds[i]) {
+        case KIND_LONG:
+          longs[i] = new long[capacity];
+          break;
+        case KIND_FLOAT:
+        case KIND_DOUBLE:
+          doubles[i] = new double[capacity];
+          break;
+        case KIND_TEXT:
+          text[i] = new byte[capacity * 16];
+          textEnds[i] = new int[capacity];
+          break;
+        default:
+          throw new IllegalArgumentException("Unsupported type "
+            + sqlTypes[i] + " of column " + (i + 1));
+      }
+    }
+  }
+
+  public int getColumnCount() {
+    return kinds.length;
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  public boolean isFull() {
+    return size == capacity;
+  }
+
+  public int getSqlType(int column) {
+    return sqlTypes[column];
+  }
+
+  public int getKind(int column) {
+    return kinds[column];
+  }
+
+  /**
+   * Remove all rows from the batch.
+   */
+  public void clear() {
+    for (long[] bitmap : nulls) {
+      Arrays.fill(bitmap, 0, (size + 63) / 64, 0);
+    }
+    size = 0;
+  }
+
+  /**
+   * Append current row of the result set to the batch.
+   */
+  public void readRow(ResultSet rs) throws SQLException {
+    for (int i = 0; i < kinds.length; i++) {
+      int index = i + 1;
+      switch (kinds[i]) {
+        case KIND_LONG:
+          long longValue = rs.getLong(index);
+          if (rs.wasNull()) {
+            setNull(i);
+          } else {
+            setLong(i, longValue);
+          }
+          break;
+        case KIND_FLOAT:
+        case KIND_DOUBLE:
+          double doubleValue = kinds[i] == KIND_FLOAT
+            ? rs.getFloat(index) : rs.getDouble(index);
+          if (rs.wasNull()) {
+            setNull(i);
+          } else {
+            setDouble(i, doubleValue);
+          }
+          break;
+        default:
+          if (sqlTypes[i] == Types.DATE) {
+            setDate(i, rs.getDate(index));
+          } else {
+            setText(i, readText(rs, index, sqlTypes[i]));
+          }
+      }
+    }
+    endRow();
+  }
+
+  private String readText(ResultSet rs, int index, int sqlType)
+      throws SQLException {
+    switch (sqlType) {
+      case Types.NUMERIC:
+      case Types.DECIMAL:
+        BigDecimal decimal = rs.getBigDecimal(index);
+        if (decimal == null) {
+          return null;
+        }
+        return plainBigDecimal ? decimal.toPlainString() : decimal.toString();
+      case Types.BIT:
+      case Types.BOOLEAN:
+        boolean bool = rs.getBoolean(index);
+        return rs.wasNull() ? null : Boolean.toString(bool);
+      case Types.TIME:
+        return toString(rs.getTime(index));
+      case Types.TIMESTAMP:
+        return toString(rs.getTimestamp(index));
+      default:
+        return rs.getString(index);
+    }
+  }
+
+  private static String toString(Object value) {
+    return value == null ? null : value.toString();
+  }
+
+  void setNull(int column) {
+    nulls[column][size >> 6] |= 1L << (size & 63);
+    if (kinds[column] == KIND_TEXT) {
+      textEnds[column][size] = getTextStart(column, size);
+    }
+  }
+
+  void setLong(int column, long value) {
+    longs[column][size] = value;
+  }
+
+  void setDouble(int column, double value) {
+    doubles[column][size] = value;
+  }
+
+  void setText(int column, String value) {
+    if (value == null) {
+      setNull(column);
+      return;
+    }
+
+    // ASCII is copied char by char, anything else is left to the encoder
+    int length = value.length();
+    int start = reserveText(column, length);
+    byte[] bytes = text[column];
+    for (int i = 0; i < length; i++) {
+      char c = value.charAt(i);
+      if (c >= 0x80) {
+        setBytes(column, value.getBytes(StandardCharsets.UTF_8));
+        return;
+      }
+      bytes[start + i] = (byte) c;
+    }
+    textEnds[column][size] = start + length;
+  }
+
+  private void setBytes(int column, byte[] value) {
+    int start = reserveText(column, value.length);
+    System.arraycopy(value, 0, text[column], start, value.length);
+    textEnds[column][size] = start + value.length;
+  }
+
+  /**
+   * Store the date as yyyy-mm-dd, the same as Date.toString() does.
+   */
+  @SuppressWarnings("deprecation")
+  void setDate(int column, Date value) {
+    if (value == null) {
+      setNull(column);
+      return;
+    }
+
+    int year = value.getYear() + 1900;
+    if (year < 0 || year > 9999) {
+      setText(column, value.toString());
+      return;
+    }
+    int start = reserveText(column, 10);
+    byte[] bytes = text[column];
+    appendDigits(bytes, start, year, 4);
+    bytes[start + 4] = '-';
+    appendDigits(bytes, start + 5, value.getMonth() + 1, 2);
+    bytes[start + 7] = '-';
+    appendDigits(bytes, start + 8, value.getDate(), 2);
+    textEnds[column][size] = start + 10;
+  }
+
+  private static void appendDigits(byte[] bytes, int start, int value,
+      int digits) {
+    for (int i = start + digits - 1; i >= start; i--) {
+      bytes[i] = (byte) ('0' + value % 10);
+      value /= 10;
+    }
+  }
+
+  /**
+   * Make room for the value of the current row.
+   *
+   * @return Offset of the value in the text array of the column
+   */
+  private int reserveText(int column, int length) {
+    int start = getTextStart(column, size);
+    if (text[column].length < start + length) {
+      text[column] = Arrays.copyOf(text[column],
+        Math.max(text[column].length * 2, start + length));
+    }
+    return start;
+  }
+
+  void endRow() {
+    size++;
+  }
+
+  public boolean isNull(int column, int row) {
+    return (nulls[column][row >> 6] & (1L << (row & 63))) != 0;
+  }
+
+  public long getLong(int column, int row) {
+    return longs[column][row];
+  }
+
+  public double getDouble(int column, int row) {
+    return doubles[column][row];
+  }
+
+  /**
+   * @return Array with UTF-8 encoded text of all rows of the column
+   */
+  public byte[] getText(int column) {
+    return text[column];
+  }
+
+  /**
+   * @return Offset of the value in the array returned by getText
+   */
+  public int getTextStart(int column, int row) {
+    return row == 0 ? 0 : textEnds[column][row - 1];
+  }
+
+  /**
+   * @return Offset after the end of the value in the array returned by
+   *         getText
+   */
+  public int getTextEnd(int column, int row) {
+    return textEnds[column][row];
+  }
+}
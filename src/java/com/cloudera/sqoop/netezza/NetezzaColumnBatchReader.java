@@ -0,0 +1,117 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+
+package com.cloudera.sqoop.netezza;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.sqoop.mapreduce.ImportJobBase;
+
+/**
+ * RecordReader that returns rows fetched from Netezza in column batches.
+ *
+ * Query construction, fetch size tuning and cleanup are delegated to
+ * NetezzaRecordReader. The key of each batch is the position of its first
+ * row.
+ */
+public class NetezzaColumnBatchReader
+    extends RecordReader<LongWritable, NetezzaColumnBatch> {
+
+  public static final Log LOG =
+      LogFactory.getLog(NetezzaColumnBatchReader.class.getName());
+
+  private final NetezzaRecordReader<?> reader;
+  private final int batchRows;
+  private final boolean plainBigDecimal;
+
+  private ResultSet results;
+  private NetezzaColumnBatch batch;
+  private LongWritable key;
+  private long pos;
+  private boolean done;
+
+  public NetezzaColumnBatchReader(NetezzaRecordReader<?> reader,
+                                  Configuration conf) {
+    this.reader = reader;
+    this.batchRows = Math.max(1, conf.getInt(
+        NetezzaManager.NZ_JDBC_COLUMNAR_BATCH_ROWS_CONF,
+        NetezzaManager.DEFAULT_JDBC_COLUMNAR_BATCH_ROWS));
+    this.plainBigDecimal = conf.getBoolean(
+        ImportJobBase.PROPERTY_BIGDECIMAL_FORMAT,
+        ImportJobBase.PROPERTY_BIGDECIMAL_FORMAT_DEFAULT);
+  }
+
+  @Override
+  public void initialize(InputSplit split, TaskAttemptContext context) {
+    // Everything was set up by the InputFormat
+  }
+
+  @Override
+  public boolean nextKeyValue() throws IOException {
+    if (done) {
+      return false;
+    }
+
+    try {
+      if (results == null) {
+        results = reader.executeQuery(reader.getSelectQuery());
+        batch = new NetezzaColumnBatch(
+            NetezzaColumnBatch.getSqlTypes(results.getMetaData()), batchRows,
+            plainBigDecimal);
+        key = new LongWritable();
+      }
+
+      batch.clear();
+      while (!batch.isFull() && results.next()) {
+        batch.readRow(results);
+      }
+    } catch (SQLException e) {
+      throw new IOException("SQLException in nextKeyValue", e);
+    }
+
+    if (batch.getSize() == 0) {
+      done = true;
+      return false;
+    }
+
+    key.set(pos);
+    pos += batch.getSize();
+    return true;
+  }
+
+  @Override
+  public LongWritable getCurrentKey() {
+    return key;
+  }
+
+  @Override
+  public NetezzaColumnBatch getCurrentValue() {
+    return batch;
+  }
+
+  @Override
+  public float getProgress() {
+    return done ? 1.0f : 0.0f;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (results != null) {
+      try {
+        results.close();
+      } catch (SQLException e) {
+        LOG.warn("Can't close result set", e);
+      }
+    }
+
+    reader.close();
+  }
+}
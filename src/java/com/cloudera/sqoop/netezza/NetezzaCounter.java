@@ -0,0 +1,56 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+
+package com.cloudera.sqoop.netezza;
+
+/**
+ * Hadoop counters reported by the Netezza connector.
+ */
+public enum NetezzaCounter {
+  /** Records rejected by the connector before reaching Netezza. */
+  VALIDATION_REJECTED_RECORDS,
+
+  /** Records rejected by Netezza as reported in the nzlog files. */
+  NZ_REJECTED_RECORDS,
+
+  /** Records rejected by the standby appliance of an export. */
+  NZ_STANDBY_REJECTED_RECORDS,
+
+  /** Bytes transferred through the FIFOs. */
+  NZ_FIFO_BYTES,
+
+  /** Milliseconds the FIFOs were open, throughput is bytes per this time. */
+  NZ_FIFO_MILLIS,
+
+  /** FIFOs whose pipe capacity was enlarged. */
+  NZ_FIFO_RESIZED,
+
+  /** Records moved through the transports. */
+  NZ_TRANSFER_ROWS,
+
+  /** Rows reported by the Netezza statements. */
+  NZ_STATEMENT_ROWS,
+
+  /** Rows written by the column batch import, one map output per batch. */
+  NZ_BATCHED_ROWS,
+
+  /** Milliseconds from starting the first session until its first byte. */
+  NZ_FIRST_BYTE_MILLIS,
+
+  /** Milliseconds blocked in opening the transports. */
+  NZ_OPEN_WAIT_MILLIS,
+
+  /** Milliseconds blocked in reading or writing the transports. */
+  NZ_TRANSPORT_WAIT_MILLIS,
+
+  /** Milliseconds blocked in reading or writing HDFS. */
+  NZ_HDFS_WAIT_MILLIS,
+
+  /** Histogram of record sizes. */
+  NZ_RECORDS_UP_TO_64B,
+  NZ_RECORDS_UP_TO_256B,
+  NZ_RECORDS_UP_TO_1KB,
+  NZ_RECORDS_UP_TO_4KB,
+  NZ_RECORDS_UP_TO_16KB,
+  NZ_RECORDS_UP_TO_64KB,
+  NZ_RECORDS_OVER_64KB,
+}
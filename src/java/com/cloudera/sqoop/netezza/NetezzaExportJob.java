@@ -3,6 +3,8 @@
 package com.cloudera.sqoop.netezza;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -19,6 +21,10 @@ import org.apache.sqoop.mapreduce.ExportJobBase;
 import org.apache.sqoop.mapreduce.db.DBConfiguration;
 import org.apache.sqoop.mapreduce.db.DataDrivenDBInputFormat;
 
+import com.cloudera.sqoop.netezza.util.NetezzaUtil;
+
+import static com.cloudera.sqoop.netezza.util.NetezzaConstants.*;
+
 /**
  * Class that runs an export job using remote external tables in the mapper.
  */
@@ -27,10 +33,24 @@ public class NetezzaExportJob extends ExportJobBase {
   public static final Log LOG =
       LogFactory.getLog(NetezzaExportJob.class.getName());
 
+  /**
+   * Number of map tasks run in the client JVM, 0 to submit the job.
+   */
+  private int localThreads;
+
   public NetezzaExportJob(final ExportJobContext context) {
     super(context, null, null, NullOutputFormat.class);
   }
 
+  /**
+   * Run the job inside of the client JVM instead of submitting it.
+   *
+   * @param threads Number of concurrently running map tasks
+   */
+  public void setLocalThreads(int threads) {
+    this.localThreads = threads;
+  }
+
   @Override
   /**
    * Configure the inputformat to use for the job.
@@ -84,10 +104,117 @@ public class NetezzaExportJob extends ExportJobBase {
     conf.setInt(MySQLUtils.OUTPUT_FIELD_DELIM_KEY, field);
     conf.setInt(MySQLUtils.OUTPUT_ESCAPED_BY_KEY, escape);
 
+    configureRouting(conf, mgr, tableName);
+    configureStandby(conf);
+    configureValidation(conf, mgr, tableName);
+    if (localThreads > 0) {
+      NetezzaUtil.configureLocalJobRunner(conf, localThreads);
+    }
+
     // Configure the actual InputFormat to use.
     super.configureInputFormat(job, tableName, tableClassName, splitByCol);
   }
 
+  /**
+   * Resolve the routing column and escape all routing target tables so that
+   * mappers can load several tables from a single read of the input.
+   */
+  private void configureRouting(Configuration conf, ConnManager mgr,
+      String tableName) throws IOException {
+    String routeColumn = conf.get(DirectNetezzaManager.NZ_ROUTE_COLUMN_CONF);
+    if (null == routeColumn) {
+      return;
+    }
+
+    Map<String, String> routes = NetezzaUtil.parseRouteTables(
+        conf.get(DirectNetezzaManager.NZ_ROUTE_TABLES_CONF));
+    if (routes.isEmpty()) {
+      throw new IOException("--" + DirectNetezzaManager.NZ_ROUTE_COLUMN_ARG
+          + " requires --" + DirectNetezzaManager.NZ_ROUTE_TABLES_ARG);
+    }
+
+    String [] colNames = options.getColumns();
+    if (null == colNames) {
+      colNames = mgr.getColumnNames(tableName);
+    }
+
+    int routeIndex = -1;
+    for (int i = 0; null != colNames && i < colNames.length; i++) {
+      if (colNames[i].equalsIgnoreCase(routeColumn)) {
+        routeIndex = i;
+        routeColumn = colNames[i];
+        break;
+      }
+    }
+    if (routeIndex == -1) {
+      throw new IOException("Routing column " + routeColumn
+          + " is not exported to table " + tableName);
+    }
+
+    StringBuilder sb = new StringBuilder();
+    for (Map.Entry<String, String> route : routes.entrySet()) {
+      if (sb.length() > 0) {
+        sb.append(',');
+      }
+      sb.append(route.getKey()).append('=');
+      sb.append(mgr.escapeTableName(route.getValue()));
+    }
+
+    LOG.info("Routing exported records by column " + routeColumn + " into "
+        + routes.size() + " additional table(s)");
+    conf.set(DirectNetezzaManager.NZ_ROUTE_COLUMN_CONF, routeColumn);
+    conf.setInt(PROPERTY_ROUTE_COLUMN_INDEX, routeIndex);
+    conf.set(PROPERTY_ROUTE_TABLES, sb.toString());
+  }
+
+  /**
+   * Validate the connect string of the standby appliance that mappers load
+   * together with the primary one.
+   */
+  private void configureStandby(Configuration conf) throws IOException {
+    String standby = conf.get(DirectNetezzaManager.NZ_STANDBY_CONNECT_CONF);
+    if (null == standby) {
+      return;
+    }
+
+    if (!standby.startsWith("jdbc:netezza:")) {
+      throw new IOException("Standby connect string " + standby
+          + " does not point to a Netezza appliance");
+    }
+    if (standby.equals(options.getConnectString())) {
+      throw new IOException("Standby appliance must differ from the primary");
+    }
+
+    LOG.info("Loading standby appliance " + standby + " in "
+        + (conf.getBoolean(DirectNetezzaManager.NZ_STANDBY_DEGRADE_CONF, false)
+        ? "degrade" : "fail") + " mode");
+  }
+
+  /**
+   * Fetch types and limits of the exported columns once so that mappers can
+   * reject invalid records before they reach Netezza.
+   */
+  private void configureValidation(Configuration conf, ConnManager mgr,
+      String tableName) throws IOException {
+    if (null == conf.get(DirectNetezzaManager.NZ_REJECTDIR_CONF)) {
+      return;
+    }
+
+    String [] colNames = options.getColumns();
+    if (null == colNames) {
+      colNames = mgr.getColumnNames(tableName);
+    }
+    Map<String, List<Integer>> columnInfo = mgr.getColumnInfo(tableName);
+    if (null == colNames || null == columnInfo) {
+      throw new IOException("Can't retrieve column limits of table "
+          + tableName);
+    }
+
+    String limits = NetezzaFieldValidator.describeColumns(colNames,
+        columnInfo);
+    LOG.debug("Validating exported records against limits: " + limits);
+    conf.set(PROPERTY_FIELD_LIMITS, limits);
+  }
 
   @Override
   protected Class<? extends Mapper> getMapperClass() {
@@ -102,7 +229,11 @@ public class NetezzaExportJob extends ExportJobBase {
   protected void configureMapper(Job job, String tableName,
       String tableClassName) throws ClassNotFoundException, IOException {
     super.configureMapper(job, tableName, tableClassName);
-    job.getConfiguration().set(SQOOP_EXPORT_TABLE_CLASS_KEY, tableClassName);
+    // There is no record class when exporting text without code generation
+    if (null != tableClassName) {
+      job.getConfiguration().set(SQOOP_EXPORT_TABLE_CLASS_KEY,
+          tableClassName);
+    }
   }
 
 }
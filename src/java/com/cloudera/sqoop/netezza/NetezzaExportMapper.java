@@ -2,36 +2,39 @@
 
 package com.cloudera.sqoop.netezza;
 
+import com.cloudera.sqoop.netezza.util.NetezzaFlightRecorder;
 import com.cloudera.sqoop.netezza.util.NetezzaUtil;
 
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.Mapper;
 import org.apache.hadoop.util.ReflectionUtils;
-import org.apache.sqoop.io.NamedFifo;
 import org.apache.sqoop.lib.DelimiterSet;
 import org.apache.sqoop.lib.SqoopRecord;
 import org.apache.sqoop.manager.MySQLUtils;
 import org.apache.sqoop.mapreduce.ExportJobBase;
 import org.apache.sqoop.mapreduce.db.DBConfiguration;
-import org.apache.sqoop.util.TaskId;
 
 import static com.cloudera.sqoop.netezza.util.NetezzaConstants.*;
 
 /**
  * Mapper that writes to a named FIFO which will be used to export rows
- * from HDFS to Netezza at high speed.
+ * from HDFS to Netezza at high speed. Other channels can be plugged in as
+ * a {@link NetezzaTransport}.
  *
  * map() methods are actually provided by subclasses that read from
  * SequenceFiles (containing existing SqoopRecords) or text files
@@ -43,194 +46,499 @@ public class NetezzaExportMapper<KEYIN, VALIN>
   public static final Log LOG = LogFactory.getLog(
       NetezzaExportMapper.class.getName());
 
-  private Configuration conf;
+  /** Suffix of the LOGDIR subdirectory of the standby session. */
+  private static final String STANDBY_LOG_SUFFIX = "-standby";
 
-  /** The FIFO being used to communicate with netezza. */
-  private File fifoFile;
+  private Configuration conf;
 
   /** The OutputStream we are using to write the fifo data. */
   private OutputStream exportStream;
 
+  /** All load sessions of this task, the first one loads the job table. */
+  private List<ExportSession> sessions;
+
+  /** Streams of the routing tables indexed by routing value. */
+  private Map<String, OutputStream> routedStreams;
+
+  /** Index of the routing column in text records. */
+  private int routeColumnIndex;
+
+  /** Name of the routing column for SqoopRecord based exports. */
+  private String routeColumnName;
+
+  private char inputFieldDelim;
+  private char inputEscape;
+
+  /** Configuration for connecting to the standby appliance, if any. */
+  private Configuration standbyConf;
+
+  /** Streams writing to both primary and standby appliance. */
+  private List<DualTargetOutputStream> dualStreams;
+
+  /** Validator of text records against target columns, null if disabled. */
+  private NetezzaFieldValidator validator;
+
+  /** Validator of SqoopRecords against target columns, null if disabled. */
+  private NetezzaFieldValidator recordValidator;
+
+  /** HDFS stream receiving records rejected by the validator. */
+  private OutputStream rejectStream;
+
+  private Context context;
+
+  /** Throughput and backpressure of all sessions of this task. */
+  private NetezzaTransferStats stats;
+
+  /** Session slots held on the primary and the standby appliance. */
+  private List<NetezzaSessionSlots> sessionSlots;
+
   /** Object that holds/parses a record of the user's input. */
   private SqoopRecord inputRecord;
 
   /** Delimiters to use for Netezza. */
   private DelimiterSet outputDelimiters;
 
-  private class JdbcThread extends Thread {
-    private SQLException sqlException;
-    private Connection conn;
-    private Context context;
+  /**
+   * One transport together with the external table load reading from it.
+   */
+  private class ExportSession {
+    private String table;
+    private NetezzaTransport transport;
+    private OutputStream stream;
+    private NetezzaTransferSession transfer;
+    private long opened;
+    private boolean standby;
+  }
 
-    public JdbcThread() {
-      this.conn = null;
+  /**
+   * @return Statement loading the table from the transport
+   */
+  private String getLoadStatement(String tableName, String location) {
+    char fieldDelim = (char) conf.getInt(
+        MySQLUtils.OUTPUT_FIELD_DELIM_KEY, (int) ',');
+    char escape = (char) conf.getInt(
+        MySQLUtils.OUTPUT_ESCAPED_BY_KEY, '\000');
+    boolean ctrlChars =
+      conf.getBoolean(DirectNetezzaManager.NZ_CTRLCHARS_CONF, false);
+
+    StringBuilder sb = new StringBuilder();
+    sb.append("INSERT INTO ");
+    sb.append(tableName);
+    sb.append(" SELECT * FROM EXTERNAL '");
+    sb.append(location);
+    sb.append("' USING (REMOTESOURCE 'JDBC' ");
+    sb.append("BOOLSTYLE 'TRUE_FALSE' ");
+    sb.append("CRINSTRING FALSE ");
+    sb.append("TRUNCSTRING TRUE ");
+    sb.append("DELIMITER ");
+    sb.append(Integer.toString(fieldDelim));
+    sb.append(" ENCODING 'internal' ");
+    if (escape != '\000') {
+      sb.append("ESCAPECHAR '\\' ");
     }
-
-    public SQLException getException() {
-      return sqlException;
+    sb.append("FORMAT 'text' ");
+    sb.append("INCLUDEZEROSECONDS TRUE ");
+    sb.append("NULLVALUE ? ");
+    sb.append("CTRLCHARS ");
+    sb.append(ctrlChars ? "true " : "false ");
+
+    int maxErrors = conf.getInt(DirectNetezzaManager.NZ_MAXERRORS_CONF, 1);
+    sb.append("MAXERRORS " + maxErrors + " ");
+    String logDir = conf.get(DirectNetezzaManager.NZ_LOGDIR_CONF);
+    if (logDir != null && logDir.trim().length() > 0) {
+      sb.append("LOGDIR " + logDir + " ");
     }
+    sb.append(")");
 
+    return sb.toString();
+  }
 
-    /**
-     * Create the connection instance.
-     */
-    public void initConnection() throws SQLException {
-      // Use JDBC to connect to the database.
-      DBConfiguration dbConf = new DBConfiguration(conf);
-      try {
-        conn = dbConf.getConnection();
-      } catch (ClassNotFoundException cnfe) {
-        throw new SQLException(cnfe);
-      }
-      if (null == conn) {
-        throw new SQLException("Could not connect to database");
+  /**
+   * Create the transport, and bind the JDBC connection to it.
+   *
+   * @param tableName Escaped name of the table to load
+   * @param fifoName Name of the channel unique within the task
+   * @param standby True if the session loads the standby appliance
+   */
+  private ExportSession startSession(String tableName, String fifoName,
+      boolean standby) throws IOException, InterruptedException {
+    ExportSession session = new ExportSession();
+    session.standby = standby;
+    session.table = tableName;
+
+    // Create the channel where we'll put the data.
+    NetezzaFlightRecorder.Phase phase =
+        beginPhase(NetezzaFlightRecorder.FIFO_CREATE, tableName);
+    session.transport = NetezzaTransport.create(context, fifoName);
+    phase.end();
+
+    // Start the session which connects to the database
+    // and reads from the transport.
+    session.transfer =
+        createSession(standby ? standbyConf : conf, tableName, context);
+    phase = beginPhase(NetezzaFlightRecorder.CONNECT, tableName);
+    try {
+      session.transfer.connect(false);
+    } catch (SQLException sqlE) {
+      throw new IOException(sqlE);
+    } finally {
+      phase.end();
+    }
+    this.sessions.add(session);
+
+    // Open the write side of the transport.
+    final NetezzaTransferSession transfer = session.transfer;
+    final String sql =
+        getLoadStatement(tableName, session.transport.getLocation());
+    long openStart = System.nanoTime();
+    phase = beginPhase(NetezzaFlightRecorder.FIFO_OPEN, tableName);
+    OutputStream out = session.transport.openOutput(
+        new NetezzaTransport.Peer() {
+          @Override
+          public Future<?> start() {
+            stats.sessionStarted();
+            return transfer.start(sql);
+          }
+        });
+    phase.end();
+    this.stats.addOpenNanos(System.nanoTime() - openStart);
+    if (null == out) {
+      SQLException exception = session.transfer.await();
+      if (null != exception) {
+        throw new IOException(exception);
       }
+      throw new IOException("Netezza finished without opening "
+          + session.transport.getLocation());
     }
+    session.opened = System.currentTimeMillis();
+    session.stream = this.stats.wrap(out);
+    return session;
+  }
 
-    public void run() {
-      PreparedStatement ps = null;
+  /**
+   * Create the session running a load. Tests override this to stand in
+   * for Netezza.
+   *
+   * @param sessionConf Configuration of the primary or standby appliance
+   * @param tableName Escaped name of the table to load
+   */
+  protected NetezzaTransferSession createSession(Configuration sessionConf,
+      String tableName, Context context) {
+    return new NetezzaTransferSession(sessionConf, NetezzaUtil.EXPORT,
+        tableName, context);
+  }
 
-      try {
-        char fieldDelim = (char) conf.getInt(
-            MySQLUtils.OUTPUT_FIELD_DELIM_KEY, (int) ',');
-        char escape = (char) conf.getInt(
-            MySQLUtils.OUTPUT_ESCAPED_BY_KEY, '\000');
-        boolean ctrlChars =
-          conf.getBoolean(DirectNetezzaManager.NZ_CTRLCHARS_CONF, false);
-
-        DBConfiguration dbConf = new DBConfiguration(conf);
-        StringBuilder sb = new StringBuilder();
-        sb.append("INSERT INTO ");
-        sb.append(dbConf.getInputTableName());
-        sb.append(" SELECT * FROM EXTERNAL '");
-        sb.append(NetezzaExportMapper.this.fifoFile.getAbsolutePath());
-        sb.append("' USING (REMOTESOURCE 'JDBC' ");
-        sb.append("BOOLSTYLE 'TRUE_FALSE' ");
-        sb.append("CRINSTRING FALSE ");
-        sb.append("TRUNCSTRING TRUE ");
-        sb.append("DELIMITER ");
-        sb.append(Integer.toString(fieldDelim));
-        sb.append(" ENCODING 'internal' ");
-        if (escape != '\000') {
-          sb.append("ESCAPECHAR '\\' ");
-        }
-        sb.append("FORMAT 'text' ");
-        sb.append("INCLUDEZEROSECONDS TRUE ");
-        sb.append("NULLVALUE ? ");
-        sb.append("CTRLCHARS ");
-        sb.append(ctrlChars ? "true " : "false ");
-
-        int maxErrors = conf.getInt(DirectNetezzaManager.NZ_MAXERRORS_CONF, 1);
-        sb.append("MAXERRORS " + maxErrors + " ");
-        String logDir = conf.get(DirectNetezzaManager.NZ_LOGDIR_CONF);
-        if (logDir != null && logDir.trim().length() > 0) {
-          sb.append("LOGDIR " + logDir + " ");
-        }
-        sb.append(")");
+  /**
+   * Start load of given table on the primary appliance and, if configured,
+   * on the standby appliance as well.
+   *
+   * @return Stream delivering the data to all appliances
+   */
+  private OutputStream openTarget(String tableName, String fifoName)
+      throws IOException, InterruptedException {
+    ExportSession primary = startSession(tableName, fifoName, false);
+    if (null == standbyConf) {
+      return primary.stream;
+    }
 
-        String sql = sb.toString();
-        LOG.info("Executing SQL statement: " + sql);
+    ExportSession standby =
+        startSession(tableName, "standby-" + fifoName, true);
+    DualTargetOutputStream stream = new DualTargetOutputStream(
+        primary.stream, standby.stream,
+        conf.getBoolean(DirectNetezzaManager.NZ_STANDBY_DEGRADE_CONF, false));
+    this.dualStreams.add(stream);
+    return stream;
+  }
 
-        try {
-          ps = conn.prepareStatement(sql);
-          ps.setString(1, conf.get(PROPERTY_NULL_STRING, "null"));
-          ps.executeUpdate();
-        } finally {
-          if (null != ps) {
-            ps.close();
-          }
-        }
-      } catch (SQLException sqlE) {
-        // Save this exception for the parent thread to use to fail the task.
-        this.sqlException = sqlE;
-      } finally {
-        if (null != conn) {
-          try {
-            conn.close();
-          } catch (SQLException sqlE) {
-            // Exception closing the connection does not fail the task.
-            LOG.error("Exception closing connection: " + sqlE);
-          }
-          NetezzaUtil.uploadLogsToHdfsIfSpecified(conf, context.getTaskAttemptID().toString());
-        }
+  /**
+   * Wait until all sessions of this task may be opened. Sessions of one
+   * task are admitted together, tasks holding only some of their sessions
+   * could otherwise block each other.
+   */
+  private void acquireSessionSlots(int tables)
+      throws IOException, InterruptedException {
+    this.sessionSlots = new ArrayList<NetezzaSessionSlots>();
+    NetezzaSessionSlots slots =
+        NetezzaSessionSlots.acquire(conf, tables, context);
+    if (null != slots) {
+      this.sessionSlots.add(slots);
+    }
+    if (null != standbyConf) {
+      slots = NetezzaSessionSlots.acquire(standbyConf, tables, context);
+      if (null != slots) {
+        this.sessionSlots.add(slots);
       }
     }
   }
 
-  /** Thread which executes the SQL query to import over the FIFO. */
-  private JdbcThread jdbcThread;
+  private void releaseSessionSlots() {
+    if (null == this.sessionSlots) {
+      return;
+    }
+    for (NetezzaSessionSlots slots : this.sessionSlots) {
+      try {
+        slots.close();
+      } catch (IOException ioe) {
+        // The ticket gets stale and is removed by other tasks.
+        LOG.warn("Error releasing session slots: " + ioe);
+      }
+    }
+    this.sessionSlots = null;
+  }
 
   /**
-   * Create a named FIFO, and bind the JDBC connection to the FIFO.
-   * A File object representing the FIFO is in 'fifoFile'.
+   * Start load sessions for the job table and for all routing tables.
    */
-  private void initExportProcess(Context context) throws IOException {
-    // Create the FIFO where we'll put the data.
-    File taskAttemptDir = TaskId.getLocalWorkPath(conf);
-    this.fifoFile = new File(taskAttemptDir, "netezza.txt");
-
-    NamedFifo nf = new NamedFifo(this.fifoFile);
-    nf.create();
-
-    // Start the JDBC thread which connects to the database
-    // and opens the read side of the FIFO.
-    this.jdbcThread = new JdbcThread();
-    this.jdbcThread.setDaemon(true);
-    this.jdbcThread.context = context;
-    try {
-      this.jdbcThread.initConnection();
-    } catch (SQLException sqlE) {
-      throw new IOException(sqlE);
+  private void initExportProcess() throws IOException, InterruptedException {
+    this.sessions = new ArrayList<ExportSession>();
+    this.stats = new NetezzaTransferStats("Export of "
+        + new DBConfiguration(conf).getInputTableName());
+    this.dualStreams = new ArrayList<DualTargetOutputStream>();
+
+    // Logs of this task attempt are kept apart from other tasks, logs of
+    // the standby appliance are kept apart from the primary ones
+    String logDir = conf.get(DirectNetezzaManager.NZ_LOGDIR_CONF);
+    String attempt = context.getTaskAttemptID().toString();
+    NetezzaUtil.setStatementLogDirectory(conf, logDir, attempt);
+
+    String standbyConnect =
+        conf.get(DirectNetezzaManager.NZ_STANDBY_CONNECT_CONF);
+    if (null != standbyConnect) {
+      this.standbyConf = new Configuration(conf);
+      this.standbyConf.set(DBConfiguration.URL_PROPERTY, standbyConnect);
+      NetezzaUtil.setStatementLogDirectory(standbyConf, logDir,
+          attempt + STANDBY_LOG_SUFFIX);
     }
 
+    Map<String, String> routes =
+        NetezzaUtil.parseRouteTables(conf.get(PROPERTY_ROUTE_TABLES));
+    acquireSessionSlots(1 + new HashSet<String>(routes.values()).size());
+
     // Create log directory if specified
     NetezzaUtil.createLogDirectoryIfSpecified(conf);
+    if (null != standbyConf) {
+      NetezzaUtil.createLogDirectoryIfSpecified(standbyConf);
+    }
+
+    this.inputFieldDelim = (char) conf.getInt(
+        MySQLUtils.OUTPUT_FIELD_DELIM_KEY, (int) ',');
+    this.inputEscape = (char) conf.getInt(
+        MySQLUtils.OUTPUT_ESCAPED_BY_KEY, '\000');
+
+    String limits = conf.get(PROPERTY_FIELD_LIMITS);
+    if (null != limits) {
+      String nullString = conf.get(PROPERTY_NULL_STRING, "null");
+      this.validator = new NetezzaFieldValidator(limits, inputFieldDelim,
+          inputEscape, nullString);
+      // SqoopRecords are validated as formatted with the output delimiters
+      this.recordValidator = new NetezzaFieldValidator(limits,
+          outputDelimiters.getFieldsTerminatedBy(),
+          outputDelimiters.getEscapedBy(), nullString);
+    }
+
+    DBConfiguration dbConf = new DBConfiguration(conf);
+    this.exportStream = openTarget(dbConf.getInputTableName(), "netezza.txt");
 
-    this.jdbcThread.start();
+    if (routes.isEmpty()) {
+      return;
+    }
 
-    // Open the write side of the FIFO.
-    this.exportStream = new FileOutputStream(nf.getFile());
+    this.routeColumnIndex = conf.getInt(PROPERTY_ROUTE_COLUMN_INDEX, -1);
+    this.routeColumnName =
+        conf.get(DirectNetezzaManager.NZ_ROUTE_COLUMN_CONF);
+
+    // Several routing values might share the same table, open only one
+    // session per table.
+    this.routedStreams = new HashMap<String, OutputStream>();
+    Map<String, OutputStream> tableStreams =
+        new HashMap<String, OutputStream>();
+    for (Map.Entry<String, String> route : routes.entrySet()) {
+      OutputStream stream = tableStreams.get(route.getValue());
+      if (null == stream) {
+        stream = openTarget(route.getValue(),
+            "netezza-" + tableStreams.size() + ".txt");
+        tableStreams.put(route.getValue(), stream);
+      }
+      this.routedStreams.put(route.getKey(), stream);
+    }
   }
 
   @Override
   public void run(Context context) throws IOException, InterruptedException {
+    this.context = context;
     setup(context);
-    initExportProcess(context);
     try {
+      initExportProcess();
+    } catch (IOException ioe) {
+      cancelSessions();
+      releaseSessionSlots();
+      throw ioe;
+    } catch (InterruptedException ie) {
+      cancelSessions();
+      releaseSessionSlots();
+      throw ie;
+    }
+    boolean finished = false;
+    String table = new DBConfiguration(conf).getInputTableName();
+    NetezzaFlightRecorder.Phase phase =
+        beginPhase(NetezzaFlightRecorder.FIRST_BYTE, table);
+    boolean steady = false;
+    try {
+      long readStart = System.nanoTime();
       while (context.nextKeyValue()) {
+        this.stats.addHdfsNanos(System.nanoTime() - readStart);
         map(context.getCurrentKey(), context.getCurrentValue(), context);
+        this.stats.progress(context);
+        if (!steady) {
+          phase.end();
+          phase = beginPhase(NetezzaFlightRecorder.STEADY_STATE, table);
+          steady = true;
+        }
+        readStart = System.nanoTime();
       }
       cleanup(context);
+      finished = true;
     } finally {
+      phase.end();
+      if (!finished) {
+        // Closing the FIFOs would commit the records written so far
+        cancelSessions();
+      }
+
       // Shut down the export process.
       try {
-        closeHandles();
+        closeHandles(context);
       } catch (SQLException sqlE) {
-        throw new IOException(sqlE);
+        if (finished) {
+          throw new IOException(sqlE);
+        }
+        LOG.error("Load was aborted after failure of the task: " + sqlE);
+      } finally {
+        releaseSessionSlots();
       }
     }
   }
 
-  private void closeHandles() throws InterruptedException, SQLException {
-    // Try to close the FIFO handle. An exception here does not cause task
+  private void cancelSessions() {
+    if (null == this.sessions) {
+      return;
+    }
+    for (ExportSession session : this.sessions) {
+      session.transfer.cancel();
+      closeTransport(session);
+    }
+  }
+
+  private NetezzaFlightRecorder.Phase beginPhase(String phase,
+      String table) {
+    return NetezzaFlightRecorder.begin(phase, table,
+        context.getTaskAttemptID().toString());
+  }
+
+  private void closeTransport(ExportSession session) {
+    try {
+      session.transport.close();
+    } catch (IOException ioe) {
+      LOG.warn("Error closing transport: " + ioe);
+    }
+  }
+
+  private void closeHandles(Context context)
+      throws InterruptedException, SQLException {
+    if (null == this.sessions) {
+      return;
+    }
+
+    // Try to close the FIFO handles. An exception here does not cause task
     // failure.
-    if (null != this.exportStream) {
+    for (ExportSession session : this.sessions) {
+      if (null != session.stream) {
+        try {
+          session.stream.close();
+        } catch (IOException ioe) {
+          LOG.warn("Error closing FIFO stream: " + ioe);
+        } finally {
+          session.stream = null;
+        }
+        context.getCounter(NetezzaCounter.NZ_FIFO_MILLIS)
+            .increment(System.currentTimeMillis() - session.opened);
+      }
+    }
+    this.exportStream = null;
+    context.getCounter(NetezzaCounter.NZ_FIFO_BYTES)
+        .increment(this.stats.getBytes());
+
+    if (null != this.rejectStream) {
       try {
-        this.exportStream.close();
+        this.rejectStream.close();
       } catch (IOException ioe) {
-        LOG.warn("Error closing FIFO stream: " + ioe);
+        LOG.error("Error closing stream with rejected records: " + ioe);
       } finally {
-        this.exportStream = null;
+        this.rejectStream = null;
       }
     }
 
-    // Wait for the JDBC thread to complete processing
+    // Wait for the sessions to complete processing
     // and stop.
-    this.jdbcThread.join();
+    SQLException primaryE = null;
+    SQLException standbyE = null;
+    for (ExportSession session : this.sessions) {
+      NetezzaFlightRecorder.Phase phase =
+          beginPhase(NetezzaFlightRecorder.STATEMENT, session.table);
+      SQLException sessionE = session.transfer.await();
+      phase.end();
+      if (null == session.transfer.getFuture()) {
+        // The transport never started the load
+        sessionE = new SQLException("Load from "
+            + session.transport.getLocation() + " was not started");
+      }
+      closeTransport(session);
+      if (!session.standby) {
+        this.stats.addStatementRows(session.transfer.getUpdateCount());
+      }
+      if (null != sessionE && session.standby && null == standbyE) {
+        standbyE = sessionE;
+      } else if (null != sessionE && !session.standby && null == primaryE) {
+        primaryE = sessionE;
+      }
+    }
+
+    boolean primaryFailed = null != primaryE;
+    boolean standbyFailed = null != standbyE;
+    for (DualTargetOutputStream stream : this.dualStreams) {
+      primaryFailed |= stream.isPrimaryFailed();
+      standbyFailed |= stream.isStandbyFailed();
+    }
+    this.stats.report(context);
+
+    String attempt = context.getTaskAttemptID().toString();
+    long nzRejected = NetezzaUtil.uploadLogsToHdfsIfSpecified(conf, attempt);
+    context.getCounter(NetezzaCounter.NZ_REJECTED_RECORDS)
+        .increment(nzRejected);
+    if (null != standbyConf) {
+      nzRejected = NetezzaUtil.uploadLogsToHdfsIfSpecified(standbyConf,
+          attempt + STANDBY_LOG_SUFFIX);
+      context.getCounter(NetezzaCounter.NZ_STANDBY_REJECTED_RECORDS)
+          .increment(nzRejected);
+    }
+
+    if (conf.getBoolean(DirectNetezzaManager.NZ_STANDBY_DEGRADE_CONF, false)
+        && primaryFailed != standbyFailed) {
+      // Exactly one appliance failed, the task degrades instead of failing.
+      String failed = primaryFailed ? "primary" : "standby";
+      LOG.error("Export to " + failed + " appliance failed, the data were "
+          + "loaded only to the other one: "
+          + (primaryFailed ? primaryE : standbyE));
+      context.setStatus("Degraded: export to " + failed
+          + " appliance failed");
+      return;
+    }
 
-    SQLException sqlE = this.jdbcThread.getException();
-    if (null != sqlE) {
-      throw new SQLException(sqlE);
+    if (null != primaryE) {
+      throw new SQLException(primaryE);
+    }
+    if (null != standbyE) {
+      throw new SQLException(standbyE);
     }
   }
 
@@ -257,19 +565,75 @@ public class NetezzaExportMapper<KEYIN, VALIN>
     // delimiters and other format options. If that is not the case, the
     // TODO: Make this configurable based on the job by allowing the user
     // to specify if the input is preformatted or not.
-    String outputStr = record.toString() + "\n";
-    byte [] outputBytes = outputStr.getBytes("UTF-8");
-    this.exportStream.write(outputBytes, 0, outputBytes.length);
+    // Text is already UTF-8 encoded, so it can be written out directly.
+    byte [] outputBytes = record.getBytes();
+    int length = record.getLength();
+    if (null != this.validator && !this.validator.isValid(outputBytes, length)) {
+      reject(this.validator, outputBytes, length);
+      return;
+    }
+
+    OutputStream stream = this.exportStream;
+    if (null != this.routedStreams) {
+      stream = getRoutedStream(NetezzaUtil.extractField(outputBytes,
+          length, routeColumnIndex, inputFieldDelim, inputEscape));
+    }
+    stream.write(outputBytes, 0, length);
+    stream.write('\n');
+    this.stats.record(length + 1);
   }
 
   protected void writeRecord(SqoopRecord r) throws IOException {
-    // TODO: We have a limit on the size of individual fields that can be
-    // exported to Netezza. To enforce these limits, limits, check the size of
-    // values in r.getFieldMap() here. Throw exception or warn and skip record
-    // based on preference on error.  For a faster but less accurate version
-    // of this, just check the length of outputStr.
     String outputStr = r.toString(outputDelimiters);
     byte [] outputBytes = outputStr.getBytes("UTF-8");
-    this.exportStream.write(outputBytes, 0, outputBytes.length);
+    // Validate the record without the trailing record delimiter.
+    if (null != this.recordValidator && !this.recordValidator.isValid(
+        outputBytes, outputBytes.length - 1)) {
+      reject(this.recordValidator, outputBytes, outputBytes.length - 1);
+      return;
+    }
+
+    OutputStream stream = this.exportStream;
+    if (null != this.routedStreams) {
+      Object value = r.getFieldMap().get(routeColumnName);
+      stream = getRoutedStream(null == value ? null : value.toString());
+    }
+    stream.write(outputBytes, 0, outputBytes.length);
+    this.stats.record(outputBytes.length);
+  }
+
+  /**
+   * Store record that would be rejected by Netezza into the reject
+   * directory instead of sending it to the FIFO.
+   */
+  private void reject(NetezzaFieldValidator failed, byte[] bytes, int length)
+      throws IOException {
+    if (null == this.rejectStream) {
+      Path rejectFile = new Path(
+          conf.get(DirectNetezzaManager.NZ_REJECTDIR_CONF),
+          context.getTaskAttemptID().toString() + ".rejected");
+      LOG.info("Storing rejected records into " + rejectFile);
+      this.rejectStream = rejectFile.getFileSystem(conf).create(rejectFile);
+    }
+
+    LOG.debug("Rejecting record: " + failed.getError() + " in column "
+        + failed.getErrorColumn());
+    this.rejectStream.write(bytes, 0, length);
+    this.rejectStream.write('\n');
+    context.getCounter(NetezzaCounter.VALIDATION_REJECTED_RECORDS)
+        .increment(1);
+  }
+
+  /**
+   * Return stream of the table that should receive record with given value
+   * of the routing column. Records that do not match any routing value are
+   * loaded into the job's table.
+   */
+  private OutputStream getRoutedStream(String routeValue) {
+    if (null == routeValue) {
+      return this.exportStream;
+    }
+    OutputStream stream = this.routedStreams.get(routeValue);
+    return null == stream ? this.exportStream : stream;
   }
 }
@@ -0,0 +1,112 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+
+package com.cloudera.sqoop.netezza;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.sqoop.lib.SqoopRecord;
+import org.apache.sqoop.mapreduce.AsyncSqlRecordWriter;
+import org.apache.sqoop.mapreduce.ExportOutputFormat;
+import org.apache.sqoop.mapreduce.db.DBConfiguration;
+
+import com.cloudera.sqoop.netezza.util.NetezzaConstants;
+
+/**
+ * OutputFormat for JDBC based exports into Netezza.
+ *
+ * Netezza does not support multi-row INSERT statements, so every record is
+ * added as one execution of a single-row INSERT into a JDBC batch. The number
+ * of records in one batch is driven by
+ * {@link NetezzaManager#NZ_JDBC_BATCH_SIZE_CONF}.
+ */
+public class NetezzaExportOutputFormat<K extends SqoopRecord, V>
+    extends ExportOutputFormat<K, V> {
+
+  public static final Log LOG = LogFactory.getLog(
+      NetezzaExportOutputFormat.class.getName());
+
+  @Override
+  public RecordWriter<K, V> getRecordWriter(TaskAttemptContext context)
+      throws IOException {
+    try {
+      return new NetezzaBatchRecordWriter(context);
+    } catch (Exception e) {
+      throw new IOException(e);
+    }
+  }
+
+  /**
+   * RecordWriter that sends whole batch of single-row INSERTs in one
+   * executeBatch() call.
+   */
+  public class NetezzaBatchRecordWriter extends AsyncSqlRecordWriter<K, V> {
+
+    /** Single-row INSERT statement. */
+    private final String insertStatement;
+
+    public NetezzaBatchRecordWriter(TaskAttemptContext context)
+        throws ClassNotFoundException, SQLException {
+      super(context);
+
+      DBConfiguration dbConf = new DBConfiguration(context.getConfiguration());
+      // Staging rows of parallel updates are bound in the update order
+      String [] columnNames = context.getConfiguration().getStrings(
+          NetezzaConstants.PROPERTY_UPDATE_STAGING_COLUMNS,
+          dbConf.getOutputFieldNames());
+      int columnCount = dbConf.getOutputFieldCount();
+
+      StringBuilder sb = new StringBuilder();
+      sb.append("INSERT INTO ");
+      sb.append(dbConf.getOutputTableName());
+      sb.append(" ");
+      if (null != columnNames) {
+        sb.append("(");
+        for (int i = 0; i < columnNames.length; i++) {
+          if (i > 0) {
+            sb.append(", ");
+          }
+          sb.append(columnNames[i]);
+        }
+        sb.append(") ");
+      }
+      sb.append("VALUES (");
+      for (int i = 0; i < columnCount; i++) {
+        if (i > 0) {
+          sb.append(", ");
+        }
+        sb.append("?");
+      }
+      sb.append(")");
+
+      this.insertStatement = sb.toString();
+      LOG.debug("Using batched statement: " + insertStatement);
+    }
+
+    @Override
+    protected boolean isBatchExec() {
+      return true;
+    }
+
+    @Override
+    protected PreparedStatement getPreparedStatement(
+        List<SqoopRecord> userRecords) throws SQLException {
+      Connection conn = getConnection();
+      PreparedStatement stmt = conn.prepareStatement(insertStatement);
+
+      for (SqoopRecord record : userRecords) {
+        record.write(stmt, 0);
+        stmt.addBatch();
+      }
+
+      return stmt;
+    }
+  }
+}
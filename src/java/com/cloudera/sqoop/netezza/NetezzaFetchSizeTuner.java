@@ -0,0 +1,72 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+
+package com.cloudera.sqoop.netezza;
+
+/**
+ * Chooses JDBC fetch size for imports based on the row width and on the
+ * time spent waiting for the database.
+ *
+ * The fetch size is limited so that one fetched block of rows fits into
+ * the configured buffer. Whenever reading of the last block spent
+ * significant part of the time waiting on the network, the fetch size is
+ * doubled to save round-trips.
+ */
+public class NetezzaFetchSizeTuner {
+
+  // Bounds of the fetch size
+  public static final int MIN_FETCH_SIZE = 100;
+  public static final int MAX_FETCH_SIZE = 100000;
+
+  // Fetch size is increased when waiting took more than 1/WAIT_RATIO of time
+  private static final int WAIT_RATIO = 4;
+
+  private final long bufferBytes;
+  private int maxFetchSize;
+  private int fetchSize;
+
+  /**
+   * @param initialFetchSize Fetch size of the first block
+   * @param bufferBytes Maximal size of one fetched block in bytes
+   */
+  public NetezzaFetchSizeTuner(int initialFetchSize, long bufferBytes) {
+    this.bufferBytes = bufferBytes;
+    this.maxFetchSize = MAX_FETCH_SIZE;
+    this.fetchSize = clamp(initialFetchSize);
+  }
+
+  public int getFetchSize() {
+    return fetchSize;
+  }
+
+  /**
+   * Limit fetch size by estimated width of one row.
+   *
+   * @param rowBytes Estimated size of one row in bytes
+   * @return New fetch size
+   */
+  public int setRowWidth(long rowBytes) {
+    long rows = bufferBytes / Math.max(1, rowBytes);
+    maxFetchSize = (int) Math.max(MIN_FETCH_SIZE,
+      Math.min(MAX_FETCH_SIZE, rows));
+    fetchSize = clamp(fetchSize);
+    return fetchSize;
+  }
+
+  /**
+   * Adjust fetch size after reading one block of rows.
+   *
+   * @param waitNanos Time spent waiting for the database
+   * @param totalNanos Total time needed to read and hand over the block
+   * @return New fetch size
+   */
+  public int update(long waitNanos, long totalNanos) {
+    if (waitNanos * WAIT_RATIO > totalNanos) {
+      fetchSize = clamp(fetchSize * 2);
+    }
+    return fetchSize;
+  }
+
+  private int clamp(int size) {
+    return Math.max(MIN_FETCH_SIZE, Math.min(maxFetchSize, size));
+  }
+}
@@ -0,0 +1,264 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+
+package com.cloudera.sqoop.netezza;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Validates delimited text records against limits of the target table
+ * columns before they are sent to Netezza.
+ *
+ * Only problems that would certainly make Netezza reject the row are
+ * detected: wrong number of fields, non numeric values in exact numeric
+ * columns and values out of range of the column. Strings are not checked
+ * as the load truncates them (TRUNCSTRING TRUE). Validation works directly
+ * on the encoded bytes and does not allocate any objects.
+ */
+public class NetezzaFieldValidator {
+
+  public static final String ERROR_FIELD_COUNT = "unexpected number of fields";
+  public static final String ERROR_NOT_A_NUMBER = "value is not a number";
+  public static final String ERROR_OUT_OF_RANGE = "value is out of range";
+
+  // Column kinds used in the serialized description
+  private static final char KIND_OTHER = 'S';
+  private static final char KIND_INTEGER = 'I';
+  private static final char KIND_NUMERIC = 'N';
+
+  // Decimal digits of the biggest BIGINT values
+  private static final byte[] BIGINT_MAX =
+    "9223372036854775807".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] BIGINT_MIN =
+    "9223372036854775808".getBytes(StandardCharsets.US_ASCII);
+
+  private final char[] kinds;
+  private final long[] maxValues;
+  private final int[] integerDigits;
+
+  private final char fieldDelim;
+  private final char escape;
+  private final byte[] nullBytes;
+
+  private String error;
+  private int errorColumn;
+
+  /**
+   * Create serialized description of column limits that is passed from the
+   * job to the mappers.
+   *
+   * @param columns Exported columns in the order of the input fields, user
+   *        given names might differ from the catalog in case
+   * @param columnInfo Type, precision and scale of each column
+   * @return Comma separated description of each column
+   */
+  public static String describeColumns(String[] columns,
+      Map<String, List<Integer>> columnInfo) {
+    Map<String, List<Integer>> ignoringCase =
+        new TreeMap<String, List<Integer>>(String.CASE_INSENSITIVE_ORDER);
+    ignoringCase.putAll(columnInfo);
+
+    StringBuilder sb = new StringBuilder();
+    for (String column : columns) {
+      if (sb.length() > 0) {
+        sb.append(',');
+      }
+
+      List<Integer> info = columnInfo.get(column);
+      if (null == info) {
+        info = ignoringCase.get(column);
+      }
+      int sqlType = null == info ? Types.OTHER : info.get(0);
+      switch (sqlType) {
+        case Types.TINYINT:
+          sb.append(KIND_INTEGER).append(Byte.MAX_VALUE);
+          break;
+        case Types.SMALLINT:
+          sb.append(KIND_INTEGER).append(Short.MAX_VALUE);
+          break;
+        case Types.INTEGER:
+          sb.append(KIND_INTEGER).append(Integer.MAX_VALUE);
+          break;
+        case Types.BIGINT:
+          sb.append(KIND_INTEGER).append(Long.MAX_VALUE);
+          break;
+        case Types.NUMERIC:
+        case Types.DECIMAL:
+          sb.append(KIND_NUMERIC).append(info.get(1) - info.get(2));
+          break;
+        default:
+          sb.append(KIND_OTHER);
+      }
+    }
+
+    return sb.toString();
+  }
+
+  /**
+   * @param description Result of {@link #describeColumns}
+   * @param fieldDelim Field delimiter of the records
+   * @param escape Escape character or '\000' if escaping is not used
+   * @param nullString Text that represents NULL value
+   */
+  public NetezzaFieldValidator(String description, char fieldDelim,
+                               char escape, String nullString) {
+    String[] columns = description.split(",");
+    this.kinds = new char[columns.length];
+    this.maxValues = new long[columns.length];
+    this.integerDigits = new int[columns.length];
+    for (int i = 0; i < columns.length; i++) {
+      kinds[i] = columns[i].charAt(0);
+      if (kinds[i] == KIND_INTEGER) {
+        maxValues[i] = Long.parseLong(columns[i].substring(1));
+      } else if (kinds[i] == KIND_NUMERIC) {
+        integerDigits[i] = Integer.parseInt(columns[i].substring(1));
+      }
+    }
+
+    this.fieldDelim = fieldDelim;
+    this.escape = escape;
+    this.nullBytes = nullString.getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * @return Reason why the last validated record is invalid
+   */
+  public String getError() {
+    return error;
+  }
+
+  /**
+   * @return Zero based index of the column that made the last record invalid
+   */
+  public int getErrorColumn() {
+    return errorColumn;
+  }
+
+  /**
+   * Validate one record without the record delimiter.
+   *
+   * @param bytes UTF-8 encoded record
+   * @param length Number of valid bytes in the array
+   * @return True if the record can be loaded
+   */
+  public boolean isValid(byte[] bytes, int length) {
+    int column = 0;
+    int start = 0;
+    for (int i = 0; i < length; i++) {
+      if (escape != '\000' && bytes[i] == escape) {
+        i++;
+      } else if (bytes[i] == fieldDelim) {
+        if (!isValidField(column, bytes, start, i)) {
+          return false;
+        }
+        column++;
+        start = i + 1;
+      }
+    }
+
+    if (!isValidField(column, bytes, start, length)) {
+      return false;
+    }
+    if (column != kinds.length - 1) {
+      return fail(ERROR_FIELD_COUNT, column);
+    }
+    return true;
+  }
+
+  private boolean isValidField(int column, byte[] bytes, int start, int end) {
+    if (column >= kinds.length) {
+      return fail(ERROR_FIELD_COUNT, column);
+    }
+    if (kinds[column] == KIND_OTHER || start == end
+        || isNull(bytes, start, end)) {
+      return true;
+    }
+
+    // Optional sign followed by digits
+    boolean negative = bytes[start] == '-';
+    int pos = (negative || bytes[start] == '+') ? start + 1 : start;
+    while (pos < end - 1 && bytes[pos] == '0') {
+      pos++;
+    }
+    int digitsStart = pos;
+    while (pos < end && bytes[pos] >= '0' && bytes[pos] <= '9') {
+      pos++;
+    }
+    int digits = pos - digitsStart;
+
+    if (kinds[column] == KIND_INTEGER) {
+      if (digits == 0 || pos != end) {
+        return fail(ERROR_NOT_A_NUMBER, column);
+      }
+      if (!isInRange(bytes, digitsStart, digits, negative,
+          maxValues[column])) {
+        return fail(ERROR_OUT_OF_RANGE, column);
+      }
+      return true;
+    }
+
+    // Exact numeric with optional fractional part
+    int fractionDigits = 0;
+    if (pos < end && bytes[pos] == '.') {
+      int fractionStart = ++pos;
+      while (pos < end && bytes[pos] >= '0' && bytes[pos] <= '9') {
+        pos++;
+      }
+      fractionDigits = pos - fractionStart;
+    }
+    if (pos != end || digits + fractionDigits == 0) {
+      return fail(ERROR_NOT_A_NUMBER, column);
+    }
+    if (digits > integerDigits[column]
+        && !(digits == 1 && bytes[digitsStart] == '0')) {
+      return fail(ERROR_OUT_OF_RANGE, column);
+    }
+    return true;
+  }
+
+  private static boolean isInRange(byte[] bytes, int start, int digits,
+                                   boolean negative, long max) {
+    if (max == Long.MAX_VALUE) {
+      if (digits != BIGINT_MAX.length) {
+        return digits < BIGINT_MAX.length;
+      }
+      byte[] limit = negative ? BIGINT_MIN : BIGINT_MAX;
+      for (int i = 0; i < digits; i++) {
+        if (bytes[start + i] != limit[i]) {
+          return bytes[start + i] < limit[i];
+        }
+      }
+      return true;
+    }
+
+    if (digits > 18) {
+      return false;
+    }
+    long value = 0;
+    for (int i = 0; i < digits; i++) {
+      value = value * 10 + (bytes[start + i] - '0');
+    }
+    return negative ? value <= max + 1 : value <= max;
+  }
+
+  private boolean isNull(byte[] bytes, int start, int end) {
+    if (end - start != nullBytes.length) {
+      return false;
+    }
+    for (int i = 0; i < nullBytes.length; i++) {
+      if (bytes[start + i] != nullBytes[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean fail(String reason, int column) {
+    this.error = reason;
+    this.errorColumn = column;
+    return false;
+  }
+}
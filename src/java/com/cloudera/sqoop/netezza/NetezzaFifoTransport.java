@@ -0,0 +1,82 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+
+package com.cloudera.sqoop.netezza;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.sqoop.io.NamedFifo;
+import org.apache.sqoop.util.TaskId;
+
+import com.cloudera.sqoop.netezza.util.NetezzaPipeSizer;
+
+/**
+ * Transport streaming the data through a named FIFO in the task's working
+ * directory. Both sides run at the same time, the session is watched while
+ * the FIFO is being opened.
+ */
+public class NetezzaFifoTransport extends NetezzaTransport {
+
+  private File fifoFile;
+  private NetezzaPeerWatchdog watchdog;
+
+  @Override
+  public void initialize(TaskAttemptContext taskContext, String channelName)
+      throws IOException {
+    super.initialize(taskContext, channelName);
+    File taskAttemptDir = TaskId.getLocalWorkPath(getConf());
+    this.fifoFile = new File(taskAttemptDir, channelName);
+    new NamedFifo(this.fifoFile).create();
+  }
+
+  @Override
+  public String getLocation() {
+    return fifoFile.getAbsolutePath();
+  }
+
+  private void startPeer(Peer peer) {
+    this.watchdog = new NetezzaPeerWatchdog(peer.start(), getContext(),
+        getConf());
+    this.watchdog.start();
+  }
+
+  private void resize() {
+    if (NetezzaPipeSizer.resize(getConf(), fifoFile) > 0) {
+      getContext().getCounter(NetezzaCounter.NZ_FIFO_RESIZED).increment(1);
+    }
+  }
+
+  @Override
+  public InputStream openInput(Peer peer)
+      throws IOException, InterruptedException {
+    startPeer(peer);
+    FileInputStream in = watchdog.openInput(fifoFile);
+    if (null != in) {
+      resize();
+    }
+    return in;
+  }
+
+  @Override
+  public OutputStream openOutput(Peer peer)
+      throws IOException, InterruptedException {
+    startPeer(peer);
+    FileOutputStream out = watchdog.openOutput(fifoFile);
+    if (null != out) {
+      resize();
+    }
+    return out;
+  }
+
+  @Override
+  public void close() {
+    if (null != watchdog) {
+      watchdog.close();
+    }
+  }
+}
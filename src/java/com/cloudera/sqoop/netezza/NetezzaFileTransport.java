@@ -0,0 +1,103 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+
+package com.cloudera.sqoop.netezza;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.sqoop.util.TaskId;
+
+/**
+ * Transport staging all data in a regular file in the task's working
+ * directory. The sides run one after the other: an unload completes before
+ * the task reads the file, a load starts once the task closed the file.
+ */
+public class NetezzaFileTransport extends NetezzaTransport {
+
+  public static final Log LOG = LogFactory.getLog(
+      NetezzaFileTransport.class.getName());
+
+  private File dataFile;
+  private NetezzaPeerWatchdog watchdog;
+
+  @Override
+  public void initialize(TaskAttemptContext taskContext, String channelName)
+      throws IOException {
+    super.initialize(taskContext, channelName);
+    File taskAttemptDir = TaskId.getLocalWorkPath(getConf());
+    this.dataFile = new File(taskAttemptDir, channelName);
+  }
+
+  @Override
+  public String getLocation() {
+    return dataFile.getAbsolutePath();
+  }
+
+  private Future<?> startPeer(Peer peer) {
+    Future<?> future = peer.start();
+    this.watchdog = new NetezzaPeerWatchdog(future, getContext(), getConf());
+    this.watchdog.start();
+    return future;
+  }
+
+  @Override
+  public InputStream openInput(Peer peer)
+      throws IOException, InterruptedException {
+    try {
+      startPeer(peer).get();
+    } catch (ExecutionException e) {
+      return null;
+    } catch (CancellationException e) {
+      return null;
+    }
+    if (!dataFile.exists()) {
+      LOG.warn("Netezza finished without creating " + dataFile);
+      return new ByteArrayInputStream(new byte[0]);
+    }
+    return new FileInputStream(dataFile);
+  }
+
+  @Override
+  public OutputStream openOutput(final Peer peer) throws IOException {
+    return new FilterOutputStream(new FileOutputStream(dataFile)) {
+      private boolean closed;
+
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+      }
+
+      @Override
+      public void close() throws IOException {
+        if (closed) {
+          return;
+        }
+        closed = true;
+        super.close();
+        startPeer(peer);
+      }
+    };
+  }
+
+  @Override
+  public void close() {
+    if (null != watchdog) {
+      watchdog.close();
+    }
+    if (dataFile.exists() && !dataFile.delete()) {
+      LOG.warn("Can't delete " + dataFile);
+    }
+  }
+}
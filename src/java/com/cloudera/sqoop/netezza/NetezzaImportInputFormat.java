@@ -19,6 +19,8 @@ import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 import org.apache.sqoop.config.ConfigurationHelper;
 
+import static com.cloudera.sqoop.netezza.util.NetezzaConstants.*;
+
 /**
  * InputFormat to facilitate direct-mode import from Netezza.
  */
@@ -75,6 +77,16 @@ public class NetezzaImportInputFormat
     // a list of values 0..k-1.
 
     int numMappers = ConfigurationHelper.getJobNumMaps(context);
+
+    // Multi-table import reads every table in the same number of slice
+    // groups, split i covers group i % slices of table i / slices.
+    int tables = context.getConfiguration().getInt(
+        PROPERTY_BATCH_TABLE_COUNT, 0);
+    if (tables > 0) {
+      numMappers = tables * context.getConfiguration().getInt(
+          PROPERTY_BATCH_SLICES, numMappers);
+    }
+
     List<InputSplit> splits = new ArrayList<InputSplit>();
     for (int i = 0; i < numMappers; i++) {
       splits.add(new IntSplit(i));
@@ -18,6 +18,8 @@ import org.apache.sqoop.manager.ConnManager;
 import org.apache.sqoop.manager.MySQLUtils;
 import org.apache.sqoop.manager.ImportJobContext;
 
+import com.cloudera.sqoop.netezza.util.NetezzaUtil;
+
 /**
  * Class that runs an import job using netezza remote external tables.
  */
@@ -26,11 +28,41 @@ public class NetezzaImportJob extends ImportJobBase {
   public static final Log LOG =
       LogFactory.getLog(NetezzaImportJob.class.getName());
 
+  /**
+   * Table that is read instead of the imported table or query.
+   */
+  private final String sourceTableName;
+
+  /**
+   * Number of map tasks run in the client JVM, 0 to submit the job.
+   */
+  private int localThreads;
+
   public NetezzaImportJob(ImportJobContext context)
       throws ClassNotFoundException {
+    this(context, null);
+  }
+
+  /**
+   * @param context Import context
+   * @param sourceTableName Table holding materialized query or view that
+   *        should be read instead, or null
+   */
+  public NetezzaImportJob(ImportJobContext context, String sourceTableName)
+      throws ClassNotFoundException {
     super(context.getOptions(), NetezzaImportMapper.class,
         NetezzaImportInputFormat.class, RawKeyTextOutputFormat.class,
         context);
+    this.sourceTableName = sourceTableName;
+  }
+
+  /**
+   * Run the job inside of the client JVM instead of submitting it.
+   *
+   * @param threads Number of concurrently running map tasks
+   */
+  public void setLocalThreads(int threads) {
+    this.localThreads = threads;
   }
 
   /**
@@ -40,6 +72,10 @@ public class NetezzaImportJob extends ImportJobBase {
       String tableClassName, String splitByCol)
       throws ClassNotFoundException, IOException {
 
+    if (null != sourceTableName) {
+      tableName = sourceTableName;
+    }
+
     if (null == tableName) {
       LOG.error("No table name configured. "
           + "Netezza direct mode requires a table-based import.");
@@ -91,7 +127,9 @@ public class NetezzaImportJob extends ImportJobBase {
 
     // Netezza requires that the escape character be set to '\\'. If this is
     // not the case, then the JDBC connection will hang if it tries to import
-    // an un-escaped value. So if it's not set, or incorrectly set, we set it
+    // an un-escaped value. NetezzaManager keeps the default of no escape
+    // only for tables without string columns, whose values never contain
+    // delimiters or the escape character and so never need escaping. So if it's not set, or incorrectly set, we set it
     // here. Unfortunately, this will not change the generated code for the
     // user, so their parse method will be incorrect (this is too late in the
     // flow).  TODO: We should really add some sort of
@@ -99,7 +137,10 @@ public class NetezzaImportJob extends ImportJobBase {
     // SqoopTool.init(); after the SqoopTool.validateOptions() method, but
     // before the rest of SqoopTool.run() takes off, so that the ConnManager
     // has a chance to adjust the configuration at the start of the job.
-    if (escape == '\000') {
+    if (escape == '\000' && mgr instanceof DirectNetezzaManager
+        && ((DirectNetezzaManager) mgr).isDefaultEscapeKept()) {
+      LOG.debug("Importing text without escape character");
+    } else if (escape == '\000') {
       LOG.warn("Netezza requires the '\\' escape character. Enabling "
           + "escaped-by. Note that the generated parse() method will not "
           + "be able to detect this condition. You should regenerate any "
@@ -125,6 +166,10 @@ public class NetezzaImportJob extends ImportJobBase {
     conf.setInt(MySQLUtils.OUTPUT_FIELD_DELIM_KEY, field);
     conf.setInt(MySQLUtils.OUTPUT_ESCAPED_BY_KEY, escape);
 
+    if (localThreads > 0) {
+      NetezzaUtil.configureLocalJobRunner(conf, localThreads);
+    }
+
     LOG.debug("Using InputFormat: " + inputFormatClass);
     job.setInputFormatClass(getInputFormatClass());
   }
@@ -2,29 +2,29 @@
 
 package com.cloudera.sqoop.netezza;
 
+import com.cloudera.sqoop.netezza.util.NetezzaFlightRecorder;
 import com.cloudera.sqoop.netezza.util.NetezzaUtil;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.concurrent.Future;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.TaskCounter;
+import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
 import org.apache.hadoop.util.StringUtils;
-import org.apache.sqoop.io.NamedFifo;
 import org.apache.sqoop.manager.MySQLUtils;
 import org.apache.sqoop.mapreduce.db.DBConfiguration;
 import org.apache.sqoop.config.ConfigurationHelper;
-import org.apache.sqoop.util.TaskId;
 
 import static com.cloudera.sqoop.netezza.util.NetezzaConstants.*;
 
@@ -39,184 +39,252 @@ public class NetezzaImportMapper
 
   private Configuration conf;
 
-  /** The FIFO being used to communicate with netezza. */
-  private File fifoFile;
+  /** The channel being used to communicate with netezza. */
+  private NetezzaTransport transport;
 
   /** The Reader we are using to read the fifo data. */
   private BufferedReader importReader;
 
-  private class JdbcThread extends Thread {
-    private SQLException sqlException;
-    private Connection conn;
-    private int sliceId;
-    private Context context;
+  /** Stream reading the fifo. */
+  private InputStream fifoStream;
 
-    public JdbcThread(int slice) {
-      this.conn = null;
-      this.sliceId = slice;
-    }
+  /** Throughput and backpressure of the transfer. */
+  private NetezzaTransferStats stats;
 
-    public SQLException getException() {
-      return sqlException;
-    }
+  /** Time the fifo was opened at. */
+  private long fifoOpened;
 
-    /**
-     * Create the connection instance.
-     */
-    public void initConnection() throws SQLException {
-      // Use JDBC to connect to the database.
-      DBConfiguration dbConf = new DBConfiguration(conf);
-      try {
-        conn = dbConf.getConnection();
-      } catch (ClassNotFoundException cnfe) {
-        throw new SQLException(cnfe);
-      }
-      if (null == conn) {
-        throw new SQLException("Could not connect to database");
-      }
+  /** Local staging of the fifo data, null if disabled. */
+  private NetezzaStagingStream staging;
 
-      LOG.debug("Opened database connection");
-    }
+  /** Escaped name of the table read by this task. */
+  private String sourceTable;
 
-    public void run() {
-      PreparedStatement ps = null;
-      LOG.debug("Starting JDBC comm thread.");
+  /** Columns read from the table, null for all of them. */
+  private String [] sourceFields;
 
-      try {
-        int numMappers = ConfigurationHelper.getConfNumMaps(conf);
-        DBConfiguration dbConf = new DBConfiguration(conf);
-        StringBuilder sb = new StringBuilder();
-
-        char fieldDelim = (char) conf.getInt(
-            MySQLUtils.OUTPUT_FIELD_DELIM_KEY, (int) ',');
-        char escape = (char) conf.getInt(
-            MySQLUtils.OUTPUT_ESCAPED_BY_KEY, '\000');
-        boolean ctrlChars =
-          conf.getBoolean(DirectNetezzaManager.NZ_CTRLCHARS_CONF, false);
-
-        sb.append("CREATE EXTERNAL TABLE '");
-        sb.append(NetezzaImportMapper.this.fifoFile.getAbsolutePath());
-        sb.append("' USING (REMOTESOURCE 'JDBC' ");
-        sb.append("BOOLSTYLE 'T_F' ");
-        sb.append("CRINSTRING FALSE ");
-        sb.append("DELIMITER ");
-        sb.append(Integer.toString(fieldDelim)); // Specified here in base 10.
-        sb.append(" ENCODING 'internal' ");
-        if (escape != '\000') {
-          sb.append("ESCAPECHAR '\\' ");
-        }
-        sb.append("FORMAT 'text' ");
-        sb.append("INCLUDEZEROSECONDS TRUE ");
-        sb.append("NULLVALUE ? ");
-        sb.append("CTRLCHARS ");
-        sb.append(ctrlChars ? "true " : "false ");
-
-        int maxErrors = conf.getInt(DirectNetezzaManager.NZ_MAXERRORS_CONF, 1);
-        sb.append("MAXERRORS " + maxErrors + " ");
-        String logDir = conf.get(DirectNetezzaManager.NZ_LOGDIR_CONF);
-        if (logDir != null && logDir.trim().length() > 0) {
-          sb.append("LOGDIR " + logDir + " ");
-        }
+  /** Number of slice groups the table is split into. */
+  private int sliceCount;
 
-        sb.append(") AS SELECT ");
-        String [] fields = dbConf.getInputFieldNames();
-        if (null == fields || fields.length == 0) {
-          sb.append("* ");
-        } else {
-          boolean first = true;
-          for (String f : fields) {
-            if (!first) {
-              sb.append(", ");
-            }
-            sb.append(f);
-            first = false;
-          }
-        }
-        sb.append(" FROM ");
-        String schema = conf.get(DirectNetezzaManager.NETEZZA_SCHEMA_OPT);
-        String tableName = dbConf.getInputTableName();
-        if (schema != null) {
-          tableName = schema + "." + tableName;
-        }
-        sb.append(tableName);
-        sb.append(" WHERE MOD(DATASLICEID, " + numMappers);
-        sb.append(") = " + sliceId);
-
-        // If the user has specified a subset of rows to import,
-        // or an incremental import, ensure that the appropriate conditions
-        // are added here.
-        String userWhereClause = dbConf.getInputConditions();
-        if (null != userWhereClause) {
-          sb.append(" AND ( ");
-          sb.append(userWhereClause);
-          sb.append(" ) ");
-        }
+  /** Outputs of a multi-table import, null for a single table. */
+  private MultipleOutputs<String, Object> tableOutputs;
 
-        String sql = sb.toString();
-        LOG.info("Executing SQL statement: " + sql);
-
-        try {
-          ps = conn.prepareStatement(sql);
-          ps.setString(1, conf.get(PROPERTY_NULL_STRING, "null"));
-          ps.execute();
-        } finally {
-          if (null != ps) {
-            ps.close();
-          }
-        }
-      } catch (SQLException sqlE) {
-        // Save this exception for the parent thread to use to fail the task.
-        LOG.error("Saving SQL exception from JDBC thread: "
-            + StringUtils.stringifyException(sqlE));
-        this.sqlException = sqlE;
-      } finally {
-        if (null != conn) {
-          try {
-            conn.close();
-          } catch (SQLException sqlE) {
-            // Exception closing the connection does not fail the task.
-            LOG.error("Exception closing connection: " + sqlE);
-          }
+  /** Base output path of the table read by a multi-table import. */
+  private String tableOutputPath;
+
+  /** LOGDIR given by the user, every slice logs into a subdirectory. */
+  private String logDir;
+
+  /** Name of the log subdirectory of the current slice. */
+  private String logName;
+
+  /**
+   * @return Statement unloading given slice group into the transport
+   */
+  private String getUnloadStatement(int sliceId) {
+    StringBuilder sb = new StringBuilder();
+
+    char fieldDelim = (char) conf.getInt(
+        MySQLUtils.OUTPUT_FIELD_DELIM_KEY, (int) ',');
+    char escape = (char) conf.getInt(
+        MySQLUtils.OUTPUT_ESCAPED_BY_KEY, '\000');
+    boolean ctrlChars =
+      conf.getBoolean(DirectNetezzaManager.NZ_CTRLCHARS_CONF, false);
+
+    sb.append("CREATE EXTERNAL TABLE '");
+    sb.append(transport.getLocation());
+    sb.append("' USING (REMOTESOURCE 'JDBC' ");
+    sb.append("BOOLSTYLE 'T_F' ");
+    sb.append("CRINSTRING FALSE ");
+    sb.append("DELIMITER ");
+    sb.append(Integer.toString(fieldDelim)); // Specified here in base 10.
+    sb.append(" ENCODING 'internal' ");
+    if (escape != '\000') {
+      sb.append("ESCAPECHAR '\\' ");
+    }
+    sb.append("FORMAT 'text' ");
+    sb.append("INCLUDEZEROSECONDS TRUE ");
+    sb.append("NULLVALUE ? ");
+    sb.append("CTRLCHARS ");
+    sb.append(ctrlChars ? "true " : "false ");
+
+    int maxErrors = conf.getInt(DirectNetezzaManager.NZ_MAXERRORS_CONF, 1);
+    sb.append("MAXERRORS " + maxErrors + " ");
+    String logDir = conf.get(DirectNetezzaManager.NZ_LOGDIR_CONF);
+    if (logDir != null && logDir.trim().length() > 0) {
+      sb.append("LOGDIR " + logDir + " ");
+    }
+
+    sb.append(") AS SELECT ");
+    String [] fields = sourceFields;
+    if (null == fields || fields.length == 0) {
+      sb.append("* ");
+    } else {
+      boolean first = true;
+      for (String f : fields) {
+        if (!first) {
+          sb.append(", ");
         }
-        NetezzaUtil.uploadLogsToHdfsIfSpecified(conf, context.getTaskAttemptID().toString());
+        sb.append(f);
+        first = false;
       }
     }
+    sb.append(" FROM ");
+    String schema = conf.get(DirectNetezzaManager.NETEZZA_SCHEMA_OPT);
+    String tableName = sourceTable;
+    if (schema != null) {
+      tableName = schema + "." + tableName;
+    }
+    sb.append(tableName);
+    sb.append(" WHERE MOD(DATASLICEID, " + sliceCount);
+    sb.append(") = " + sliceId);
+
+    // If the user has specified a subset of rows to import,
+    // or an incremental import, ensure that the appropriate conditions
+    // are added here.
+    String userWhereClause =
+        new DBConfiguration(conf).getInputConditions();
+    if (null != userWhereClause) {
+      sb.append(" AND ( ");
+      sb.append(userWhereClause);
+      sb.append(" ) ");
+    }
+
+    return sb.toString();
   }
 
-  /** Thread which executes the SQL query to import over the FIFO. */
-  private JdbcThread jdbcThread;
+  /** Session which executes the SQL query to import over the FIFO. */
+  private NetezzaTransferSession session;
 
   /**
-   * Create a named FIFO, and bind the JDBC connection to the FIFO.
-   * A File object representing the FIFO is in 'fifoFile'.
+   * Create the transport, and bind the JDBC connection to it.
    */
-  private void initImportProcess(int slice, Context context) throws IOException {
-    // Create the FIFO where we'll put the data.
-    File taskAttemptDir = TaskId.getLocalWorkPath(conf);
-    this.fifoFile = new File(taskAttemptDir, "netezza-" + slice + ".txt");
-
-    NamedFifo nf = new NamedFifo(this.fifoFile);
-    nf.create();
-
-    // Start the JDBC thread which connects to the database
-    // and opens the read side of the FIFO.
-    this.jdbcThread = new JdbcThread(slice);
-    this.jdbcThread.setDaemon(true);
-    this.jdbcThread.context = context;
+  private void initImportProcess(int slice, Context context)
+      throws IOException, InterruptedException {
+    // Create the channel where we'll put the data.
+    NetezzaFlightRecorder.Phase phase =
+        beginPhase(NetezzaFlightRecorder.FIFO_CREATE, context);
+    this.transport =
+        NetezzaTransport.create(context, "netezza-" + slice + ".txt");
+    phase.end();
+
+    // Start the session which connects to the database
+    // and writes into the transport.
+    this.session = createSession(sourceTable, context);
+    phase = beginPhase(NetezzaFlightRecorder.CONNECT, context);
     try {
-      this.jdbcThread.initConnection();
+      this.session.connect(true);
     } catch (SQLException sqlE) {
       throw new IOException(sqlE);
+    } finally {
+      phase.end();
     }
 
     // Create log directory if specified
     NetezzaUtil.createLogDirectoryIfSpecified(conf);
 
-    this.jdbcThread.start();
+    // Open the read side of the transport.
+    final String sql = getUnloadStatement(slice);
+    this.stats =
+        new NetezzaTransferStats("Slice " + slice + " of " + sourceTable);
+    long openStart = System.nanoTime();
+    phase = beginPhase(NetezzaFlightRecorder.FIFO_OPEN, context);
+    InputStream in = this.transport.openInput(new NetezzaTransport.Peer() {
+      @Override
+      public Future<?> start() {
+        stats.sessionStarted();
+        return session.start(sql);
+      }
+    });
+    phase.end();
+    this.stats.addOpenNanos(System.nanoTime() - openStart);
+    if (null == in) {
+      closeTransport();
+      SQLException exception = this.session.await();
+      uploadLogs(context);
+      if (null != exception) {
+        throw new IOException(exception);
+      }
+      throw new IOException("Netezza finished without opening "
+          + transport.getLocation());
+    }
+    this.fifoStream = this.stats.wrap(in);
+    this.fifoOpened = System.currentTimeMillis();
+
+    InputStream source = this.fifoStream;
+    String stagingDir = conf.get(DirectNetezzaManager.NZ_STAGING_DIR_CONF);
+    if (null != stagingDir) {
+      // Drain the fifo into local files, so that the session finishes
+      // as soon as the data has crossed the network
+      this.staging = new NetezzaStagingStream(this.fifoStream,
+          new File(stagingDir, context.getTaskAttemptID() + "-" + slice),
+          conf.getLong(DirectNetezzaManager.NZ_STAGING_CHUNK_BYTES_CONF,
+              DirectNetezzaManager.DEFAULT_STAGING_CHUNK_BYTES),
+          conf.getLong(DirectNetezzaManager.NZ_STAGING_MAX_BYTES_CONF, 0));
+      try {
+        this.staging.start();
+      } catch (IOException ioe) {
+        this.session.cancel();
+        this.fifoStream.close();
+        this.session.await();
+        closeTransport();
+        throw ioe;
+      }
+      source = this.staging;
+    }
+    this.importReader = new BufferedReader(new InputStreamReader(source));
+  }
+
+  /**
+   * Create the session running the unload. Tests override this to stand in
+   * for Netezza.
+   *
+   * @param table Table read by the session
+   */
+  protected NetezzaTransferSession createSession(String table,
+      Context context) {
+    return new NetezzaTransferSession(conf, NetezzaUtil.IMPORT, table,
+        context);
+  }
 
-    // Open the read side of the FIFO.
-    this.importReader = new BufferedReader(new InputStreamReader(
-        new FileInputStream(nf.getFile())));
+  /**
+   * Choose the table and the slice group read by this task.
+   *
+   * @param split Value of the input split
+   */
+  private void selectSource(int split, Context context) {
+    DBConfiguration dbConf = new DBConfiguration(conf);
+    int tables = conf.getInt(PROPERTY_BATCH_TABLE_COUNT, 0);
+    if (tables == 0) {
+      this.sourceTable = dbConf.getInputTableName();
+      this.sourceFields = dbConf.getInputFieldNames();
+      this.sliceCount = ConfigurationHelper.getConfNumMaps(conf);
+      return;
+    }
+
+    // Multi-table import reads all columns of one of the tables
+    this.sliceCount = conf.getInt(PROPERTY_BATCH_SLICES, 1);
+    String prefix = PROPERTY_BATCH_TABLE + "." + (split / sliceCount);
+    this.sourceTable = conf.get(prefix + ".sql");
+    this.sourceFields = null;
+    this.tableOutputPath = conf.get(prefix + ".name") + "/part";
+    this.tableOutputs = new MultipleOutputs<String, Object>(context);
+    LOG.info("Importing slice group " + (split % sliceCount) + " of table "
+        + sourceTable);
+  }
+
+  @Override
+  protected void setup(Context context) {
+    this.logDir =
+        context.getConfiguration().get(DirectNetezzaManager.NZ_LOGDIR_CONF);
+  }
+
+  @Override
+  protected void cleanup(Context context)
+      throws IOException, InterruptedException {
+    if (null != tableOutputs) {
+      tableOutputs.close();
+    }
   }
 
   @Override
@@ -226,18 +294,42 @@ public class NetezzaImportMapper
     // Configure and execute a direct-mode export.
 
     this.conf = context.getConfiguration();
+    this.logName = context.getTaskAttemptID() + "-" + slice;
+    NetezzaUtil.setStatementLogDirectory(conf, logDir, logName);
     char recordDelimChar = (char) conf.getInt(
             MySQLUtils.OUTPUT_RECORD_DELIM_KEY, '\n');
     String recordDelim = "" + recordDelimChar;
 
-    initImportProcess(slice, context);
+    selectSource(slice, context);
+    initImportProcess(slice % sliceCount, context);
+    boolean finished = false;
+    NetezzaFlightRecorder.Phase phase =
+        beginPhase(NetezzaFlightRecorder.FIRST_BYTE, context);
     try {
       String line = this.importReader.readLine();
+      phase.end();
+      phase = beginPhase(NetezzaFlightRecorder.STEADY_STATE, context);
       while (null != line) {
-        context.write(line.toString() + recordDelim, NullWritable.get());
+        long writeStart = System.nanoTime();
+        if (null == tableOutputs) {
+          context.write(line.toString() + recordDelim, NullWritable.get());
+        } else {
+          tableOutputs.write(line + recordDelim, NullWritable.get(),
+              tableOutputPath);
+          context.getCounter(TaskCounter.MAP_OUTPUT_RECORDS).increment(1);
+        }
+        this.stats.addHdfsNanos(System.nanoTime() - writeStart);
+        this.stats.record(line);
+        this.stats.progress(context);
         line = this.importReader.readLine();
       }
+      finished = true;
     } finally {
+      phase.end();
+      if (!finished) {
+        // Release the appliance instead of unloading into a closed FIFO
+        this.session.cancel();
+      }
       try {
         this.importReader.close();
       } catch (IOException ioe) {
@@ -245,11 +337,45 @@ public class NetezzaImportMapper
             + StringUtils.stringifyException(ioe));
       }
 
-      this.jdbcThread.join();
-      SQLException exception = this.jdbcThread.getException();
-      if (null != exception) {
+      phase = beginPhase(NetezzaFlightRecorder.STATEMENT, context);
+      SQLException exception = this.session.await();
+      phase.end();
+      closeTransport();
+      this.stats.addStatementRows(this.session.getUpdateCount());
+      this.stats.report(context);
+      context.getCounter(NetezzaCounter.NZ_FIFO_BYTES)
+          .increment(this.stats.getBytes());
+      long fifoClosed = System.currentTimeMillis();
+      if (null != this.staging && this.staging.getFinishTime() > 0) {
+        fifoClosed = this.staging.getFinishTime();
+      }
+      context.getCounter(NetezzaCounter.NZ_FIFO_MILLIS)
+          .increment(fifoClosed - this.fifoOpened);
+      uploadLogs(context);
+      if (null != exception && finished) {
         throw new IOException(exception);
       }
     }
   }
+
+  private NetezzaFlightRecorder.Phase beginPhase(String phase,
+      Context context) {
+    return NetezzaFlightRecorder.begin(phase, sourceTable,
+        context.getTaskAttemptID().toString());
+  }
+
+  private void closeTransport() {
+    try {
+      this.transport.close();
+    } catch (IOException ioe) {
+      LOG.warn("IOException closing transport: " + ioe);
+    }
+  }
+
+  private void uploadLogs(Context context) {
+    long nzRejected = NetezzaUtil.uploadLogsToHdfsIfSpecified(conf,
+        logName);
+    context.getCounter(NetezzaCounter.NZ_REJECTED_RECORDS)
+        .increment(nzRejected);
+  }
 }
@@ -0,0 +1,91 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+
+package com.cloudera.sqoop.netezza;
+
+import java.io.IOException;
+
+import org.apache.commons.lang.StringEscapeUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.sqoop.SqoopOptions;
+import org.apache.sqoop.manager.ImportJobContext;
+import org.apache.sqoop.manager.MySQLUtils;
+import org.apache.sqoop.mapreduce.DataDrivenImportJob;
+
+import static com.cloudera.sqoop.netezza.util.NetezzaConstants.*;
+
+/**
+ * Class that runs a JDBC import of delimited text reading rows from Netezza
+ * in column batches instead of generated records.
+ */
+public class NetezzaJdbcImportJob extends DataDrivenImportJob {
+
+  public static final Log LOG =
+      LogFactory.getLog(NetezzaJdbcImportJob.class.getName());
+
+  public NetezzaJdbcImportJob(SqoopOptions opts, ImportJobContext context) {
+    super(opts, NetezzaJdbcInputFormat.class, context);
+  }
+
+  @Override
+  protected Class<? extends Mapper<?, ?, ?, ?>> getMapperClass() {
+    return NetezzaBatchTextImportMapper.class;
+  }
+
+  @Override
+  protected boolean runJob(Job job)
+      throws ClassNotFoundException, IOException, InterruptedException {
+    boolean success = super.runJob(job);
+    if (success) {
+      LOG.info("Records retrieved above are column batches holding "
+          + getRowCountFromHadoop(job) + " rows.");
+    }
+    return success;
+  }
+
+  /**
+   * Each map output record is a whole batch, the connector counts the rows
+   * for the validation.
+   */
+  @Override
+  protected long getRowCountFromHadoop(Job job)
+      throws IOException, InterruptedException {
+    return job.getCounters().findCounter(NetezzaCounter.NZ_BATCHED_ROWS)
+        .getValue();
+  }
+
+  @Override
+  protected void configureInputFormat(Job job, String tableName,
+      String tableClassName, String splitByCol) throws IOException {
+    super.configureInputFormat(job, tableName, tableClassName, splitByCol);
+
+    Configuration conf = job.getConfiguration();
+    conf.setBoolean(PROPERTY_COLUMNAR_IMPORT, true);
+
+    // Same delimiters and null strings as the generated record class uses
+    conf.setInt(MySQLUtils.OUTPUT_FIELD_DELIM_KEY,
+        options.getOutputFieldDelim());
+    conf.setInt(MySQLUtils.OUTPUT_RECORD_DELIM_KEY,
+        options.getOutputRecordDelim());
+    conf.setInt(MySQLUtils.OUTPUT_ENCLOSED_BY_KEY,
+        options.getOutputEnclosedBy());
+    conf.setInt(MySQLUtils.OUTPUT_ESCAPED_BY_KEY,
+        options.getOutputEscapedBy());
+    conf.setBoolean(MySQLUtils.OUTPUT_ENCLOSE_REQUIRED_KEY,
+        options.isOutputEncloseRequired());
+    conf.set(PROPERTY_NULL_STRING, getNullValue(options.getNullStringValue()));
+    conf.set(PROPERTY_NULL_NON_STRING,
+        getNullValue(options.getNullNonStringValue()));
+  }
+
+  /**
+   * Null values are pasted as Java string literals into the generated code,
+   * unescape them the same way the compiler would.
+   */
+  private static String getNullValue(String value) {
+    return null == value ? "null" : StringEscapeUtils.unescapeJava(value);
+  }
+}
@@ -39,6 +39,8 @@ import org.apache.sqoop.mapreduce.db.DBSplitter;
 import org.apache.sqoop.mapreduce.db.DataDrivenDBInputFormat;
 import org.apache.sqoop.config.ConfigurationHelper;
 
+import static com.cloudera.sqoop.netezza.util.NetezzaConstants.*;
+
 /**
  * An InputFormat that uses a netezza-specific partitioning strategy
  * for tables.
@@ -49,6 +51,9 @@ public class NetezzaJdbcInputFormat<T extends DBWritable>
   public static final Log LOG = LogFactory.getLog(
       NetezzaJdbcInputFormat.class.getName());
 
+  // Virtual column holding data slice of each row
+  public static final String DATASLICEID = "DATASLICEID";
+
   private class DataSliceIdSplitter implements DBSplitter {
     @Override
     public List<InputSplit> split(Configuration conf, ResultSet rs,
@@ -61,7 +66,7 @@ public class NetezzaJdbcInputFormat<T extends DBWritable>
       int targetNumTasks = ConfigurationHelper.getConfNumMaps(conf);
       for (int i = 0; i < targetNumTasks; i++) {
         splits.add(new DataDrivenDBInputFormat.DataDrivenDBInputSplit(
-            "MOD(DATASLICEID, " + targetNumTasks + ") = " + i,
+            "MOD(" + splitByCol + ", " + targetNumTasks + ") = " + i,
             "1=1"));
       }
 
@@ -69,6 +74,18 @@ public class NetezzaJdbcInputFormat<T extends DBWritable>
     }
   }
 
+  /**
+   * Return true if the column is DATASLICEID virtual column, optionally
+   * qualified with a table name or an alias.
+   */
+  static boolean isDataSliceIdColumn(String column) {
+    if (column == null) {
+      return false;
+    }
+    String name = column.trim().toUpperCase();
+    return name.equals(DATASLICEID) || name.endsWith("." + DATASLICEID);
+  }
+
   @Override
   protected RecordReader<LongWritable, T> createDBRecordReader(
       DBInputSplit split, Configuration conf) throws IOException {
@@ -81,10 +98,18 @@ public class NetezzaJdbcInputFormat<T extends DBWritable>
     LOG.debug("Creating db record reader for db product: " + dbProductName);
 
     try {
-      return new NetezzaRecordReader<T>(split, inputClass,
-          conf, getConnection(), dbConf, dbConf.getInputConditions(),
-          dbConf.getInputFieldNames(), dbConf.getInputTableName(),
-          dbProductName);
+      NetezzaRecordReader<T> reader = new NetezzaRecordReader<T>(split,
+          inputClass, conf, getConnection(), dbConf,
+          dbConf.getInputConditions(), dbConf.getInputFieldNames(),
+          dbConf.getInputTableName(), dbProductName);
+      if (conf.getBoolean(PROPERTY_COLUMNAR_IMPORT, false)) {
+        // Values are column batches, see NetezzaJdbcImportJob
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        RecordReader<LongWritable, T> batchReader =
+            (RecordReader) new NetezzaColumnBatchReader(reader, conf);
+        return batchReader;
+      }
+      return reader;
     } catch (SQLException ex) {
       throw new IOException(ex);
     }
@@ -95,15 +120,28 @@ public class NetezzaJdbcInputFormat<T extends DBWritable>
   public List<InputSplit> getSplits(JobContext job) throws IOException {
     int targetNumTasks = ConfigurationHelper.getJobNumMaps(job);
     DBConfiguration dbConf = new DBConfiguration(job.getConfiguration());
-    if (1 == targetNumTasks || dbConf.getInputTableName() == null) {
-      // We're using either a singleton split, or we are partitioning a
-      // free-form user query. Both of these are handled by the usual route in
-      // DataDrivenDBInputFormat.
+    if (1 == targetNumTasks) {
+      // We're using a singleton split, which is handled by the usual route
+      // in DataDrivenDBInputFormat.
       return super.getSplits(job);
     }
 
+    String sliceColumn = DATASLICEID;
+    if (dbConf.getInputTableName() == null) {
+      // Free-form query. DATASLICEID has to be qualified when the query
+      // joins several tables, so it's used only when the user asked for it
+      // by splitting on [<alias>.]DATASLICEID. $CONDITIONS in the query is
+      // then replaced by slice membership of the split.
+      sliceColumn = dbConf.getInputOrderBy();
+      if (!isDataSliceIdColumn(sliceColumn)) {
+        LOG.info("Splitting query by ranges of " + sliceColumn + ", use "
+            + "--split-by " + DATASLICEID + " to split it by data slices.");
+        return super.getSplits(job);
+      }
+    }
+
     // Use the DATASLICEID-based splitter.
     return new DataSliceIdSplitter().split(job.getConfiguration(), null,
-        null);
+        sliceColumn);
   }
 }
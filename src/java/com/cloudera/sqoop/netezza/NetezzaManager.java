@@ -2,11 +2,19 @@
 
 package com.cloudera.sqoop.netezza;
 
+import java.io.File;
 import java.io.IOException;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -15,14 +23,23 @@ import org.apache.commons.cli.OptionBuilder;
 import org.apache.commons.cli.ParseException;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.util.Shell;
 import org.apache.sqoop.SqoopOptions;
 import org.apache.sqoop.manager.ExportJobContext;
 import org.apache.sqoop.manager.GenericJdbcManager;
 import org.apache.sqoop.manager.ImportJobContext;
+import org.apache.sqoop.mapreduce.AsyncSqlOutputFormat;
+import org.apache.sqoop.mapreduce.ExportJobBase;
+import org.apache.sqoop.mapreduce.JdbcExportJob;
 import org.apache.sqoop.util.ExportException;
 import org.apache.sqoop.util.ImportException;
+import org.apache.sqoop.util.SqlTypeMap;
 import org.apache.sqoop.cli.RelatedOptions;
 
+import com.cloudera.sqoop.netezza.util.NetezzaConstants;
+
 /**
  * Manages connections to Netezza EDW.
  */
@@ -34,6 +51,56 @@ public class NetezzaManager extends GenericJdbcManager {
   // Pass schema to Netezza
   public static final String SCHEMA_ARG = "schema";
 
+  // Hadoop Configuration keys for JDBC based exports
+  public static final String NZ_JDBC_BATCH_CONF = "nz.jdbc.export.batch";
+  public static final String NZ_JDBC_BATCH_SIZE_CONF =
+      "nz.jdbc.export.batch.size";
+  public static final String NZ_JDBC_STATEMENTS_PER_TX_CONF =
+      "nz.jdbc.export.statements.per.transaction";
+
+  // Default number of records sent in one JDBC batch
+  public static final int DEFAULT_JDBC_BATCH_SIZE = 1000;
+
+  // Hadoop Configuration keys for JDBC based imports
+  public static final String NZ_JDBC_PREFETCH_CONF = "nz.jdbc.import.prefetch";
+  public static final String NZ_JDBC_PREFETCH_ROWS_CONF =
+      "nz.jdbc.import.prefetch.rows";
+  public static final String NZ_JDBC_FETCH_BUFFER_CONF =
+      "nz.jdbc.import.fetch.buffer.bytes";
+
+  public static final String NZ_JDBC_COLUMNAR_CONF = "nz.jdbc.import.columnar";
+  public static final String NZ_JDBC_COLUMNAR_BATCH_ROWS_CONF =
+      "nz.jdbc.import.columnar.batch.rows";
+
+  // Default number of rows in one column batch
+  public static final int DEFAULT_JDBC_COLUMNAR_BATCH_ROWS = 1024;
+
+  // Default number of rows prefetched ahead of the mapper
+  public static final int DEFAULT_JDBC_PREFETCH_ROWS = 1000;
+
+  // Default size of one block of rows fetched from Netezza
+  public static final long DEFAULT_JDBC_FETCH_BUFFER = 8 * 1024 * 1024;
+
+  // Hadoop Configuration key enabling external tables for non-direct jobs
+  public static final String NZ_JDBC_ACCELERATE_CONF = "nz.jdbc.accelerate";
+
+  // Hadoop Configuration key enabling multi-mapper update exports
+  public static final String NZ_JDBC_UPDATE_PARALLEL_CONF =
+      "nz.jdbc.update.parallel";
+
+  // Suffix of the staging table used by parallel update exports
+  public static final String UPDATE_STAGING_SUFFIX = "_SQOOP_UPD_";
+
+  // Hadoop Configuration key with directory of the table metadata cache
+  public static final String NZ_METADATA_CACHE_DIR_CONF =
+      "nz.metadata.cache.dir";
+
+  // Catalog query identifying the current version of a table
+  private static final String QUERY_TABLE_SIGNATURE = "SELECT o.OBJID, "
+      + "o.OBJTYPE, o.CREATEDATE, c.ATTNAME, c.FORMAT_TYPE FROM _V_OBJECTS o "
+      + "LEFT OUTER JOIN _V_RELATION_COLUMN c ON c.OBJID = o.OBJID "
+      + "WHERE o.OBJNAME = ? AND o.SCHEMA = ";
+
   // driver class to ensure is loaded when making db connection.
   protected static final String DRIVER_CLASS = "org.netezza.Driver";
 
@@ -47,6 +114,18 @@ public class NetezzaManager extends GenericJdbcManager {
    */
   private String schema;
 
+  /*
+   * Staging table of the parallel update export that is currently running.
+   */
+  private String updateStagingTable;
+
+  /*
+   * Table metadata read by this manager, null values for tables that can't
+   * be cached.
+   */
+  private final Map<String, NetezzaTableMetadata> tableMetadata =
+      new HashMap<String, NetezzaTableMetadata>();
+
   public NetezzaManager(final SqoopOptions opts) {
     super(DRIVER_CLASS, opts);
 
@@ -68,22 +147,227 @@ public class NetezzaManager extends GenericJdbcManager {
   @Override
   public void exportTable(ExportJobContext context)
       throws IOException, ExportException {
-    // Netezza does not support multi-row INSERT statements.
-    context.getOptions().getConf().setInt("sqoop.export.records.per.statement",
-        1);
-    super.exportTable(context);
+    if (isAccelerated(getExportVeto(context))) {
+      DirectNetezzaManager direct = getAcceleratedManager();
+      try {
+        direct.exportTable(context);
+      } finally {
+        closeAcceleratedManager(direct);
+      }
+      return;
+    }
+
+    Configuration conf = context.getOptions().getConf();
+    if (!conf.getBoolean(NZ_JDBC_BATCH_CONF, true)
+        || null != context.getOptions().getHCatTableName()) {
+      // Netezza does not support multi-row INSERT statements.
+      conf.setInt(AsyncSqlOutputFormat.RECORDS_PER_STATEMENT_KEY, 1);
+      super.exportTable(context);
+      return;
+    }
+
+    // Each "statement" is a JDBC batch of single-row INSERTs.
+    int batchSize = conf.getInt(NZ_JDBC_BATCH_SIZE_CONF,
+        DEFAULT_JDBC_BATCH_SIZE);
+    conf.setInt(AsyncSqlOutputFormat.RECORDS_PER_STATEMENT_KEY, batchSize);
+    if (null != conf.get(NZ_JDBC_STATEMENTS_PER_TX_CONF)) {
+      conf.setInt(AsyncSqlOutputFormat.STATEMENTS_PER_TRANSACTION_KEY,
+          conf.getInt(NZ_JDBC_STATEMENTS_PER_TX_CONF,
+              AsyncSqlOutputFormat.DEFAULT_STATEMENTS_PER_TRANSACTION));
+    }
+    LOG.info("Exporting over JDBC in batches of " + batchSize + " records");
+
+    context.setConnManager(this);
+    JdbcExportJob exportJob = new JdbcExportJob(context, null, null,
+        NetezzaExportOutputFormat.class);
+    exportJob.runExport();
   }
 
   @Override
   public void updateTable(ExportJobContext context)
       throws IOException, ExportException {
-    if (context.getOptions().getNumMappers() != 1) {
+    SqoopOptions options = context.getOptions();
+    if (options.getNumMappers() == 1) {
+      super.updateTable(context);
+      return;
+    }
+
+    if (!options.getConf().getBoolean(NZ_JDBC_UPDATE_PARALLEL_CONF, true)) {
       throw new ExportException("The Cloudera Connector for Netezza does not "
           + "support multi-mapper exports in update mode. Please try again "
           + "with number of mappers explicitly set to 1.");
     }
 
-    super.updateTable(context);
+    parallelUpdateTable(context);
+  }
+
+  /**
+   * Update table using multiple mappers.
+   *
+   * Mappers insert the changed rows into a staging table in parallel. Once
+   * all of them succeed, the rows are applied to the target table with one
+   * set-based UPDATE ... FROM statement in a single transaction, so the
+   * mappers never compete for locks on the target table.
+   *
+   * Unlike the single mapper export, where the last of several records with
+   * the same update key wins, the staging table has no order. Netezza fails
+   * the UPDATE ... FROM when a target row matches more than one staged row,
+   * so the input must not contain duplicate update keys.
+   */
+  private void parallelUpdateTable(ExportJobContext context)
+      throws IOException, ExportException {
+    SqoopOptions options = context.getOptions();
+    String tableName = context.getTableName();
+    Configuration conf = options.getConf();
+
+    // Only the batch writer inserts the staged columns in the order the
+    // records bind them, the generic one would shift values between columns
+    if (!conf.getBoolean(NZ_JDBC_BATCH_CONF, true)
+        || null != options.getHCatTableName()) {
+      throw new ExportException("Multi-mapper exports in update mode "
+          + "require " + NZ_JDBC_BATCH_CONF + " and don't support HCatalog. "
+          + "Please try again with number of mappers explicitly set to 1.");
+    }
+
+    // Records of update exports bind the non key columns first and the
+    // update key last, the staging INSERT has to list them the same way.
+    configureDbOutputColumns(options);
+    String[] columns = options.getDbOutputColumns();
+    String[] keyColumns = options.getUpdateKeyCol().split(",");
+    boolean updated = false;
+    String[] escapedColumns = new String[columns.length];
+    for (int i = 0; i < columns.length; i++) {
+      escapedColumns[i] = escapeColName(columns[i]);
+      updated |= !isUpdateKey(columns[i], keyColumns);
+    }
+    if (!updated) {
+      throw new ExportException("All exported columns are part of the "
+          + "update key, there is nothing to update in table " + tableName);
+    }
+
+    String stagingTable = tableName + UPDATE_STAGING_SUFFIX
+        + System.currentTimeMillis();
+    try {
+      // Staging table inherits columns and distribution of the target table
+      executeUpdateStatement("CREATE TABLE " + escapeTableName(stagingTable)
+          + " AS SELECT * FROM " + escapeTableName(tableName) + " LIMIT 0");
+    } catch (SQLException e) {
+      throw new ExportException("Can't create staging table "
+          + stagingTable, e);
+    }
+    conf.setStrings(NetezzaConstants.PROPERTY_UPDATE_STAGING_COLUMNS,
+        escapedColumns);
+
+    LOG.info("Updating table " + tableName + " in parallel through staging "
+        + "table " + stagingTable);
+    this.updateStagingTable = stagingTable;
+    options.setStagingTableName(stagingTable);
+    try {
+      exportTable(context);
+    } finally {
+      options.setStagingTableName(null);
+      conf.unset(NetezzaConstants.PROPERTY_UPDATE_STAGING_COLUMNS);
+      this.updateStagingTable = null;
+
+      try {
+        executeUpdateStatement("DROP TABLE " + escapeTableName(stagingTable));
+      } catch (SQLException e) {
+        LOG.warn("Can't drop staging table " + stagingTable, e);
+      }
+    }
+  }
+
+  @Override
+  public boolean supportsStagingForExport() {
+    return true;
+  }
+
+  @Override
+  public void migrateData(String fromTable, String toTable)
+      throws SQLException {
+    if (!fromTable.equals(updateStagingTable)) {
+      super.migrateData(fromTable, toTable);
+      return;
+    }
+
+    String sql = getUpdateFromStatement(fromTable, toTable,
+        options.getUpdateKeyCol().split(","), getExportColumns(toTable));
+    LOG.debug("Applying updates: " + sql);
+    int rows = executeUpdateStatement(sql);
+    LOG.info("Updated " + rows + " rows in table " + toTable);
+  }
+
+  /**
+   * Create UPDATE ... FROM statement that updates all non key columns of
+   * rows matching the update key.
+   *
+   * @param fromTable Table with the new values
+   * @param toTable Table to update
+   * @param keyColumns Update key columns
+   * @param columns All exported columns
+   * @return SQL statement
+   */
+  String getUpdateFromStatement(String fromTable, String toTable,
+      String[] keyColumns, String[] columns) {
+    StringBuilder set = new StringBuilder();
+    for (String column : columns) {
+      if (!isUpdateKey(column, keyColumns)) {
+        set.append(set.length() == 0 ? "" : ", ")
+            .append(escapeColName(column)).append(" = s.")
+            .append(escapeColName(column));
+      }
+    }
+
+    StringBuilder where = new StringBuilder();
+    for (String keyColumn : keyColumns) {
+      where.append(where.length() == 0 ? "" : " AND ")
+          .append("t.").append(escapeColName(keyColumn.trim()))
+          .append(" = s.").append(escapeColName(keyColumn.trim()));
+    }
+
+    return "UPDATE " + escapeTableName(toTable) + " t SET " + set
+        + " FROM " + escapeTableName(fromTable) + " s WHERE " + where;
+  }
+
+  private static boolean isUpdateKey(String column, String[] keyColumns) {
+    for (String keyColumn : keyColumns) {
+      if (keyColumn.trim().equals(column)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private String[] getExportColumns(String tableName) {
+    String[] columns = options.getColumns();
+    return null == columns ? getColumnNames(tableName) : columns;
+  }
+
+  /**
+   * Execute statement in its own transaction.
+   *
+   * @return Number of affected rows
+   */
+  protected int executeUpdateStatement(String sql) throws SQLException {
+    Connection conn = getConnection();
+    Statement stmt = null;
+    try {
+      stmt = conn.createStatement();
+      int rows = stmt.executeUpdate(sql);
+      conn.commit();
+      return rows;
+    } catch (SQLException e) {
+      try {
+        conn.rollback();
+      } catch (SQLException rollbackException) {
+        LOG.error("Can't rollback transaction", rollbackException);
+      }
+      throw e;
+    } finally {
+      if (stmt != null) {
+        stmt.close();
+      }
+    }
   }
 
   @Override
@@ -98,11 +382,483 @@ public class NetezzaManager extends GenericJdbcManager {
   @Override
   public void importTable(ImportJobContext context)
       throws IOException, ImportException {
+    if (isAccelerated(getImportVeto(context))) {
+      DirectNetezzaManager direct = getAcceleratedManager();
+      // The direct import escapes only if the user asked for it, like JDBC
+      direct.setDefaultEscapeKept(true);
+      try {
+        direct.importTable(context);
+      } finally {
+        closeAcceleratedManager(direct);
+      }
+      return;
+    }
+
     context.setConnManager(this);
     // Specify the Netezza-specific DBInputFormat for import.
     // The RR here will use DATASLICEID to partition the workload.
     context.setInputFormat(NetezzaJdbcInputFormat.class);
-    super.importTable(context);
+    if (!isColumnarImport(context)) {
+      super.importTable(context);
+      return;
+    }
+
+    LOG.info("Importing table " + context.getTableName()
+        + " using column batches");
+    SqoopOptions opts = context.getOptions();
+    checkTableImportOptions(context);
+    new NetezzaJdbcImportJob(opts, context).runImport(context.getTableName(),
+        context.getJarFile(), getSplitColumn(opts, context.getTableName()),
+        opts.getConf());
+  }
+
+  @Override
+  public void importQuery(ImportJobContext context)
+      throws IOException, ImportException {
+    context.setConnManager(this);
+    // Queries split on DATASLICEID are partitioned by data slices.
+    context.setInputFormat(NetezzaJdbcInputFormat.class);
+    super.importQuery(context);
+  }
+
+  /**
+   * Check whether rows of the table can be imported in column batches. That
+   * is possible for delimited text imports when the text does not need any
+   * customization done by the generated record class.
+   */
+  boolean isColumnarImport(ImportJobContext context) {
+    SqoopOptions opts = context.getOptions();
+    if (!opts.getConf().getBoolean(NZ_JDBC_COLUMNAR_CONF, true)) {
+      return false;
+    }
+
+    if (opts.getFileLayout() != SqoopOptions.FileLayout.TextFile
+        || null != opts.getHBaseTable() || null != opts.getAccumuloTable()
+        || null != opts.getHCatTableName()) {
+      LOG.debug("Column batches are used only for text file imports");
+      return false;
+    }
+
+    if (opts.doHiveDropDelims() || null != opts.getHiveDelimsReplacement()
+        || !opts.getMapColumnJava().isEmpty()) {
+      LOG.debug("Column batches can't be used with customized fields");
+      return false;
+    }
+
+    if (!NetezzaTextBatchFormatter.isSupported(opts.getOutputFieldDelim(),
+        opts.getOutputRecordDelim(), opts.getOutputEnclosedBy(),
+        opts.getOutputEscapedBy())) {
+      LOG.debug("Column batches require ASCII delimiters");
+      return false;
+    }
+
+    // Sqoop releases differ in the escape of delimiters in values that
+    // can't be enclosed, the configured one or always a backslash
+    char escape = opts.getOutputEscapedBy();
+    if (opts.getOutputEnclosedBy() == '\000' && escape != '\000'
+        && escape != '\\') {
+      LOG.debug("Column batches require a backslash to escape delimiters");
+      return false;
+    }
+
+    String tableName = context.getTableName();
+    Map<String, Integer> types = getColumnTypes(tableName);
+    for (String column : getTransferredColumns(tableName)) {
+      Integer type = types.get(column);
+      if (null == type || !NetezzaColumnBatch.isSupportedType(type)) {
+        LOG.debug("Column batches don't support type of column " + column);
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  private String[] getTransferredColumns(String tableName) {
+    String[] columns = options.getColumns();
+    return null == columns ? getColumnNames(tableName) : columns;
+  }
+
+  /**
+   * Log whether the job is going to use remote external tables.
+   *
+   * @param veto Reason why external tables can't be used or null
+   * @return True if external tables should be used
+   */
+  private boolean isAccelerated(String veto) {
+    if (null == veto) {
+      LOG.info("Transferring data using remote external tables, use "
+          + "-D" + NZ_JDBC_ACCELERATE_CONF + "=false to use JDBC instead.");
+      return true;
+    }
+
+    LOG.info("Not using remote external tables: " + veto
+        + ". Consider using --direct.");
+    return false;
+  }
+
+  DirectNetezzaManager getAcceleratedManager() {
+    return new DirectNetezzaManager(options);
+  }
+
+  private void closeAcceleratedManager(DirectNetezzaManager direct) {
+    try {
+      direct.close();
+    } catch (SQLException e) {
+      LOG.warn("Can't close connection of the direct manager", e);
+    }
+  }
+
+  /**
+   * Check whether the import can run through remote external tables and
+   * produce the same output as the JDBC import.
+   *
+   * @return Reason why external tables can't be used or null
+   */
+  String getImportVeto(ImportJobContext context) throws IOException {
+    SqoopOptions opts = context.getOptions();
+    String veto = getCommonVeto(opts, context.getTableName());
+    if (null != veto) {
+      return veto;
+    }
+
+    if (opts.getFileLayout() != SqoopOptions.FileLayout.TextFile
+        || null != opts.getHBaseTable() || null != opts.getAccumuloTable()) {
+      return "only text file imports are supported";
+    }
+    char escape = opts.getOutputEscapedBy();
+    if ((escape != '\\' && escape != '\000')
+        || opts.getOutputEnclosedBy() != '\000'
+        || opts.getOutputRecordDelim() != '\n') {
+      return "output must be escaped by '\\' or not escaped, not enclosed "
+          + "and terminated by new lines";
+    }
+    if (opts.doHiveDropDelims() || null != opts.getHiveDelimsReplacement()) {
+      return "Hive delimiter handling is not supported";
+    }
+    if (escape == '\000') {
+      // Netezza can't unload unescaped strings holding delimiters
+      Map<String, Integer> types = getColumnTypes(context.getTableName());
+      for (String column : getTransferredColumns(context.getTableName())) {
+        Integer type = types.get(column);
+        if (null != type && NetezzaColumnBatch.isStringType(type)) {
+          return "string column " + column + " requires --escaped-by '\\'";
+        }
+      }
+    }
+
+    return getTableVeto(opts, context.getTableName(),
+        opts.getNullStringValue(), opts.getNullNonStringValue());
+  }
+
+  /**
+   * Check whether the export can run through remote external tables and
+   * interpret the input the same way as the JDBC export.
+   *
+   * @return Reason why external tables can't be used or null
+   */
+  String getExportVeto(ExportJobContext context) throws IOException {
+    SqoopOptions opts = context.getOptions();
+    String veto = getCommonVeto(opts, context.getTableName());
+    if (null != veto) {
+      return veto;
+    }
+
+    if (null != opts.getStagingTableName()) {
+      return "staging tables are not supported";
+    }
+    if (opts.getInputEscapedBy() != '\\'
+        || opts.getInputEnclosedBy() != '\000'
+        || opts.getInputRecordDelim() != '\n') {
+      return "input must be escaped by '\\', not enclosed and terminated "
+          + "by new lines";
+    }
+    if (null != opts.getColumns()) {
+      return "--columns is not supported";
+    }
+    ExportJobBase.FileType fileType = ExportJobBase.getFileType(
+        opts.getConf(), new Path(opts.getExportDir()));
+    if (fileType != ExportJobBase.FileType.UNKNOWN
+        && fileType != ExportJobBase.FileType.SEQUENCE_FILE) {
+      return "only text and sequence file exports are supported";
+    }
+
+    return getTableVeto(opts, context.getTableName(),
+        opts.getInNullStringValue(), opts.getInNullNonStringValue());
+  }
+
+  private String getCommonVeto(SqoopOptions opts, String tableName) {
+    if (!opts.getConf().getBoolean(NZ_JDBC_ACCELERATE_CONF, true)) {
+      return NZ_JDBC_ACCELERATE_CONF + " is disabled";
+    }
+    if (null == tableName) {
+      return "only table based transfers are supported";
+    }
+    if (null != opts.getHCatTableName()) {
+      return "HCatalog is not supported";
+    }
+    if (!opts.getMapColumnJava().isEmpty()) {
+      return "--map-column-java is not supported";
+    }
+    if (!isFifoSupported()) {
+      return "named pipes are not available";
+    }
+    return null;
+  }
+
+  /**
+   * Check null strings, column types and the object type.
+   */
+  private String getTableVeto(SqoopOptions opts, String tableName,
+      String nullString, String nullNonString) throws IOException {
+    if (null != nullNonString) {
+      return "custom null string for non string columns is not supported";
+    }
+    if (null != nullString && nullString.matches("\\\\[0-9]+")) {
+      return "octal escape sequences in null string are not supported";
+    }
+
+    // Types whose text representation is the same in Java and Netezza
+    Map<String, Integer> types = getColumnTypes(tableName);
+    for (String column : getTransferredColumns(tableName)) {
+      Integer type = types.get(column);
+      if (null == type || !(NetezzaColumnBatch.isStringType(type)
+          || type == Types.TINYINT || type == Types.SMALLINT
+          || type == Types.INTEGER || type == Types.BIGINT
+          || type == Types.NUMERIC || type == Types.DECIMAL
+          || type == Types.DATE)) {
+        return "type of column " + column + " is not supported";
+      }
+    }
+
+    String objType;
+    NetezzaTableMetadata metadata = getTableMetadata(tableName);
+    if (null != metadata) {
+      objType = metadata.getObjectType();
+    } else {
+      DirectNetezzaManager direct = getAcceleratedManager();
+      try {
+        objType = direct.getTargetObjectType();
+      } finally {
+        closeAcceleratedManager(direct);
+      }
+    }
+    if (!"TABLE".equalsIgnoreCase(objType)) {
+      return tableName + " is not a table";
+    }
+    return null;
+  }
+
+  /**
+   * Remote external tables are read and written through named pipes. This
+   * checks only the client, the tasks are expected to run on the same
+   * platform. Clusters whose nodes can't create named pipes should disable
+   * the acceleration with -D nz.jdbc.accelerate=false.
+   */
+  static boolean isFifoSupported() {
+    if (Shell.WINDOWS) {
+      return false;
+    }
+    String path = System.getenv("PATH");
+    if (null == path) {
+      return false;
+    }
+    for (String dir : path.split(File.pathSeparator)) {
+      if (new File(dir, "mkfifo").canExecute()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public String[] getColumnNames(String tableName) {
+    NetezzaTableMetadata metadata = getTableMetadata(tableName);
+    if (null == metadata) {
+      return super.getColumnNames(tableName);
+    }
+    return filterSpecifiedColumnNames(metadata.getColumnNames());
+  }
+
+  @Override
+  public Map<String, Integer> getColumnTypes(String tableName) {
+    NetezzaTableMetadata metadata = getTableMetadata(tableName);
+    if (null == metadata) {
+      return super.getColumnTypes(tableName);
+    }
+    Map<String, Integer> types = new SqlTypeMap<String, Integer>();
+    for (int i = 0; i < metadata.getColumnCount(); i++) {
+      types.put(metadata.getColumnName(i), metadata.getColumnType(i));
+    }
+    return types;
+  }
+
+  @Override
+  public Map<String, List<Integer>> getColumnInfo(String tableName) {
+    NetezzaTableMetadata metadata = getTableMetadata(tableName);
+    if (null == metadata) {
+      return super.getColumnInfo(tableName);
+    }
+    Map<String, List<Integer>> info = new SqlTypeMap<String, List<Integer>>();
+    for (int i = 0; i < metadata.getColumnCount(); i++) {
+      List<Integer> values = new ArrayList<Integer>(3);
+      values.add(metadata.getColumnType(i));
+      values.add(metadata.getPrecision(i));
+      values.add(metadata.getScale(i));
+      info.put(metadata.getColumnName(i), values);
+    }
+    return info;
+  }
+
+  @Override
+  public Map<String, String> getColumnTypeNamesForTable(String tableName) {
+    NetezzaTableMetadata metadata = getTableMetadata(tableName);
+    if (null == metadata) {
+      return super.getColumnTypeNamesForTable(tableName);
+    }
+    Map<String, String> names = new SqlTypeMap<String, String>();
+    for (int i = 0; i < metadata.getColumnCount(); i++) {
+      names.put(metadata.getColumnName(i), metadata.getColumnTypeName(i));
+    }
+    return names;
+  }
+
+  /**
+   * Get metadata of the table from the cache configured by
+   * nz.metadata.cache.dir.
+   *
+   * Each table costs one catalog query per manager that reads the current
+   * signature of the table. The full metadata is read through the JDBC
+   * driver only when the cached signature differs, which keeps the values
+   * identical to the ones returned without the cache.
+   *
+   * @return Metadata or null if the cache can't be used for the table
+   */
+  protected NetezzaTableMetadata getTableMetadata(String tableName) {
+    String directory = options.getConf().get(NZ_METADATA_CACHE_DIR_CONF);
+    if (null == tableName || null == directory || directory.isEmpty()
+        || tableName.indexOf('.') != -1) {
+      return null;
+    }
+    if (tableMetadata.containsKey(tableName)) {
+      return tableMetadata.get(tableName);
+    }
+
+    NetezzaTableMetadata metadata = null;
+    try {
+      metadata = readTableMetadata(new NetezzaCatalogCache(
+          new File(directory)), tableName);
+    } catch (SQLException e) {
+      LOG.warn("Can't read metadata of table " + tableName
+          + " from the catalog, not using metadata cache", e);
+    }
+    tableMetadata.put(tableName, metadata);
+    return metadata;
+  }
+
+  private NetezzaTableMetadata readTableMetadata(NetezzaCatalogCache cache,
+      String tableName) throws SQLException {
+    String[] version = readTableSignature(tableName);
+    if (null == version) {
+      LOG.debug("Table " + tableName + " not found in the catalog");
+      return null;
+    }
+
+    String connectString = options.getConnectString() + '\u0000'
+        + options.getUsername();
+    String schemaName = null == schema ? "" : schema;
+    NetezzaTableMetadata metadata =
+        cache.load(connectString, schemaName, tableName);
+    if (null != metadata && version[0].equals(metadata.getSignature())) {
+      LOG.debug("Using cached metadata of table " + tableName);
+      return metadata;
+    }
+
+    LOG.debug("Reading metadata of table " + tableName);
+    metadata = new NetezzaTableMetadata(version[0], version[1]);
+    Statement stmt = getConnection().createStatement();
+    try {
+      ResultSet rs = stmt.executeQuery(getColNamesQuery(tableName));
+      ResultSetMetaData md = rs.getMetaData();
+      for (int i = 1; i <= md.getColumnCount(); i++) {
+        String name = md.getColumnLabel(i);
+        if (null == name || name.isEmpty()) {
+          name = md.getColumnName(i);
+        }
+        metadata.addColumn(name, getSignedType(md, i), md.getPrecision(i),
+            md.getScale(i), md.getColumnTypeName(i));
+      }
+      rs.close();
+    } finally {
+      stmt.close();
+    }
+
+    cache.store(connectString, schemaName, tableName, metadata);
+    return metadata;
+  }
+
+  /**
+   * Promote unsigned integer types the same way as SqlManager does.
+   */
+  private static int getSignedType(ResultSetMetaData md, int column)
+      throws SQLException {
+    int type = md.getColumnType(column);
+    if (!md.isSigned(column)) {
+      if (type == Types.INTEGER) {
+        return Types.BIGINT;
+      } else if (type == Types.SMALLINT) {
+        return Types.INTEGER;
+      } else if (type == Types.TINYINT) {
+        return Types.SMALLINT;
+      }
+    }
+    return type;
+  }
+
+  /**
+   * Read the version of the table from the catalog with one query.
+   *
+   * The catalog doesn't keep the time of the last ALTER TABLE, so the
+   * signature covers the object id, creation date and names and types of
+   * all columns.
+   *
+   * @return Signature and object type or null if the table doesn't exist
+   */
+  private String[] readTableSignature(String tableName) throws SQLException {
+    String sql = QUERY_TABLE_SIGNATURE
+        + (null == schema ? "CURRENT_SCHEMA" : "?")
+        + " ORDER BY o.OBJID, c.ATTNUM";
+    PreparedStatement pstmt = getConnection().prepareStatement(sql,
+        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+    try {
+      pstmt.setString(1, tableName);
+      if (null != schema) {
+        pstmt.setString(2, schema);
+      }
+
+      ResultSet rs = pstmt.executeQuery();
+      if (!rs.next()) {
+        return null;
+      }
+      long objId = rs.getLong(1);
+      String objType = rs.getString(2);
+      StringBuilder signature = new StringBuilder();
+      signature.append(objId).append('|').append(rs.getString(3));
+      do {
+        if (rs.getLong(1) != objId) {
+          break;
+        }
+        signature.append('|').append(rs.getString(4))
+            .append(' ').append(rs.getString(5));
+      } while (rs.next());
+      rs.close();
+
+      return new String[] {
+        NetezzaCatalogCache.digest(signature.toString()), objType,
+      };
+    } finally {
+      pstmt.close();
+    }
   }
 
   @Override
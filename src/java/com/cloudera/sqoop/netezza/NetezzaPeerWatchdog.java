@@ -0,0 +1,193 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+
+package com.cloudera.sqoop.netezza;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+
+/**
+ * Watches the session running the Netezza side of a FIFO transfer.
+ *
+ * Opening a FIFO blocks until the other side opens it as well, which never
+ * happens if the session fails first. The watchdog opens the FIFO in a
+ * helper thread and gives up once the peer is gone. Until the FIFO is open
+ * the watchdog reports progress while the peer is alive, so long planning
+ * phases of the appliance don't hit the task timeout. A dead peer or an
+ * open FIFO stops the reports; from then on only records moved by the task
+ * count as progress, so a task stuck on HDFS still times out.
+ */
+public class NetezzaPeerWatchdog implements Closeable {
+
+  public static final Log LOG = LogFactory.getLog(
+      NetezzaPeerWatchdog.class.getName());
+
+  public static final String INTERVAL_MILLIS_CONF = "nz.watchdog.interval.ms";
+  public static final long DEFAULT_INTERVAL_MILLIS = 10000;
+
+  private final Future<?> peer;
+  private final TaskAttemptContext context;
+  private final long intervalMillis;
+  private final Thread heartbeat;
+  private volatile boolean closed;
+
+  /**
+   * @param peer Future of the running Netezza statement
+   * @param context Task to report progress to, might be null
+   */
+  public NetezzaPeerWatchdog(Future<?> peer, TaskAttemptContext context,
+                             Configuration conf) {
+    this.peer = peer;
+    this.context = context;
+    this.intervalMillis =
+        conf.getLong(INTERVAL_MILLIS_CONF, DEFAULT_INTERVAL_MILLIS);
+    this.heartbeat = new Thread("Netezza session watchdog") {
+      @Override
+      public void run() {
+        heartbeat();
+      }
+    };
+    this.heartbeat.setDaemon(true);
+  }
+
+  /**
+   * Start reporting progress while the peer is alive.
+   */
+  public void start() {
+    heartbeat.start();
+  }
+
+  private void heartbeat() {
+    try {
+      while (!closed && !peer.isDone()) {
+        if (null != context) {
+          context.progress();
+        }
+        waitForPeer();
+      }
+    } catch (InterruptedException e) {
+      return;
+    }
+    if (!closed) {
+      LOG.info("Netezza session finished");
+    }
+  }
+
+  /**
+   * Wait at most one interval for the peer to complete.
+   */
+  private void waitForPeer() throws InterruptedException {
+    try {
+      peer.get(intervalMillis, TimeUnit.MILLISECONDS);
+    } catch (ExecutionException e) {
+      // Reported by the owner of the session
+    } catch (CancellationException e) {
+      // Reported by the owner of the session
+    } catch (TimeoutException e) {
+      // Still running
+    }
+  }
+
+  /**
+   * Open read side of the FIFO.
+   *
+   * @return Stream or null if the peer finished without opening the FIFO
+   */
+  public FileInputStream openInput(final File fifo)
+      throws IOException, InterruptedException {
+    return open(fifo, new Callable<FileInputStream>() {
+      @Override
+      public FileInputStream call() throws IOException {
+        return new FileInputStream(fifo);
+      }
+    });
+  }
+
+  /**
+   * Open write side of the FIFO.
+   *
+   * @return Stream or null if the peer finished without opening the FIFO
+   */
+  public FileOutputStream openOutput(final File fifo)
+      throws IOException, InterruptedException {
+    return open(fifo, new Callable<FileOutputStream>() {
+      @Override
+      public FileOutputStream call() throws IOException {
+        return new FileOutputStream(fifo);
+      }
+    });
+  }
+
+  private <T extends Closeable> T open(File fifo, Callable<T> opener)
+      throws IOException, InterruptedException {
+    FutureTask<T> task = new FutureTask<T>(opener);
+    Thread thread = new Thread(task, "Opening FIFO " + fifo.getName());
+    thread.setDaemon(true);
+    thread.start();
+
+    boolean reported = false;
+    boolean unblocked = false;
+    while (true) {
+      try {
+        T stream = task.get(intervalMillis, TimeUnit.MILLISECONDS);
+        if (!unblocked) {
+          // Data flows now, the task reports its own progress
+          close();
+          return stream;
+        }
+        // Opened by ourselves below, the peer never took part
+        stream.close();
+        return null;
+      } catch (TimeoutException e) {
+        if (peer.isDone()) {
+          LOG.warn("Netezza session finished before opening FIFO " + fifo);
+          unblock(fifo);
+          unblocked = true;
+        } else if (null != context) {
+          if (!reported) {
+            context.setStatus("Waiting for Netezza to open FIFO");
+            reported = true;
+          }
+          context.progress();
+        }
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof IOException) {
+          throw (IOException) e.getCause();
+        }
+        throw new IOException(e.getCause());
+      }
+    }
+  }
+
+  /**
+   * Let the blocked open call complete. Opening a FIFO for both reading and
+   * writing never blocks on Linux.
+   */
+  private static void unblock(File fifo) throws IOException {
+    new RandomAccessFile(fifo, "rw").close();
+  }
+
+  /**
+   * Stop reporting progress.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    heartbeat.interrupt();
+  }
+}
@@ -17,12 +17,18 @@
  */
 package com.cloudera.sqoop.netezza;
 
+import java.io.IOException;
 import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.LongWritable;
 import org.apache.sqoop.mapreduce.DBWritable;
 import org.apache.sqoop.mapreduce.db.DBConfiguration;
 import org.apache.sqoop.mapreduce.db.DBInputFormat;
@@ -30,17 +36,51 @@ import org.apache.sqoop.mapreduce.db.DataDrivenDBRecordReader;
 
 /**
  * A RecordReader that reads records from Netezza.
+ *
+ * Rows are prefetched on a background thread into a bounded queue, so that
+ * network transfer overlaps with processing of the records in the mapper.
+ * Unless the user specified the fetch size, it is derived from the row
+ * width and increased while the reader spends its time waiting for Netezza.
  */
 public class NetezzaRecordReader<T extends DBWritable>
     extends DataDrivenDBRecordReader<T> {
 
   private static final Log LOG = LogFactory.getLog(NetezzaRecordReader.class);
 
+  // Upper bound of a single column width used for row width estimation
+  private static final int MAX_COLUMN_WIDTH = 256;
+
+  private final boolean prefetch;
+  private final NetezzaFetchSizeTuner tuner;
+
+  private ResultSet results;
+  private Fetcher fetcher;
+  private BlockingQueue<T> filled;
+  private BlockingQueue<T> free;
+  private T endOfData;
+
+  private LongWritable key;
+  private T value;
+  private long pos;
+  private boolean done;
+
   public NetezzaRecordReader(DBInputFormat.DBInputSplit split,
                              Class<T> inputClass, Configuration conf, Connection conn,
                              DBConfiguration dbConfig, String cond, String [] fields, String table,
                              String dbProduct) throws SQLException {
     super(split, inputClass, conf, conn, dbConfig, cond, fields, table, dbProduct);
+
+    this.prefetch = conf.getBoolean(NetezzaManager.NZ_JDBC_PREFETCH_CONF,
+        true);
+    if (dbConfig.getFetchSize() == null) {
+      this.tuner = new NetezzaFetchSizeTuner(
+          NetezzaFetchSizeTuner.MIN_FETCH_SIZE,
+          conf.getLong(NetezzaManager.NZ_JDBC_FETCH_BUFFER_CONF,
+              NetezzaManager.DEFAULT_JDBC_FETCH_BUFFER));
+    } else {
+      // Respect fetch size specified by the user
+      this.tuner = null;
+    }
   }
 
   /** Returns the query for selecting the records from Netezza. */
@@ -57,4 +97,181 @@ public class NetezzaRecordReader<T extends DBWritable>
     }
     return query;
   }
+
+  @Override
+  protected ResultSet executeQuery(String query) throws SQLException {
+    ResultSet rs = super.executeQuery(query);
+    if (tuner != null) {
+      ResultSetMetaData metaData = rs.getMetaData();
+      long rowWidth = 0;
+      for (int i = 1; i <= metaData.getColumnCount(); i++) {
+        rowWidth += Math.min(MAX_COLUMN_WIDTH,
+            Math.max(1, metaData.getColumnDisplaySize(i)));
+      }
+      rs.setFetchSize(tuner.setRowWidth(rowWidth));
+      LOG.debug("Estimated row width " + rowWidth + " bytes, using fetch size "
+          + tuner.getFetchSize());
+    }
+    return rs;
+  }
+
+  @Override
+  public boolean nextKeyValue() throws IOException {
+    if (!prefetch) {
+      return super.nextKeyValue();
+    }
+
+    if (done) {
+      return false;
+    }
+
+    try {
+      if (fetcher == null) {
+        startFetcher();
+      } else if (value != null) {
+        // Mapper is done with the previous record, reuse it
+        free.offer(value);
+      }
+
+      value = filled.take();
+    } catch (SQLException e) {
+      throw new IOException("SQLException in nextKeyValue", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for records", e);
+    }
+
+    if (value == endOfData) {
+      value = null;
+      done = true;
+      if (fetcher.error != null) {
+        throw new IOException("Can't fetch records from Netezza",
+            fetcher.error);
+      }
+      return false;
+    }
+
+    if (key == null) {
+      key = new LongWritable();
+    }
+    key.set(pos + getSplit().getStart());
+    pos++;
+    return true;
+  }
+
+  private void startFetcher() throws SQLException {
+    int capacity = Math.max(1, getConf().getInt(
+        NetezzaManager.NZ_JDBC_PREFETCH_ROWS_CONF,
+        NetezzaManager.DEFAULT_JDBC_PREFETCH_ROWS));
+    filled = new ArrayBlockingQueue<T>(capacity + 1);
+    free = new ArrayBlockingQueue<T>(capacity + 1);
+    endOfData = createValue();
+
+    results = executeQuery(getSelectQuery());
+    fetcher = new Fetcher();
+    fetcher.start();
+  }
+
+  @Override
+  public LongWritable getCurrentKey() {
+    return prefetch ? key : super.getCurrentKey();
+  }
+
+  @Override
+  public T getCurrentValue() {
+    return prefetch ? value : super.getCurrentValue();
+  }
+
+  @Override
+  public long getPos() throws IOException {
+    return prefetch ? pos : super.getPos();
+  }
+
+  @Override
+  protected boolean isDone() {
+    return prefetch ? done : super.isDone();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (fetcher != null) {
+      fetcher.interrupt();
+      try {
+        fetcher.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while stopping fetcher", e);
+      }
+    }
+
+    if (results != null) {
+      try {
+        results.close();
+      } catch (SQLException e) {
+        LOG.warn("Can't close result set", e);
+      }
+    }
+
+    super.close();
+  }
+
+  /**
+   * Reads rows from the result set into the queue of filled records.
+   */
+  private class Fetcher extends Thread {
+
+    private volatile Throwable error;
+
+    Fetcher() {
+      super("Netezza record fetcher");
+      setDaemon(true);
+    }
+
+    @Override
+    public void run() {
+      try {
+        long blockStart = System.nanoTime();
+        long waitNanos = 0;
+        int rows = 0;
+        while (true) {
+          long start = System.nanoTime();
+          boolean hasNext = results.next();
+          waitNanos += System.nanoTime() - start;
+          if (!hasNext) {
+            break;
+          }
+
+          T record = free.poll();
+          if (record == null) {
+            record = createValue();
+          }
+          record.readFields(results);
+          filled.put(record);
+
+          if (tuner != null && ++rows >= tuner.getFetchSize()) {
+            long now = System.nanoTime();
+            int fetchSize = tuner.getFetchSize();
+            if (tuner.update(waitNanos, now - blockStart) != fetchSize) {
+              LOG.debug("Increasing fetch size to " + tuner.getFetchSize());
+              results.setFetchSize(tuner.getFetchSize());
+            }
+            blockStart = now;
+            waitNanos = 0;
+            rows = 0;
+          }
+        }
+      } catch (InterruptedException e) {
+        // Reader was closed
+        return;
+      } catch (Throwable t) {
+        error = t;
+      }
+
+      try {
+        filled.put(endOfData);
+      } catch (InterruptedException e) {
+        // Reader was closed
+      }
+    }
+  }
 }
@@ -0,0 +1,86 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+
+package com.cloudera.sqoop.netezza;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+
+/**
+ * Executors running the statements of transfer sessions.
+ *
+ * Sessions run on a cached pool of daemon threads. Virtual threads may be
+ * enabled with nz.session.virtual.threads on JVMs providing them, the
+ * connector is compiled for older JVMs so they are looked up reflectively.
+ * They are off by default, the Netezza JDBC driver blocks on the network
+ * inside synchronized blocks, which pins the virtual thread to its carrier.
+ * Both executors are shared by all tasks of the JVM and never shut down.
+ */
+public final class NetezzaSessionExecutor {
+
+  public static final Log LOG = LogFactory.getLog(
+      NetezzaSessionExecutor.class.getName());
+
+  private static ExecutorService platformExecutor;
+  private static ExecutorService virtualExecutor;
+  private static boolean virtualUnavailable;
+
+  /**
+   * @return Executor for the sessions of given job
+   */
+  public static synchronized ExecutorService get(Configuration conf) {
+    if (conf.getBoolean(DirectNetezzaManager.NZ_VIRTUAL_THREADS_CONF, false)) {
+      if (null == virtualExecutor && !virtualUnavailable) {
+        virtualExecutor = createVirtualExecutor();
+        virtualUnavailable = null == virtualExecutor;
+      }
+      if (null != virtualExecutor) {
+        return virtualExecutor;
+      }
+    }
+
+    if (null == platformExecutor) {
+      platformExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread thread =
+              new Thread(r, "Netezza session " + count.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+    return platformExecutor;
+  }
+
+  /**
+   * @return Executor starting a virtual thread per task or null if the JVM
+   *         doesn't support them
+   */
+  private static ExecutorService createVirtualExecutor() {
+    try {
+      Method method =
+          Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      ExecutorService executor = (ExecutorService) method.invoke(null);
+      LOG.info("Running Netezza sessions on virtual threads");
+      return executor;
+    } catch (NoSuchMethodException e) {
+      return null;
+    } catch (ReflectiveOperationException e) {
+      LOG.warn("Can't create executor of virtual threads: " + e);
+      return null;
+    }
+  }
+
+  private NetezzaSessionExecutor() {
+    // Disable explicit object creation
+  }
+}
@@ -0,0 +1,243 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+
+package com.cloudera.sqoop.netezza;
+
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.UUID;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.PathFilter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.sqoop.mapreduce.db.DBConfiguration;
+
+/**
+ * Limits number of concurrent Netezza sessions opened by all tasks of all
+ * jobs that share the same slot directory.
+ *
+ * Every task waiting for or holding sessions owns one ticket file in a
+ * directory shared by all clients of the appliance. Ticket names start with
+ * the creation time assigned by the file system followed by the number of
+ * sessions, so all clients see the tickets in the same order. A task may
+ * connect once all tickets in front of it plus its own sessions fit into
+ * the limit, which makes the queue fair. Holders refresh the modification
+ * time of their tickets, tickets of tasks that died are ignored once they
+ * get stale and removed by the waiting tasks. Clocks of the clients may
+ * differ, so refreshes and staleness use the clock of the file system, as
+ * estimated from the creation time of the task's own ticket.
+ */
+public class NetezzaSessionSlots implements Closeable {
+
+  public static final Log LOG = LogFactory.getLog(
+      NetezzaSessionSlots.class.getName());
+
+  // Default directory holding the tickets of all appliances
+  public static final String DEFAULT_SLOTS_DIR = "/tmp/sqoop-netezza-sessions";
+
+  // How often waiting tasks check their position in the queue
+  public static final String POLL_MILLIS_CONF = "nz.session.slots.poll.ms";
+  public static final long DEFAULT_POLL_MILLIS = 2000;
+
+  // How often tickets are refreshed and when they get stale
+  public static final String HEARTBEAT_MILLIS_CONF =
+      "nz.session.slots.heartbeat.ms";
+  public static final long DEFAULT_HEARTBEAT_MILLIS = 10000;
+  private static final int STALE_HEARTBEATS = 6;
+
+  private static final String TICKET_PREFIX = "ticket-";
+
+  private static final PathFilter TICKETS = new PathFilter() {
+    @Override
+    public boolean accept(Path path) {
+      return path.getName().startsWith(TICKET_PREFIX);
+    }
+  };
+
+  private final FileSystem fs;
+  private final Path ticket;
+  private final long heartbeatMillis;
+  private final long clockOffset;
+  private final Thread heartbeat;
+  private volatile boolean closed;
+
+  /**
+   * @param clockOffset Difference between the file system clock and the
+   *        local one
+   */
+  private NetezzaSessionSlots(FileSystem fs, Path ticket,
+                              long heartbeatMillis, long clockOffset) {
+    this.fs = fs;
+    this.ticket = ticket;
+    this.heartbeatMillis = heartbeatMillis;
+    this.clockOffset = clockOffset;
+    this.heartbeat = new Thread("Netezza session slot heartbeat") {
+      @Override
+      public void run() {
+        heartbeat();
+      }
+    };
+    this.heartbeat.setDaemon(true);
+  }
+
+  /**
+   * Wait until the given number of sessions may be opened.
+   *
+   * @param conf Job configuration with the connect string
+   * @param sessions Number of sessions the task is going to open
+   * @param context Task reporting the progress while waiting or null
+   * @return Acquired slots that must be closed after closing the sessions,
+   *         or null if the number of sessions is not limited
+   */
+  public static NetezzaSessionSlots acquire(Configuration conf, int sessions,
+      TaskAttemptContext context) throws IOException, InterruptedException {
+    int limit = conf.getInt(DirectNetezzaManager.NZ_SESSION_SLOTS_CONF, 0);
+    if (limit <= 0) {
+      return null;
+    }
+
+    Path dir = new Path(conf.get(DirectNetezzaManager.NZ_SESSION_SLOTS_DIR_CONF,
+        DEFAULT_SLOTS_DIR), getApplianceKey(conf));
+    FileSystem fs = dir.getFileSystem(conf);
+    fs.mkdirs(dir);
+
+    // Let the file system assign the position in the queue
+    String id = UUID.randomUUID().toString();
+    Path pending = new Path(dir, "pending-" + id);
+    fs.create(pending, false).close();
+    long created = fs.getFileStatus(pending).getModificationTime();
+    long clockOffset = created - System.currentTimeMillis();
+    Path ticket = new Path(dir, String.format("%s%016d-%s-%d", TICKET_PREFIX,
+        created, id, sessions));
+    if (!fs.rename(pending, ticket)) {
+      fs.delete(pending, false);
+      throw new IOException("Can't create session ticket " + ticket);
+    }
+
+    long heartbeatMillis =
+        conf.getLong(HEARTBEAT_MILLIS_CONF, DEFAULT_HEARTBEAT_MILLIS);
+    NetezzaSessionSlots slots =
+        new NetezzaSessionSlots(fs, ticket, heartbeatMillis, clockOffset);
+    slots.heartbeat.start();
+    try {
+      slots.waitForTurn(dir, limit, sessions,
+          conf.getLong(POLL_MILLIS_CONF, DEFAULT_POLL_MILLIS), context);
+    } catch (IOException e) {
+      slots.close();
+      throw e;
+    } catch (InterruptedException e) {
+      slots.close();
+      throw e;
+    }
+    return slots;
+  }
+
+  /**
+   * @return Key identifying the appliance in the connect string
+   */
+  static String getApplianceKey(Configuration conf) {
+    String url = conf.get(DBConfiguration.URL_PROPERTY, "");
+    String host = url.replaceFirst("^jdbc:netezza://", "");
+    int slash = host.indexOf('/');
+    if (slash != -1) {
+      host = host.substring(0, slash);
+    }
+    return host.replaceAll("[^A-Za-z0-9._-]", "_");
+  }
+
+  /**
+   * @return Number of sessions of the ticket
+   */
+  private static int getSessions(String name) {
+    return Integer.parseInt(name.substring(name.lastIndexOf('-') + 1));
+  }
+
+  private void waitForTurn(Path dir, int limit, int sessions, long pollMillis,
+      TaskAttemptContext context) throws IOException, InterruptedException {
+    long staleMillis = STALE_HEARTBEATS * heartbeatMillis;
+    boolean logged = false;
+    while (true) {
+      FileStatus[] tickets = fs.listStatus(dir, TICKETS);
+      Arrays.sort(tickets);
+
+      int ahead = 0;
+      long now = now();
+      for (FileStatus status : tickets) {
+        String name = status.getPath().getName();
+        if (name.equals(ticket.getName())) {
+          break;
+        }
+        if (now - status.getModificationTime() > staleMillis) {
+          LOG.info("Removing stale session ticket " + status.getPath());
+          fs.delete(status.getPath(), false);
+          continue;
+        }
+        ahead += getSessions(name);
+      }
+
+      // The first task in the queue always proceeds
+      if (ahead == 0 || ahead + sessions <= limit) {
+        if (logged) {
+          LOG.info("Acquired " + sessions + " Netezza session slot(s)");
+        }
+        return;
+      }
+
+      String status = "Waiting for " + sessions + " Netezza session slot(s), "
+          + ahead + " session(s) of " + limit + " ahead";
+      if (!logged) {
+        LOG.info(status);
+        logged = true;
+      }
+      if (null != context) {
+        context.setStatus(status);
+        context.progress();
+      }
+      Thread.sleep(pollMillis);
+    }
+  }
+
+  /**
+   * @return Current time of the file system clock
+   */
+  private long now() {
+    return System.currentTimeMillis() + clockOffset;
+  }
+
+  private void heartbeat() {
+    while (!closed) {
+      try {
+        Thread.sleep(heartbeatMillis);
+        if (!closed) {
+          fs.setTimes(ticket, now(), -1);
+        }
+      } catch (InterruptedException e) {
+        return;
+      } catch (FileNotFoundException e) {
+        LOG.warn("Session ticket " + ticket + " was removed as stale");
+        return;
+      } catch (IOException e) {
+        LOG.warn("Can't refresh session ticket " + ticket, e);
+      }
+    }
+  }
+
+  /**
+   * Release the slots. Closing released slots has no effect.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    heartbeat.interrupt();
+    fs.delete(ticket, false);
+  }
+}
@@ -0,0 +1,295 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+
+package com.cloudera.sqoop.netezza;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Stream staging the unloaded data in local chunk files.
+ *
+ * A pump thread drains the FIFO as fast as the appliance delivers the data
+ * and writes it into chunk files of limited size. The stream reads the
+ * chunks while they are being written and deletes each one once it was
+ * read completely. The Netezza session therefore finishes at network speed
+ * regardless of how fast the task stores the data.
+ */
+public class NetezzaStagingStream extends InputStream {
+
+  public static final Log LOG = LogFactory.getLog(
+      NetezzaStagingStream.class.getName());
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final InputStream source;
+  private final File directory;
+  private final long chunkBytes;
+  private final long maxBytes;
+  private final Thread pump;
+  private final Object lock = new Object();
+
+  // State shared with the pump, guarded by lock
+  private int chunksCreated;
+  private int chunksSealed;
+  private long bytesWritten;
+  private long bytesRead;
+  private boolean finished;
+  private boolean closed;
+  private IOException error;
+  private long finishTime;
+
+  // State of the reader
+  private int chunk;
+  private InputStream current;
+
+  /**
+   * @param source Stream reading the FIFO
+   * @param directory Local directory for the chunk files, created if needed
+   *        and removed on close
+   * @param chunkBytes Size of one chunk file
+   * @param maxBytes Maximal size of data staged at once, 0 for no limit
+   */
+  public NetezzaStagingStream(InputStream source, File directory,
+                              long chunkBytes, long maxBytes) {
+    this.source = source;
+    this.directory = directory;
+    this.chunkBytes = chunkBytes;
+    this.maxBytes = maxBytes;
+    this.pump = new Thread("Netezza staging pump") {
+      @Override
+      public void run() {
+        pump();
+      }
+    };
+    this.pump.setDaemon(true);
+  }
+
+  /**
+   * Start draining the source.
+   */
+  public void start() throws IOException {
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("Can't create staging directory " + directory);
+    }
+    LOG.info("Staging unloaded data in " + directory);
+    pump.start();
+  }
+
+  private File getChunkFile(int index) {
+    return new File(directory, "chunk-" + index);
+  }
+
+  private void pump() {
+    byte[] buffer = new byte[BUFFER_SIZE];
+    OutputStream out = null;
+    long chunkWritten = 0;
+    try {
+      int n = source.read(buffer);
+      while (n != -1) {
+        if (null == out || chunkWritten >= chunkBytes) {
+          out = nextChunk(out);
+          chunkWritten = 0;
+        }
+        waitForSpace(n);
+        out.write(buffer, 0, n);
+        chunkWritten += n;
+        synchronized (lock) {
+          if (closed) {
+            return;
+          }
+          bytesWritten += n;
+          lock.notifyAll();
+        }
+        n = source.read(buffer);
+      }
+      if (null != out) {
+        out.close();
+        out = null;
+      }
+      synchronized (lock) {
+        chunksSealed = chunksCreated;
+        finished = true;
+        finishTime = System.currentTimeMillis();
+        lock.notifyAll();
+      }
+    } catch (IOException e) {
+      synchronized (lock) {
+        error = e;
+        finished = true;
+        lock.notifyAll();
+      }
+    } catch (InterruptedException e) {
+      synchronized (lock) {
+        error = new InterruptedIOException("Staging was interrupted");
+        finished = true;
+        lock.notifyAll();
+      }
+    } finally {
+      IOUtils.closeQuietly(out);
+      IOUtils.closeQuietly(source);
+    }
+  }
+
+  /**
+   * Seal the current chunk and create a new one.
+   */
+  private OutputStream nextChunk(OutputStream out) throws IOException {
+    if (null != out) {
+      out.close();
+    }
+    int index;
+    synchronized (lock) {
+      index = chunksCreated;
+    }
+    OutputStream next = new FileOutputStream(getChunkFile(index));
+    synchronized (lock) {
+      chunksSealed = index;
+      chunksCreated = index + 1;
+      lock.notifyAll();
+    }
+    return next;
+  }
+
+  /**
+   * Block the pump while too much data is staged.
+   */
+  private void waitForSpace(int n) throws InterruptedException {
+    if (maxBytes <= 0) {
+      return;
+    }
+    synchronized (lock) {
+      while (!closed && bytesWritten - bytesRead + n > maxBytes
+          && bytesWritten > bytesRead) {
+        lock.wait();
+      }
+    }
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] b = new byte[1];
+    int n = read(b, 0, 1);
+    return n == -1 ? -1 : b[0] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    try {
+      while (true) {
+        if (null == current) {
+          synchronized (lock) {
+            while (chunk >= chunksCreated && !finished) {
+              lock.wait();
+            }
+            if (chunk >= chunksCreated) {
+              throwError();
+              return -1;
+            }
+          }
+          current = new FileInputStream(getChunkFile(chunk));
+        }
+
+        int n = current.read(b, off, len);
+        if (n > 0) {
+          consumed(n);
+          return n;
+        }
+
+        boolean sealed;
+        synchronized (lock) {
+          while (chunk >= chunksSealed && bytesRead >= bytesWritten
+              && !finished) {
+            lock.wait();
+          }
+          throwError();
+          sealed = chunk < chunksSealed;
+        }
+        if (sealed) {
+          // Nothing is appended to sealed chunks, read the rest of it
+          n = current.read(b, off, len);
+          if (n > 0) {
+            consumed(n);
+            return n;
+          }
+          current.close();
+          current = null;
+          deleteChunk(chunk);
+          chunk++;
+        }
+      }
+    } catch (InterruptedException e) {
+      throw new InterruptedIOException("Reading of staged data interrupted");
+    }
+  }
+
+  private void consumed(int n) {
+    synchronized (lock) {
+      bytesRead += n;
+      lock.notifyAll();
+    }
+  }
+
+  private void throwError() throws IOException {
+    if (null != error) {
+      throw new IOException("Staging of unloaded data failed", error);
+    }
+  }
+
+  private void deleteChunk(int index) {
+    File file = getChunkFile(index);
+    if (!file.delete()) {
+      LOG.warn("Can't delete staging chunk " + file);
+    }
+  }
+
+  /**
+   * @return Time all data were staged or 0 if the source is not drained yet
+   */
+  public long getFinishTime() {
+    synchronized (lock) {
+      return finishTime;
+    }
+  }
+
+  /**
+   * Stop the pump and remove all staged data.
+   */
+  @Override
+  public void close() throws IOException {
+    synchronized (lock) {
+      closed = true;
+      lock.notifyAll();
+    }
+    IOUtils.closeQuietly(current);
+    current = null;
+    try {
+      pump.join();
+    } catch (InterruptedException e) {
+      throw new InterruptedIOException("Interrupted while closing staging");
+    }
+
+    File[] files = directory.listFiles();
+    if (null != files) {
+      for (File file : files) {
+        if (!file.delete()) {
+          LOG.warn("Can't delete staging chunk " + file);
+        }
+      }
+    }
+    if (!directory.delete()) {
+      LOG.warn("Can't delete staging directory " + directory);
+    }
+  }
+}
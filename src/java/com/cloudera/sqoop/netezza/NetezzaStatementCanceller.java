@@ -0,0 +1,91 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+
+package com.cloudera.sqoop.netezza;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.util.ShutdownHookManager;
+
+/**
+ * Tracks the statement running the external table transfer so that it can
+ * be cancelled from another thread.
+ *
+ * The statement is cancelled when the task fails or when the JVM shuts
+ * down, e.g. when the attempt is killed. Without cancellation the appliance
+ * keeps unloading or loading data until it notices the broken FIFO.
+ */
+public class NetezzaStatementCanceller implements Runnable {
+
+  public static final Log LOG = LogFactory.getLog(
+      NetezzaStatementCanceller.class.getName());
+
+  // Cancel statements before the file systems are closed
+  private static final int SHUTDOWN_HOOK_PRIORITY =
+      FileSystem.SHUTDOWN_HOOK_PRIORITY + 1;
+
+  private Statement statement;
+  private boolean cancelled;
+
+  /**
+   * Track the statement until finish is called.
+   *
+   * @throws SQLException If the transfer was already cancelled
+   */
+  public synchronized void start(Statement stmt) throws SQLException {
+    if (cancelled) {
+      throw new SQLException("Statement was cancelled before it started");
+    }
+    this.statement = stmt;
+    ShutdownHookManager.get().addShutdownHook(this, SHUTDOWN_HOOK_PRIORITY);
+  }
+
+  /**
+   * Stop tracking the statement after it has completed.
+   */
+  public synchronized void finish() {
+    this.statement = null;
+    try {
+      ShutdownHookManager.get().removeShutdownHook(this);
+    } catch (IllegalStateException e) {
+      // JVM is already shutting down
+    }
+  }
+
+  /**
+   * Cancel the running statement, statements started later fail
+   * immediately.
+   */
+  public void cancel() {
+    Statement stmt;
+    synchronized (this) {
+      cancelled = true;
+      stmt = statement;
+    }
+    if (null == stmt) {
+      return;
+    }
+
+    LOG.info("Cancelling running Netezza statement");
+    try {
+      stmt.cancel();
+    } catch (SQLException sqlE) {
+      LOG.warn("Exception cancelling statement: " + sqlE);
+    }
+  }
+
+  public synchronized boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * Shutdown hook.
+   */
+  @Override
+  public void run() {
+    cancel();
+  }
+}
@@ -0,0 +1,139 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+
+package com.cloudera.sqoop.netezza;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Metadata of one Netezza table as needed before the job is launched.
+ *
+ * Column types, precisions, scales and type names are the values reported
+ * by the JDBC driver, the signature identifies the version of the table in
+ * the catalog the values were read for.
+ */
+public class NetezzaTableMetadata {
+
+  private final String signature;
+  private final String objectType;
+  private final List<String> names = new ArrayList<String>();
+  private final List<Integer> types = new ArrayList<Integer>();
+  private final List<Integer> precisions = new ArrayList<Integer>();
+  private final List<Integer> scales = new ArrayList<Integer>();
+  private final List<String> typeNames = new ArrayList<String>();
+
+  public NetezzaTableMetadata(String signature, String objectType) {
+    this.signature = signature;
+    this.objectType = objectType;
+  }
+
+  public void addColumn(String name, int type, int precision, int scale,
+                        String typeName) {
+    names.add(name);
+    types.add(type);
+    precisions.add(precision);
+    scales.add(scale);
+    typeNames.add(typeName);
+  }
+
+  public String getSignature() {
+    return signature;
+  }
+
+  /**
+   * @return Object type as stored in the catalog, e.g. TABLE or VIEW
+   */
+  public String getObjectType() {
+    return objectType;
+  }
+
+  public int getColumnCount() {
+    return names.size();
+  }
+
+  public String[] getColumnNames() {
+    return names.toArray(new String[names.size()]);
+  }
+
+  public String getColumnName(int column) {
+    return names.get(column);
+  }
+
+  public int getColumnType(int column) {
+    return types.get(column);
+  }
+
+  public int getPrecision(int column) {
+    return precisions.get(column);
+  }
+
+  public int getScale(int column) {
+    return scales.get(column);
+  }
+
+  public String getColumnTypeName(int column) {
+    return typeNames.get(column);
+  }
+
+  public List<String> getColumns() {
+    return Collections.unmodifiableList(names);
+  }
+
+  /**
+   * Store the metadata into properties.
+   */
+  public Properties toProperties() {
+    Properties props = new Properties();
+    props.setProperty("signature", signature);
+    props.setProperty("objtype", objectType);
+    props.setProperty("columns", Integer.toString(names.size()));
+    for (int i = 0; i < names.size(); i++) {
+      String prefix = "column." + i + ".";
+      props.setProperty(prefix + "name", names.get(i));
+      props.setProperty(prefix + "type", types.get(i).toString());
+      props.setProperty(prefix + "precision", precisions.get(i).toString());
+      props.setProperty(prefix + "scale", scales.get(i).toString());
+      if (null != typeNames.get(i)) {
+        props.setProperty(prefix + "typename", typeNames.get(i));
+      }
+    }
+    return props;
+  }
+
+  /**
+   * Load the metadata stored by toProperties.
+   *
+   * @return Metadata or null if the properties are not complete
+   */
+  public static NetezzaTableMetadata fromProperties(Properties props) {
+    String signature = props.getProperty("signature");
+    String objectType = props.getProperty("objtype");
+    String columns = props.getProperty("columns");
+    if (null == signature || null == objectType || null == columns) {
+      return null;
+    }
+
+    try {
+      NetezzaTableMetadata metadata =
+          new NetezzaTableMetadata(signature, objectType);
+      int count = Integer.parseInt(columns);
+      for (int i = 0; i < count; i++) {
+        String prefix = "column." + i + ".";
+        String name = props.getProperty(prefix + "name");
+        if (null == name) {
+          return null;
+        }
+        metadata.addColumn(name,
+            Integer.parseInt(props.getProperty(prefix + "type")),
+            Integer.parseInt(props.getProperty(prefix + "precision")),
+            Integer.parseInt(props.getProperty(prefix + "scale")),
+            props.getProperty(prefix + "typename"));
+      }
+      return metadata;
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,206 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+
+package com.cloudera.sqoop.netezza;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Formats whole column batches as delimited text.
+ *
+ * The output is the same as the one produced by toString() of the generated
+ * record class, including escaping and enclosing of the values as done by
+ * FieldFormatter. The formatting works on UTF-8 encoded bytes, which is
+ * only possible when all delimiters are ASCII characters.
+ */
+public class NetezzaTextBatchFormatter {
+
+  private static final byte[] MIN_LONG =
+    Long.toString(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+
+  private final byte fieldDelim;
+  private final byte recordDelim;
+  private final byte enclose;
+  private final byte escape;
+  private final boolean encloseRequired;
+  private final byte[] nullString;
+  private final byte[] nullNonString;
+
+  // Formatted value before escaping
+  private byte[] scratch = new byte[64];
+
+  private byte[] buffer = new byte[64 * 1024];
+  private int length;
+
+  /**
+   * @return True if given delimiters can be used by the formatter
+   */
+  public static boolean isSupported(char fieldDelim, char recordDelim,
+                                    char enclose, char escape) {
+    return fieldDelim < 0x80 && recordDelim < 0x80 && enclose < 0x80
+      && escape < 0x80;
+  }
+
+  public NetezzaTextBatchFormatter(char fieldDelim, char recordDelim,
+      char enclose, char escape, boolean encloseRequired, String nullString,
+      String nullNonString) {
+    if (!isSupported(fieldDelim, recordDelim, enclose, escape)) {
+      throw new IllegalArgumentException("Delimiters must be ASCII characters");
+    }
+    this.fieldDelim = (byte) fieldDelim;
+    this.recordDelim = (byte) recordDelim;
+    this.enclose = (byte) enclose;
+    this.escape = (byte) escape;
+    this.encloseRequired = encloseRequired;
+    this.nullString = escapeAndEnclose(nullString);
+    this.nullNonString = escapeAndEnclose(nullNonString);
+  }
+
+  /**
+   * Format all rows of the batch, each of them followed by the record
+   * delimiter.
+   */
+  public void format(NetezzaColumnBatch batch) {
+    length = 0;
+    int columns = batch.getColumnCount();
+    for (int row = 0; row < batch.getSize(); row++) {
+      for (int column = 0; column < columns; column++) {
+        if (column > 0) {
+          append(fieldDelim);
+        }
+
+        if (batch.isNull(column, row)) {
+          append(NetezzaColumnBatch.isStringType(batch.getSqlType(column))
+            ? nullString : nullNonString);
+          continue;
+        }
+
+        switch (batch.getKind(column)) {
+          case NetezzaColumnBatch.KIND_LONG:
+            appendEscaped(scratch, 0,
+              formatLong(batch.getLong(column, row)));
+            break;
+          case NetezzaColumnBatch.KIND_FLOAT:
+            appendAscii(Float.toString((float) batch.getDouble(column, row)));
+            break;
+          case NetezzaColumnBatch.KIND_DOUBLE:
+            appendAscii(Double.toString(batch.getDouble(column, row)));
+            break;
+          default:
+            appendEscaped(batch.getText(column),
+              batch.getTextStart(column, row), batch.getTextEnd(column, row));
+        }
+      }
+      append(recordDelim);
+    }
+  }
+
+  /**
+   * @return Buffer holding the formatted batch
+   */
+  public byte[] getBytes() {
+    return buffer;
+  }
+
+  /**
+   * @return Number of valid bytes in the buffer
+   */
+  public int getLength() {
+    return length;
+  }
+
+  private byte[] escapeAndEnclose(String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    length = 0;
+    appendEscaped(bytes, 0, bytes.length);
+    return Arrays.copyOf(buffer, length);
+  }
+
+  /**
+   * Write digits of the value into scratch buffer.
+   *
+   * @return Number of written bytes
+   */
+  private int formatLong(long value) {
+    if (value == Long.MIN_VALUE) {
+      System.arraycopy(MIN_LONG, 0, scratch, 0, MIN_LONG.length);
+      return MIN_LONG.length;
+    }
+
+    long remaining = Math.abs(value);
+    int digits = 1;
+    for (long limit = 10; digits < 19 && remaining >= limit; limit *= 10) {
+      digits++;
+    }
+    int end = value < 0 ? digits + 1 : digits;
+    for (int i = end - 1; i >= end - digits; i--) {
+      scratch[i] = (byte) ('0' + remaining % 10);
+      remaining /= 10;
+    }
+    if (value < 0) {
+      scratch[0] = '-';
+    }
+    return end;
+  }
+
+  private void appendAscii(String value) {
+    int len = value.length();
+    for (int i = 0; i < len; i++) {
+      scratch[i] = (byte) value.charAt(i);
+    }
+    appendEscaped(scratch, 0, len);
+  }
+
+  /**
+   * Append value escaped and enclosed the same way as
+   * FieldFormatter.escapeAndEnclose does it.
+   */
+  private void appendEscaped(byte[] bytes, int start, int end) {
+    boolean escaping = escape != 0;
+    boolean enclosing = enclose != 0;
+
+    boolean doEnclose = enclosing && encloseRequired;
+    if (enclosing && !doEnclose) {
+      for (int i = start; i < end; i++) {
+        if (bytes[i] == fieldDelim || bytes[i] == recordDelim) {
+          doEnclose = true;
+          break;
+        }
+      }
+    }
+
+    ensureCapacity(2 * (end - start) + 2);
+    if (doEnclose) {
+      buffer[length++] = enclose;
+    }
+    for (int i = start; i < end; i++) {
+      byte b = bytes[i];
+      if (escaping && (b == escape || (enclosing && b == enclose)
+          || (!enclosing && (b == fieldDelim || b == recordDelim)))) {
+        buffer[length++] = escape;
+      }
+      buffer[length++] = b;
+    }
+    if (doEnclose) {
+      buffer[length++] = enclose;
+    }
+  }
+
+  private void append(byte b) {
+    ensureCapacity(1);
+    buffer[length++] = b;
+  }
+
+  private void append(byte[] bytes) {
+    ensureCapacity(bytes.length);
+    System.arraycopy(bytes, 0, buffer, length, bytes.length);
+    length += bytes.length;
+  }
+
+  private void ensureCapacity(int needed) {
+    if (buffer.length - length < needed) {
+      buffer = Arrays.copyOf(buffer,
+        Math.max(buffer.length * 2, length + needed));
+    }
+  }
+}
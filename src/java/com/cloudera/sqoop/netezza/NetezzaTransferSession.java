@@ -0,0 +1,216 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+
+package com.cloudera.sqoop.netezza;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.sqoop.mapreduce.db.DBConfiguration;
+
+import com.cloudera.sqoop.netezza.util.NetezzaUtil;
+
+import static com.cloudera.sqoop.netezza.util.NetezzaConstants.*;
+
+/**
+ * One Netezza session running an external table statement that reads or
+ * writes a FIFO shared with the task.
+ *
+ * The session logs in synchronously, so that connection problems fail the
+ * task right away, and runs the statement on the session executor. The
+ * outcome of the statement is available through the future.
+ */
+public class NetezzaTransferSession implements Callable<Void> {
+
+  public static final Log LOG = LogFactory.getLog(
+      NetezzaTransferSession.class.getName());
+
+  private final Configuration conf;
+  private final String direction;
+  private final String table;
+  private final TaskAttemptContext context;
+  private final NetezzaStatementCanceller canceller =
+      new NetezzaStatementCanceller();
+
+  private Connection conn;
+  private NetezzaSessionSlots slots;
+  private String sql;
+  private Future<Void> future;
+  private volatile long updateCount = -1;
+
+  /**
+   * @param conf Configuration with the connect string of the appliance
+   * @param direction NetezzaUtil.IMPORT or NetezzaUtil.EXPORT
+   * @param table Table name used for table specific session settings
+   * @param context Task reporting progress while waiting for a slot
+   */
+  public NetezzaTransferSession(Configuration conf, String direction,
+      String table, TaskAttemptContext context) {
+    this.conf = conf;
+    this.direction = direction;
+    this.table = table;
+    this.context = context;
+  }
+
+  /**
+   * Log in and apply the session settings.
+   *
+   * @param acquireSlot True if the session should wait for its own session
+   *        slot, false if the task holds the slots already
+   */
+  public void connect(boolean acquireSlot)
+      throws SQLException, IOException, InterruptedException {
+    if (acquireSlot) {
+      slots = NetezzaSessionSlots.acquire(conf, 1, context);
+    }
+
+    try {
+      // Use JDBC to connect to the database.
+      DBConfiguration dbConf = new DBConfiguration(conf);
+      try {
+        conn = dbConf.getConnection();
+      } catch (ClassNotFoundException cnfe) {
+        throw new SQLException(cnfe);
+      }
+      if (null == conn) {
+        throw new SQLException("Could not connect to database");
+      }
+      NetezzaUtil.applySessionSettings(conn, conf, direction, table);
+    } catch (SQLException sqlE) {
+      close();
+      throw sqlE;
+    }
+
+    LOG.debug("Opened database connection");
+  }
+
+  /**
+   * Start the statement on the session executor. The first parameter of the
+   * statement is bound to the NULL string. The session is closed once the
+   * statement completes.
+   *
+   * @return Future of the statement
+   */
+  public Future<Void> start(String statement) {
+    this.sql = statement;
+    LOG.info("Executing SQL statement: " + sql);
+    this.future = NetezzaSessionExecutor.get(conf).submit(this);
+    return future;
+  }
+
+  @Override
+  public Void call() throws SQLException {
+    PreparedStatement ps = null;
+    try {
+      ps = conn.prepareStatement(sql);
+      ps.setString(1, conf.get(PROPERTY_NULL_STRING, "null"));
+      ps.setQueryTimeout(
+          NetezzaUtil.getSessionTimeout(conf, direction, table));
+      canceller.start(ps);
+      try {
+        if (!ps.execute()) {
+          updateCount = ps.getUpdateCount();
+        }
+      } finally {
+        canceller.finish();
+      }
+      return null;
+    } catch (SQLException sqlE) {
+      LOG.error("Netezza statement failed: " + sqlE);
+      throw sqlE;
+    } finally {
+      if (null != ps) {
+        try {
+          ps.close();
+        } catch (SQLException sqlE) {
+          LOG.warn("Exception closing statement: " + sqlE);
+        }
+      }
+      close();
+    }
+  }
+
+  /**
+   * @return Future of the running statement or null if not started
+   */
+  public Future<Void> getFuture() {
+    return future;
+  }
+
+  /**
+   * @return Rows reported by the completed statement, -1 if unknown
+   */
+  public long getUpdateCount() {
+    return updateCount;
+  }
+
+  /**
+   * Cancel the statement, the data transferred so far are not committed.
+   */
+  public void cancel() {
+    canceller.cancel();
+  }
+
+  /**
+   * Wait for the statement to complete.
+   *
+   * @return Exception of the failed statement, null on success
+   */
+  public SQLException await() throws InterruptedException {
+    if (null == future) {
+      return null;
+    }
+    try {
+      future.get();
+      return null;
+    } catch (CancellationException e) {
+      return getFailure(e);
+    } catch (ExecutionException e) {
+      return getFailure(e);
+    }
+  }
+
+  private static SQLException getFailure(Exception e) {
+    if (e instanceof ExecutionException) {
+      if (e.getCause() instanceof SQLException) {
+        return (SQLException) e.getCause();
+      }
+      return new SQLException(e.getCause());
+    }
+    return new SQLException("Statement was cancelled", e);
+  }
+
+  /**
+   * Close the connection and release the session slot. Called by the
+   * session itself once the statement completes.
+   */
+  public synchronized void close() {
+    if (null != conn) {
+      try {
+        conn.close();
+      } catch (SQLException sqlE) {
+        // Exception closing the connection does not fail the task.
+        LOG.error("Exception closing connection: " + sqlE);
+      }
+      conn = null;
+    }
+    if (null != slots) {
+      try {
+        slots.close();
+      } catch (IOException ioe) {
+        // The ticket gets stale and is removed by other tasks.
+        LOG.warn("Exception releasing session slot: " + ioe);
+      }
+      slots = null;
+    }
+  }
+}
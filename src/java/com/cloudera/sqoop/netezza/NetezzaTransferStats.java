@@ -0,0 +1,257 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+
+package com.cloudera.sqoop.netezza;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+
+/**
+ * Throughput and backpressure statistics of the direct transfer of a task.
+ *
+ * Streams of the transport are wrapped to measure bytes and time blocked in
+ * them, the mapper adds records and time blocked in HDFS. Everything
+ * is collected in plain fields and published once as counters, together
+ * with a task status telling where the transfer waited. The fields of the
+ * transport streams may be updated by another thread, which must complete
+ * before {@link #report(TaskAttemptContext)} is called.
+ */
+public class NetezzaTransferStats {
+
+  public static final Log LOG = LogFactory.getLog(
+      NetezzaTransferStats.class.getName());
+
+  /** Upper bounds of the record size buckets, the last one is open. */
+  private static final int[] SIZE_BOUNDS = {64, 256, 1024, 4096, 16384, 65536};
+  private static final NetezzaCounter[] SIZE_COUNTERS = {
+    NetezzaCounter.NZ_RECORDS_UP_TO_64B,
+    NetezzaCounter.NZ_RECORDS_UP_TO_256B,
+    NetezzaCounter.NZ_RECORDS_UP_TO_1KB,
+    NetezzaCounter.NZ_RECORDS_UP_TO_4KB,
+    NetezzaCounter.NZ_RECORDS_UP_TO_16KB,
+    NetezzaCounter.NZ_RECORDS_UP_TO_64KB,
+    NetezzaCounter.NZ_RECORDS_OVER_64KB,
+  };
+
+  /** Records between checks whether the status should be refreshed. */
+  private static final int STATUS_RECORDS = 8192;
+  private static final long STATUS_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+  private final String name;
+  private final long created = System.nanoTime();
+
+  private long sessionStarted;
+  private long firstByte;
+  private long openNanos;
+  private long transportNanos;
+  private long hdfsNanos;
+  private long bytes;
+  private long records;
+  private long statementRows;
+  private boolean statementRowsKnown;
+  private final long[] sizes = new long[SIZE_COUNTERS.length];
+  private long lastStatus = created;
+
+  /**
+   * @param name Description of the transfer used in the task status
+   */
+  public NetezzaTransferStats(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Mark start of a session, the first one starts the time to first byte.
+   */
+  public void sessionStarted() {
+    if (0 == sessionStarted) {
+      sessionStarted = System.nanoTime();
+    }
+  }
+
+  /**
+   * Add time blocked in opening the transport.
+   */
+  public void addOpenNanos(long nanos) {
+    openNanos += nanos;
+  }
+
+  /**
+   * Add time blocked in reading or writing HDFS.
+   */
+  public void addHdfsNanos(long nanos) {
+    hdfsNanos += nanos;
+  }
+
+  /**
+   * Add rows reported by a completed Netezza statement.
+   *
+   * @param rows Update count of the statement, negative if unknown
+   */
+  public void addStatementRows(long rows) {
+    if (rows >= 0) {
+      statementRows += rows;
+      statementRowsKnown = true;
+    }
+  }
+
+  /**
+   * Count one record moved through the transport.
+   *
+   * @param size Size of the record in bytes
+   */
+  public void record(int size) {
+    records++;
+    int bucket = 0;
+    while (bucket < SIZE_BOUNDS.length && size > SIZE_BOUNDS[bucket]) {
+      bucket++;
+    }
+    sizes[bucket]++;
+  }
+
+  /**
+   * Count one text record moved through the transport.
+   *
+   * @param line Record without its delimiter, sized as UTF-8 like the
+   *        text written to HDFS
+   */
+  public void record(CharSequence line) {
+    int size = line.length() + 1;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (c >= 0x800) {
+        // Surrogates of a pair add two bytes each
+        size += Character.isSurrogate(c) ? 1 : 2;
+      } else if (c >= 0x80) {
+        size++;
+      }
+    }
+    record(size);
+  }
+
+  /**
+   * Refresh the task status now and then.
+   */
+  public void progress(TaskAttemptContext context) {
+    if (records % STATUS_RECORDS != 0) {
+      return;
+    }
+    long now = System.nanoTime();
+    if (now - lastStatus >= STATUS_NANOS) {
+      lastStatus = now;
+      context.setStatus(getStatus());
+    }
+  }
+
+  private void transferred(int n, long nanos) {
+    if (n > 0) {
+      if (0 == firstByte) {
+        firstByte = System.nanoTime();
+      }
+      bytes += n;
+    }
+    transportNanos += nanos;
+  }
+
+  /**
+   * @return Stream measuring reads of given transport stream
+   */
+  public InputStream wrap(InputStream in) {
+    return new FilterInputStream(in) {
+      @Override
+      public int read() throws IOException {
+        long start = System.nanoTime();
+        int b = super.read();
+        transferred(b == -1 ? -1 : 1, System.nanoTime() - start);
+        return b;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+        long start = System.nanoTime();
+        int n = super.read(b, off, len);
+        transferred(n, System.nanoTime() - start);
+        return n;
+      }
+    };
+  }
+
+  /**
+   * @return Stream measuring writes into given transport stream
+   */
+  public OutputStream wrap(OutputStream out) {
+    return new FilterOutputStream(out) {
+      @Override
+      public void write(int b) throws IOException {
+        long start = System.nanoTime();
+        out.write(b);
+        transferred(1, System.nanoTime() - start);
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+        long start = System.nanoTime();
+        out.write(b, off, len);
+        transferred(len, System.nanoTime() - start);
+      }
+    };
+  }
+
+  public long getBytes() {
+    return bytes;
+  }
+
+  public long getRecords() {
+    return records;
+  }
+
+  /**
+   * @return Summary of the transfer for the task status
+   */
+  public String getStatus() {
+    long elapsed = System.nanoTime() - created;
+    double seconds = elapsed / 1e9;
+    double megabytes = bytes / (1024.0 * 1024.0);
+    return String.format("%s: %d rows, %.1f MB in %.0f s (%.1f MB/s); "
+        + "blocked on open %.0f s, transport %.0f s, HDFS %.0f s",
+        name, records, megabytes, seconds,
+        seconds > 0 ? megabytes / seconds : 0.0, openNanos / 1e9,
+        transportNanos / 1e9, hdfsNanos / 1e9);
+  }
+
+  /**
+   * Publish the statistics as counters and task status.
+   */
+  public void report(TaskAttemptContext context) {
+    context.getCounter(NetezzaCounter.NZ_TRANSFER_ROWS).increment(records);
+    context.getCounter(NetezzaCounter.NZ_OPEN_WAIT_MILLIS)
+        .increment(TimeUnit.NANOSECONDS.toMillis(openNanos));
+    context.getCounter(NetezzaCounter.NZ_TRANSPORT_WAIT_MILLIS)
+        .increment(TimeUnit.NANOSECONDS.toMillis(transportNanos));
+    context.getCounter(NetezzaCounter.NZ_HDFS_WAIT_MILLIS)
+        .increment(TimeUnit.NANOSECONDS.toMillis(hdfsNanos));
+    if (0 != firstByte && 0 != sessionStarted) {
+      context.getCounter(NetezzaCounter.NZ_FIRST_BYTE_MILLIS).increment(
+          TimeUnit.NANOSECONDS.toMillis(firstByte - sessionStarted));
+    }
+    if (statementRowsKnown) {
+      context.getCounter(NetezzaCounter.NZ_STATEMENT_ROWS)
+          .increment(statementRows);
+    }
+    for (int i = 0; i < sizes.length; i++) {
+      if (sizes[i] > 0) {
+        context.getCounter(SIZE_COUNTERS[i]).increment(sizes[i]);
+      }
+    }
+
+    String status = getStatus();
+    LOG.info(status);
+    context.setStatus(status);
+  }
+}
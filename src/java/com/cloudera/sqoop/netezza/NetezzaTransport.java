@@ -0,0 +1,112 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+
+package com.cloudera.sqoop.netezza;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.Future;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.util.ReflectionUtils;
+
+/**
+ * Channel carrying the data between a task and its Netezza session.
+ *
+ * The external table statement refers to the channel by its location. The
+ * task opens its side of the channel once the session started, the session
+ * is started by the transport so that it can choose when the peer runs.
+ * The named FIFO is used by default, the implementation is chosen by
+ * {@link DirectNetezzaManager#NZ_TRANSPORT_CONF}.
+ */
+public abstract class NetezzaTransport implements Closeable {
+
+  /**
+   * Side of the channel used by the Netezza session.
+   */
+  public interface Peer {
+
+    /**
+     * Start the session reading or writing the channel.
+     *
+     * @return Future completing with the session
+     */
+    Future<?> start();
+  }
+
+  private Configuration conf;
+  private TaskAttemptContext context;
+  private String name;
+
+  /**
+   * Create the transport configured for the task.
+   *
+   * @param name Name of the channel unique within the task
+   */
+  public static NetezzaTransport create(TaskAttemptContext context,
+      String name) throws IOException {
+    Configuration conf = context.getConfiguration();
+    Class<? extends NetezzaTransport> transportClass = conf.getClass(
+        DirectNetezzaManager.NZ_TRANSPORT_CONF,
+        NetezzaFifoTransport.class, NetezzaTransport.class);
+    NetezzaTransport transport =
+        ReflectionUtils.newInstance(transportClass, conf);
+    transport.initialize(context, name);
+    return transport;
+  }
+
+  /**
+   * Prepare the channel before the location is used in a statement.
+   */
+  public void initialize(TaskAttemptContext taskContext, String channelName)
+      throws IOException {
+    this.context = taskContext;
+    this.conf = taskContext.getConfiguration();
+    this.name = channelName;
+  }
+
+  protected Configuration getConf() {
+    return conf;
+  }
+
+  protected TaskAttemptContext getContext() {
+    return context;
+  }
+
+  protected String getName() {
+    return name;
+  }
+
+  /**
+   * @return Location of the channel used in the external table clause
+   */
+  public abstract String getLocation();
+
+  /**
+   * Start the peer writing into the channel and open its read side.
+   *
+   * @return Stream with the data or null if the peer finished without
+   *         delivering any, the outcome of the peer tells why
+   */
+  public abstract InputStream openInput(Peer peer)
+      throws IOException, InterruptedException;
+
+  /**
+   * Open the write side of the channel for the peer reading from it. The
+   * peer may be started later, but no later than the stream is closed.
+   *
+   * @return Stream delivering the data or null if the peer finished
+   *         without reading the channel, the outcome of the peer tells why
+   */
+  public abstract OutputStream openOutput(Peer peer)
+      throws IOException, InterruptedException;
+
+  /**
+   * Release the channel once the peer completed.
+   */
+  @Override
+  public void close() throws IOException {
+  }
+}
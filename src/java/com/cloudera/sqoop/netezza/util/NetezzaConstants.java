@@ -13,6 +13,68 @@ public final class NetezzaConstants {
   public static final String PROPERTY_NULL_STRING =
     "com.cloudera.sqoop.netezza.null.string";
 
+  /**
+   * Internal property that will be saved into mapreduce job to transfer text
+   * that should be used to encode NULL values of non string columns.
+   */
+  public static final String PROPERTY_NULL_NON_STRING =
+    "com.cloudera.sqoop.netezza.null.non.string";
+
+  /**
+   * Internal property that switches JDBC imports to column batches.
+   */
+  public static final String PROPERTY_COLUMNAR_IMPORT =
+    "com.cloudera.sqoop.netezza.columnar.import";
+
+  /**
+   * Internal property holding the index of the routing column inside of
+   * the exported text records.
+   */
+  public static final String PROPERTY_ROUTE_COLUMN_INDEX =
+    "com.cloudera.sqoop.netezza.route.column.index";
+
+  /**
+   * Internal property holding the value=table routing pairs with already
+   * escaped table names.
+   */
+  public static final String PROPERTY_ROUTE_TABLES =
+    "com.cloudera.sqoop.netezza.route.tables";
+
+  /**
+   * Internal property holding limits of the exported columns as described
+   * by NetezzaFieldValidator.
+   */
+  public static final String PROPERTY_FIELD_LIMITS =
+    "com.cloudera.sqoop.netezza.field.limits";
+
+  /**
+   * Internal property holding the number of tables read by a multi-table
+   * import. Names of the tables are stored in PROPERTY_BATCH_TABLE.i.name
+   * and escaped names in PROPERTY_BATCH_TABLE.i.sql properties.
+   */
+  public static final String PROPERTY_BATCH_TABLE_COUNT =
+    "com.cloudera.sqoop.netezza.batch.table.count";
+
+  /**
+   * Prefix of internal properties describing tables of a multi-table import.
+   */
+  public static final String PROPERTY_BATCH_TABLE =
+    "com.cloudera.sqoop.netezza.batch.table";
+
+  /**
+   * Internal property holding the number of slice groups every table of a
+   * multi-table import is split into.
+   */
+  public static final String PROPERTY_BATCH_SLICES =
+    "com.cloudera.sqoop.netezza.batch.slices";
+
+  /**
+   * Internal property holding the escaped columns of the staging table of a
+   * parallel update export in the order the records bind them.
+   */
+  public static final String PROPERTY_UPDATE_STAGING_COLUMNS =
+    "com.cloudera.sqoop.netezza.update.staging.columns";
+
   private NetezzaConstants() {
     // Not meant to be instantied
   }
@@ -0,0 +1,178 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+package com.cloudera.sqoop.netezza.util;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Emits Java Flight Recorder events for the phases of a direct transfer.
+ *
+ * Each phase is one duration event of type
+ * com.cloudera.sqoop.netezza.TransferPhase with the name of the phase, the
+ * table and the task attempt. The connector is built for Java 8, so the
+ * event type is defined at runtime through jdk.jfr.EventFactory, which is
+ * available since Java 11. Other JVMs get no events. Events are only
+ * created while a recording is enabled for them, so the phases may stay
+ * instrumented in production.
+ */
+public final class NetezzaFlightRecorder {
+
+  public static final Log LOG =
+      LogFactory.getLog(NetezzaFlightRecorder.class.getName());
+
+  public static final String EVENT_NAME =
+      "com.cloudera.sqoop.netezza.TransferPhase";
+
+  // Phases of a transfer
+  public static final String CONNECT = "connect";
+  public static final String FIFO_CREATE = "fifo-create";
+  public static final String FIFO_OPEN = "fifo-open";
+  public static final String FIRST_BYTE = "first-byte";
+  public static final String STEADY_STATE = "steady-state";
+  public static final String STATEMENT = "statement";
+  public static final String LOG_UPLOAD = "log-upload";
+
+  /** Phase that is not recorded. */
+  private static final Phase DISABLED = new Phase(null);
+
+  private static boolean initialized;
+  private static Object factory;
+  private static Method newEvent;
+  private static Method isEnabled;
+  private static Method begin;
+  private static Method set;
+  private static Method commit;
+
+  /**
+   * One running phase.
+   */
+  public static final class Phase {
+    private final Object event;
+
+    private Phase(Object event) {
+      this.event = event;
+    }
+
+    /**
+     * Finish the phase and commit its event.
+     */
+    public void end() {
+      if (null == event) {
+        return;
+      }
+      try {
+        commit.invoke(event);
+      } catch (ReflectiveOperationException e) {
+        LOG.debug("Can't commit flight recorder event: " + e);
+      }
+    }
+  }
+
+  /**
+   * Start a phase of the transfer.
+   *
+   * @param phase Name of the phase
+   * @param table Table being transferred, might be null
+   * @param task Task attempt running the transfer, might be null
+   * @return Phase to be ended once it completes
+   */
+  public static Phase begin(String phase, String table, String task) {
+    if (!isAvailable()) {
+      return DISABLED;
+    }
+    try {
+      Object event = newEvent.invoke(factory);
+      if (!(Boolean) isEnabled.invoke(event)) {
+        return DISABLED;
+      }
+      set.invoke(event, 0, phase);
+      set.invoke(event, 1, table);
+      set.invoke(event, 2, task);
+      begin.invoke(event);
+      return new Phase(event);
+    } catch (ReflectiveOperationException e) {
+      LOG.debug("Can't create flight recorder event: " + e);
+      return DISABLED;
+    }
+  }
+
+  /**
+   * @return True if the event type was registered
+   */
+  public static synchronized boolean isAvailable() {
+    if (initialized) {
+      return null != factory;
+    }
+    initialized = true;
+
+    try {
+      Class<?> annotationClass = Class.forName("jdk.jfr.AnnotationElement");
+      Class<?> descriptorClass = Class.forName("jdk.jfr.ValueDescriptor");
+      Class<?> factoryClass = Class.forName("jdk.jfr.EventFactory");
+      Class<?> eventClass = Class.forName("jdk.jfr.Event");
+      Constructor<?> annotation =
+          annotationClass.getConstructor(Class.class, Object.class);
+      Constructor<?> descriptor = descriptorClass.getConstructor(Class.class,
+          String.class, List.class);
+
+      List<Object> annotations = Arrays.asList(
+          annotation.newInstance(annotationType("jdk.jfr.Name"), EVENT_NAME),
+          annotation.newInstance(annotationType("jdk.jfr.Label"),
+              "Netezza Transfer Phase"),
+          annotation.newInstance(annotationType("jdk.jfr.Category"),
+              new String[] {"Sqoop", "Netezza"}),
+          annotation.newInstance(annotationType("jdk.jfr.Description"),
+              "Phase of a direct transfer between Netezza and Hadoop"),
+          annotation.newInstance(annotationType("jdk.jfr.StackTrace"),
+              Boolean.FALSE));
+      List<Object> fields = Arrays.asList(
+          descriptor.newInstance(String.class, "phase",
+              labels(annotation, "Phase")),
+          descriptor.newInstance(String.class, "table",
+              labels(annotation, "Table")),
+          descriptor.newInstance(String.class, "task",
+              labels(annotation, "Task Attempt")));
+
+      factory = factoryClass.getMethod("create", List.class, List.class)
+          .invoke(null, annotations, fields);
+      newEvent = factoryClass.getMethod("newEvent");
+      isEnabled = eventClass.getMethod("isEnabled");
+      begin = eventClass.getMethod("begin");
+      set = eventClass.getMethod("set", int.class, Object.class);
+      commit = eventClass.getMethod("commit");
+      return true;
+    } catch (ClassNotFoundException e) {
+      LOG.debug("Flight recorder events are not available in this JVM");
+    } catch (ReflectiveOperationException e) {
+      LOG.warn("Can't register flight recorder events: " + e);
+    } catch (RuntimeException e) {
+      // SecurityException or IllegalArgumentException of the factory
+      LOG.warn("Can't register flight recorder events: " + e);
+    }
+    factory = null;
+    return false;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Class<? extends Annotation> annotationType(String name)
+      throws ClassNotFoundException {
+    return (Class<? extends Annotation>) Class.forName(name);
+  }
+
+  private static List<Object> labels(Constructor<?> annotation, String label)
+      throws ReflectiveOperationException {
+    return Collections.singletonList(
+        annotation.newInstance(annotationType("jdk.jfr.Label"), label));
+  }
+
+  private NetezzaFlightRecorder() {
+    // Disable explicit object creation
+  }
+}
@@ -0,0 +1,286 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+package com.cloudera.sqoop.netezza.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IOUtils;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.GzipCodec;
+import org.apache.hadoop.util.ReflectionUtils;
+
+import com.cloudera.sqoop.netezza.DirectNetezzaManager;
+
+/**
+ * Uploads nzlog and nzbad files produced by Netezza into HDFS and converts
+ * the rejected records into structured reject files.
+ *
+ * Files are compressed and uploaded in parallel. For every nzlog file with
+ * bad records a reject file is created containing one tab separated line
+ * per rejected record: bad record number, input row, field number, field
+ * type, reason and the original record taken from the matching nzbad file.
+ */
+public class NetezzaLogUploader {
+
+  public static final Log LOG =
+    LogFactory.getLog(NetezzaLogUploader.class.getName());
+
+  /** Suffix of the structured reject files. */
+  public static final String REJECTS_SUFFIX = ".rejects";
+
+  private static final String NZLOG_SUFFIX = ".nzlog";
+  private static final String NZBAD_SUFFIX = ".nzbad";
+
+  // Bad record line in nzlog, e.g.:
+  // 1: 1(7) [2, INT4] expected field delimiter or end of record, "twenty"[t]
+  private static final Pattern BAD_RECORD = Pattern.compile(
+    "^\\s*(\\d+):\\s+(\\d+)\\(\\d+\\)\\s+\\[(\\d+),\\s*([^\\]]*)\\]\\s+"
+    + "(.*?)(?:,\\s+\".*)?$");
+
+  /**
+   * One record rejected by Netezza as described in nzlog file.
+   */
+  public static class BadRecord {
+    private final long number;
+    private final long row;
+    private final int field;
+    private final String fieldType;
+    private final String reason;
+
+    public BadRecord(long number, long row, int field, String fieldType,
+                     String reason) {
+      this.number = number;
+      this.row = row;
+      this.field = field;
+      this.fieldType = fieldType;
+      this.reason = reason;
+    }
+
+    public long getNumber() {
+      return number;
+    }
+
+    public long getRow() {
+      return row;
+    }
+
+    public int getField() {
+      return field;
+    }
+
+    public String getFieldType() {
+      return fieldType;
+    }
+
+    public String getReason() {
+      return reason;
+    }
+  }
+
+  private final Configuration conf;
+  private final String prefix;
+
+  /**
+   * @param conf Job configuration
+   * @param prefix Prefix for all uploaded files
+   */
+  public NetezzaLogUploader(Configuration conf, String prefix) {
+    this.conf = conf;
+    this.prefix = prefix;
+  }
+
+  /**
+   * Parse bad records from nzlog file content.
+   *
+   * @param reader Reader of the nzlog file
+   * @return Bad records in order of appearance
+   */
+  public static List<BadRecord> parseBadRecords(BufferedReader reader)
+      throws IOException {
+    List<BadRecord> records = new ArrayList<BadRecord>();
+    String line;
+    while ((line = reader.readLine()) != null) {
+      Matcher m = BAD_RECORD.matcher(line);
+      if (m.matches()) {
+        records.add(new BadRecord(Long.parseLong(m.group(1)),
+          Long.parseLong(m.group(2)), Integer.parseInt(m.group(3)),
+          m.group(4).trim(), m.group(5).trim()));
+      }
+    }
+    return records;
+  }
+
+  /**
+   * Upload all files from LOGDIR and create the structured reject files.
+   *
+   * @return Number of records rejected by Netezza
+   */
+  public long upload() {
+    String logDir = conf.get(DirectNetezzaManager.NZ_LOGDIR_CONF);
+    File[] files = new File(logDir).listFiles();
+    if (files == null) {
+      LOG.warn("Can't list Netezza log directory " + logDir);
+      return 0;
+    }
+
+    long rejected = 0;
+    for (File file : files) {
+      if (file.getName().endsWith(NZLOG_SUFFIX)) {
+        rejected += countBadRecords(file);
+      }
+    }
+
+    if (!NetezzaUtil.isNzLogUploadEnabled(conf)) {
+      LOG.info("Netezza log upload is disabled, skipping uploading logs.");
+      return rejected;
+    }
+
+    final FileSystem fs;
+    try {
+      fs = FileSystem.get(conf);
+    } catch (IOException e) {
+      LOG.error("Can't upload logs to HDFS", e);
+      return rejected;
+    }
+
+    int threads = Math.max(1,
+      conf.getInt(DirectNetezzaManager.NZ_UPLOAD_THREADS_CONF, 4));
+    ExecutorService executor = Executors.newFixedThreadPool(
+      Math.min(threads, Math.max(1, files.length)));
+    try {
+      List<Future<Void>> uploads = new ArrayList<Future<Void>>();
+      for (final File file : files) {
+        uploads.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws IOException {
+            uploadFile(fs, file);
+            if (file.getName().endsWith(NZLOG_SUFFIX)) {
+              uploadRejects(fs, file);
+            }
+            return null;
+          }
+        }));
+      }
+
+      for (int i = 0; i < uploads.size(); i++) {
+        try {
+          uploads.get(i).get();
+        } catch (ExecutionException e) {
+          LOG.error("Can't upload file: " + files[i], e.getCause());
+        }
+      }
+    } catch (InterruptedException e) {
+      LOG.error("Interrupted while uploading logs to HDFS", e);
+      Thread.currentThread().interrupt();
+    } finally {
+      executor.shutdownNow();
+    }
+
+    return rejected;
+  }
+
+  private long countBadRecords(File nzlog) {
+    BufferedReader reader = null;
+    try {
+      reader = openReader(nzlog);
+      return parseBadRecords(reader).size();
+    } catch (IOException e) {
+      LOG.error("Can't parse Netezza log file: " + nzlog, e);
+      return 0;
+    } finally {
+      IOUtils.closeStream(reader);
+    }
+  }
+
+  private void uploadFile(FileSystem fs, File file) throws IOException {
+    LOG.info("Uploading file " + file);
+    InputStream in = new FileInputStream(file);
+    OutputStream out = null;
+    try {
+      out = createOutput(fs, prefix + '-' + file.getName());
+      IOUtils.copyBytes(in, out, conf, false);
+    } finally {
+      IOUtils.closeStream(out);
+      IOUtils.closeStream(in);
+    }
+  }
+
+  /**
+   * Join bad records from nzlog file with original records from matching
+   * nzbad file and store them as tab separated file.
+   */
+  private void uploadRejects(FileSystem fs, File nzlog) throws IOException {
+    String baseName = nzlog.getName().substring(0,
+      nzlog.getName().length() - NZLOG_SUFFIX.length());
+    File nzbad = new File(nzlog.getParentFile(), baseName + NZBAD_SUFFIX);
+
+    BufferedReader logReader = null;
+    BufferedReader badReader = null;
+    Writer writer = null;
+    try {
+      logReader = openReader(nzlog);
+      List<BadRecord> records = parseBadRecords(logReader);
+      if (records.isEmpty()) {
+        return;
+      }
+
+      if (nzbad.exists()) {
+        badReader = openReader(nzbad);
+      }
+      writer = new OutputStreamWriter(
+        createOutput(fs, prefix + '-' + baseName + REJECTS_SUFFIX),
+        StandardCharsets.UTF_8);
+      for (BadRecord record : records) {
+        String original = badReader == null ? null : badReader.readLine();
+        writer.write(record.getNumber() + "\t" + record.getRow() + "\t"
+          + record.getField() + "\t" + record.getFieldType() + "\t"
+          + record.getReason() + "\t" + (original == null ? "" : original)
+          + "\n");
+      }
+    } finally {
+      IOUtils.closeStream(writer);
+      IOUtils.closeStream(badReader);
+      IOUtils.closeStream(logReader);
+    }
+  }
+
+  private OutputStream createOutput(FileSystem fs, String name)
+      throws IOException {
+    String uploadDir = conf.get(DirectNetezzaManager.NZ_UPLOADDIR_CONF);
+    if (!conf.getBoolean(DirectNetezzaManager.NZ_UPLOAD_COMPRESS_CONF, true)) {
+      return fs.create(new Path(uploadDir, name));
+    }
+
+    CompressionCodec codec = ReflectionUtils.newInstance(GzipCodec.class,
+      conf);
+    return codec.createOutputStream(fs.create(
+      new Path(uploadDir, name + codec.getDefaultExtension())));
+  }
+
+  private static BufferedReader openReader(File file) throws IOException {
+    return new BufferedReader(new InputStreamReader(new FileInputStream(file),
+      StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,149 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+package com.cloudera.sqoop.netezza.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+
+import com.cloudera.sqoop.netezza.DirectNetezzaManager;
+
+/**
+ * Changes capacity of the kernel pipe behind a FIFO.
+ *
+ * Linux pipes hold 64 KB by default, so fast transfers switch between the
+ * threads reading and writing the FIFO all the time. The capacity is set by
+ * fcntl(F_SETPIPE_SZ) on a descriptor opened just for that purpose once both
+ * sides have the FIFO open. Java can't call fcntl, so JNA is required at
+ * runtime. It is a dependency of the connector and is loaded reflectively,
+ * so that tasks without jna.jar on their classpath or on other systems
+ * leave the FIFO as is.
+ */
+public final class NetezzaPipeSizer {
+
+  public static final Log LOG =
+      LogFactory.getLog(NetezzaPipeSizer.class.getName());
+
+  // Linux values of open(2) and fcntl(2) constants
+  private static final int O_RDWR = 02;
+  private static final int O_NONBLOCK = 04000;
+  private static final int F_SETPIPE_SZ = 1031;
+
+  private static final File PIPE_MAX_SIZE =
+      new File("/proc/sys/fs/pipe-max-size");
+
+  private static boolean initialized;
+  private static Method invokeInt;
+  private static Object openFunction;
+  private static Object fcntlFunction;
+  private static Object closeFunction;
+
+  /**
+   * Enlarge the pipe of a FIFO opened by both sides to the capacity
+   * configured by {@link DirectNetezzaManager#NZ_PIPE_SIZE_CONF}.
+   *
+   * @return New capacity of the pipe or -1 if it was not changed
+   */
+  public static int resize(Configuration conf, File fifo) {
+    int size = conf.getInt(DirectNetezzaManager.NZ_PIPE_SIZE_CONF, 0);
+    if (size <= 0 || !isAvailable()) {
+      return -1;
+    }
+
+    int target = Math.min(size, getMaxSize(size));
+    try {
+      int fd = call(openFunction, fifo.getAbsolutePath(),
+          O_RDWR | O_NONBLOCK);
+      if (fd < 0) {
+        LOG.debug("Can't open " + fifo + " to change the pipe size");
+        return -1;
+      }
+      try {
+        int capacity = call(fcntlFunction, fd, F_SETPIPE_SZ, target);
+        if (capacity < 0) {
+          LOG.debug("Can't change pipe size of " + fifo + " to " + target);
+          return -1;
+        }
+        LOG.debug("Pipe size of " + fifo + " is " + capacity);
+        return capacity;
+      } finally {
+        call(closeFunction, fd);
+      }
+    } catch (ReflectiveOperationException e) {
+      LOG.warn("Can't change pipe size of " + fifo + ": " + e);
+      return -1;
+    }
+  }
+
+  /**
+   * @return Largest pipe capacity allowed for unprivileged processes
+   */
+  private static int getMaxSize(int defaultSize) {
+    // Sizes of /proc files are not reliable, read up to the end of line
+    BufferedReader reader = null;
+    try {
+      reader = new BufferedReader(new InputStreamReader(
+          new FileInputStream(PIPE_MAX_SIZE), StandardCharsets.US_ASCII));
+      String line = reader.readLine();
+      return null == line ? defaultSize : Integer.parseInt(line.trim());
+    } catch (IOException e) {
+      return defaultSize;
+    } catch (NumberFormatException e) {
+      return defaultSize;
+    } finally {
+      IOUtils.closeQuietly(reader);
+    }
+  }
+
+  private static int call(Object function, Object... args)
+      throws ReflectiveOperationException {
+    return (Integer) invokeInt.invoke(function, new Object[] {args});
+  }
+
+  /**
+   * @return True if the C library functions were found
+   */
+  private static synchronized boolean isAvailable() {
+    if (initialized) {
+      return null != invokeInt;
+    }
+    initialized = true;
+
+    if (!PIPE_MAX_SIZE.exists()) {
+      LOG.info("Pipe size can't be changed on this system");
+      return false;
+    }
+    try {
+      Class<?> libraryClass = Class.forName("com.sun.jna.NativeLibrary");
+      Class<?> functionClass = Class.forName("com.sun.jna.Function");
+      Object libc = libraryClass.getMethod("getInstance", String.class)
+          .invoke(null, "c");
+      Method getFunction = libraryClass.getMethod("getFunction",
+          String.class);
+      openFunction = getFunction.invoke(libc, "open");
+      fcntlFunction = getFunction.invoke(libc, "fcntl");
+      closeFunction = getFunction.invoke(libc, "close");
+      invokeInt = functionClass.getMethod("invokeInt", Object[].class);
+      return true;
+    } catch (ClassNotFoundException e) {
+      LOG.info("JNA is not available, pipe size of FIFOs is not changed");
+    } catch (ReflectiveOperationException e) {
+      LOG.warn("Can't load C library functions: " + e);
+    } catch (LinkageError e) {
+      LOG.warn("Can't load C library: " + e);
+    }
+    return false;
+  }
+
+  private NetezzaPipeSizer() {
+    // Disable explicit object creation
+  }
+}
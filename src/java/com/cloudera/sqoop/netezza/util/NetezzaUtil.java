@@ -3,7 +3,14 @@ package com.cloudera.sqoop.netezza.util;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.logging.Log;
@@ -11,8 +18,6 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
 
 import com.cloudera.sqoop.netezza.DirectNetezzaManager;
-import org.apache.hadoop.fs.FileSystem;
-import org.apache.hadoop.fs.Path;
 
 /**
  * Convenience methods for Netezza connector.
@@ -21,6 +26,10 @@ public final class NetezzaUtil {
 
   public static final Log LOG = LogFactory.getLog(NetezzaUtil.class.getName());
 
+  // Directions of transfers used in session specific configuration keys
+  public static final String IMPORT = "import";
+  public static final String EXPORT = "export";
+
   // List of items that needs to be de-escaped in order to be consistent with
   // upstream sqoop interpretation of the NULL string related parameters.
   private static final Map<String, String> REMOVE_ESCAPE_CHARS;
@@ -64,42 +73,59 @@ public final class NetezzaUtil {
     }
   }
 
+  /**
+   * Point LOGDIR to a subdirectory of the directory given by the user.
+   * Netezza names the nzlog and nzbad files after the database and table
+   * only, so every statement needs its own subdirectory to keep its logs
+   * apart from logs of other tasks and of earlier attempts, which would
+   * otherwise be overwritten, uploaded and counted again.
+   *
+   * @param conf Configuration of the statement, LOGDIR is updated in place
+   * @param logDir LOGDIR given by the user, might be null
+   * @param name Name of the subdirectory, unique for the statement
+   */
+  public static void setStatementLogDirectory(Configuration conf,
+      String logDir, String name) {
+    if (logDir != null && logDir.trim().length() > 0) {
+      conf.set(DirectNetezzaManager.NZ_LOGDIR_CONF,
+          new File(logDir.trim(), name).getPath());
+    }
+  }
+
   /**
    * Uploads Netezza logs into HDFS directory.
    *
    * @param configuration Job configuration
    * @param prefix Prefix for all uploaded files
+   * @return Number of records rejected by Netezza according to the logs
    */
-  public static void uploadLogsToHdfsIfSpecified(Configuration configuration, String prefix) {
+  public static long uploadLogsToHdfsIfSpecified(Configuration configuration, String prefix) {
     if (!isNzLogEnabled(configuration)) {
       LOG.info("Netezza logging is disabled, skipping uploading logs.");
-      return;
-    }
-
-    if(!isNzLogUploadEnabled(configuration)) {
-      LOG.info("Netezza log upload is disabled, skipping uploading logs.");
-      return;
+      return 0;
     }
 
-    String logDir = configuration.get(DirectNetezzaManager.NZ_LOGDIR_CONF);
-    String uploadDir = configuration.get(DirectNetezzaManager.NZ_UPLOADDIR_CONF);
-
-    FileSystem fs = null;
+    NetezzaFlightRecorder.Phase phase = NetezzaFlightRecorder.begin(
+        NetezzaFlightRecorder.LOG_UPLOAD, null, prefix);
     try {
-      fs = FileSystem.get(configuration);
-    } catch (IOException e) {
-      LOG.error("Can't upload logs to HDFS", e);
-      return;
+      return new NetezzaLogUploader(configuration, prefix).upload();
+    } finally {
+      phase.end();
     }
+  }
 
-    for(File file : new File(logDir).listFiles()) {
-      LOG.info("Uploading file " + file);
-      try {
-        fs.copyFromLocalFile(new Path(file.getAbsolutePath()), new Path(uploadDir, prefix + '-' + file.getName() ));
-      } catch (IOException e) {
-        LOG.error("Can't upload file: " + file, e);
-      }
-    }
+  /**
+   * Run the job in the client JVM using the local job runner. Map tasks run
+   * as threads, up to the given number of them at once.
+   *
+   * @param conf Configuration of the job
+   * @param threads Maximal number of concurrently running map tasks
+   */
+  public static void configureLocalJobRunner(Configuration conf,
+      int threads) {
+    conf.set("mapreduce.framework.name", "local");
+    conf.set("mapreduce.jobtracker.address", "local");
+    conf.setInt("mapreduce.local.map.tasks.maximum", threads);
   }
 
   public static boolean isNzLogEnabled(Configuration configuration) {
@@ -125,6 +151,156 @@ public final class NetezzaUtil {
     return str;
   }
 
+  /**
+   * Parse routing specification in form "value=table,value2=table2".
+   *
+   * @param spec Routing specification, might be null
+   * @return Ordered map from routing value to the table name
+   */
+  public static Map<String, String> parseRouteTables(String spec) {
+    Map<String, String> routes = new LinkedHashMap<String, String>();
+    if (spec == null || spec.trim().isEmpty()) {
+      return routes;
+    }
+
+    for (String pair : spec.split(",")) {
+      int eqIndex = pair.indexOf('=');
+      if (eqIndex <= 0 || eqIndex == pair.length() - 1) {
+        throw new IllegalArgumentException("Invalid routing entry '" + pair
+          + "', expected value=table");
+      }
+      routes.put(pair.substring(0, eqIndex).trim(),
+        pair.substring(eqIndex + 1).trim());
+    }
+
+    return routes;
+  }
+
+  /**
+   * Extract value of one field from delimited text record without decoding
+   * the whole record. Escaped delimiters are skipped, the escape characters
+   * themselves are left in the returned value.
+   *
+   * @param bytes UTF-8 encoded record
+   * @param length Number of valid bytes in the array
+   * @param index Zero based index of the requested field
+   * @param fieldDelim Field delimiter
+   * @param escape Escape character or '\000' if escaping is not used
+   * @return Value of the field or null if the record is too short
+   */
+  public static String extractField(byte[] bytes, int length, int index,
+                                    char fieldDelim, char escape) {
+    int field = 0;
+    int start = 0;
+    for (int i = 0; i < length; i++) {
+      if (escape != '\000' && bytes[i] == escape) {
+        i++;
+      } else if (bytes[i] == fieldDelim) {
+        if (field == index) {
+          return new String(bytes, start, i - start, StandardCharsets.UTF_8);
+        }
+        field++;
+        start = i + 1;
+      }
+    }
+
+    if (field == index) {
+      return new String(bytes, start, length - start, StandardCharsets.UTF_8);
+    }
+    return null;
+  }
+
+  /**
+   * Get session setting of a transfer. The most specific of following keys
+   * wins, e.g. for key nz.session.priority, export and table T1:
+   * nz.export.session.priority.T1, nz.export.session.priority and
+   * nz.session.priority.
+   *
+   * @param conf Job configuration
+   * @param key Common configuration key starting with "nz."
+   * @param direction IMPORT or EXPORT
+   * @param table Table name as used by the job, quotes are ignored
+   * @return Value of the setting or null if not set
+   */
+  public static String getSessionSetting(Configuration conf, String key,
+                                         String direction, String table) {
+    String directionKey = "nz." + direction + key.substring(2);
+    if (null != table) {
+      String value = conf.get(directionKey + "." + table.replace("\"", ""));
+      if (null != value) {
+        return value;
+      }
+    }
+    return conf.get(directionKey, conf.get(key));
+  }
+
+  /**
+   * Build statements configuring the session of a transfer.
+   *
+   * @return Statements to run right after connecting
+   */
+  public static List<String> getSessionStatements(Configuration conf,
+      String direction, String table) {
+    List<String> statements = new ArrayList<String>();
+    String priority = getSessionSetting(conf,
+        DirectNetezzaManager.NZ_SESSION_PRIORITY_CONF, direction, table);
+    if (null != priority && !priority.trim().isEmpty()) {
+      if (!priority.trim().matches("[A-Za-z]+")) {
+        throw new IllegalArgumentException("Invalid session priority '"
+          + priority + "'");
+      }
+      statements.add("ALTER SESSION SET PRIORITY TO " + priority.trim());
+    }
+
+    String sql = getSessionSetting(conf,
+        DirectNetezzaManager.NZ_SESSION_SQL_CONF, direction, table);
+    if (null != sql) {
+      for (String statement : sql.split(";")) {
+        if (!statement.trim().isEmpty()) {
+          statements.add(statement.trim());
+        }
+      }
+    }
+    return statements;
+  }
+
+  /**
+   * @return Timeout of the transfer statement in seconds, 0 for no timeout
+   */
+  public static int getSessionTimeout(Configuration conf, String direction,
+                                      String table) {
+    String timeout = getSessionSetting(conf,
+        DirectNetezzaManager.NZ_SESSION_TIMEOUT_CONF, direction, table);
+    return null == timeout ? 0 : Integer.parseInt(timeout.trim());
+  }
+
+  /**
+   * Run the statements configuring the session of a transfer.
+   */
+  public static void applySessionSettings(Connection conn,
+      Configuration conf, String direction, String table)
+      throws SQLException {
+    List<String> statements;
+    try {
+      statements = getSessionStatements(conf, direction, table);
+    } catch (IllegalArgumentException e) {
+      throw new SQLException(e);
+    }
+    if (statements.isEmpty()) {
+      return;
+    }
+
+    Statement stmt = conn.createStatement();
+    try {
+      for (String statement : statements) {
+        LOG.info("Executing session statement: " + statement);
+        stmt.execute(statement);
+      }
+    } finally {
+      stmt.close();
+    }
+  }
+
   /**
    * Null safe comparison of two String objects.
    *
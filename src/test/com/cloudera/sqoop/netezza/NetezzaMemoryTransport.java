@@ -0,0 +1,220 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+
+package com.cloudera.sqoop.netezza;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+
+/**
+ * Transport passing the data through a bounded buffer inside of the JVM.
+ *
+ * Netezza can't reach such a channel, so the transport exists only for
+ * tests of the encoding and decoding code. Their peer, a session injected
+ * into the mappers, looks up its side of the channel by location using
+ * {@link #openPeerInput(String)} or {@link #openPeerOutput(String)}.
+ */
+public class NetezzaMemoryTransport extends NetezzaTransport {
+
+  public static final String BUFFER_SIZE_CONF = "nz.transport.memory.buffer";
+  public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+
+  private static final String LOCATION_PREFIX = "memory:";
+
+  /** Channels of running transfers indexed by location. */
+  private static final ConcurrentMap<String, Pipe> PIPES =
+      new ConcurrentHashMap<String, Pipe>();
+
+  private String location;
+
+  @Override
+  public void initialize(TaskAttemptContext taskContext, String channelName)
+      throws IOException {
+    super.initialize(taskContext, channelName);
+    this.location = LOCATION_PREFIX + taskContext.getTaskAttemptID() + "/"
+        + channelName;
+  }
+
+  @Override
+  public String getLocation() {
+    return location;
+  }
+
+  private Pipe startPeer(Peer peer) {
+    Pipe pipe = new Pipe(
+        getConf().getInt(BUFFER_SIZE_CONF, DEFAULT_BUFFER_SIZE));
+    PIPES.put(location, pipe);
+    pipe.peer = peer.start();
+    return pipe;
+  }
+
+  @Override
+  public InputStream openInput(Peer peer) {
+    return startPeer(peer).getInput();
+  }
+
+  @Override
+  public OutputStream openOutput(Peer peer) {
+    return startPeer(peer).getOutput();
+  }
+
+  @Override
+  public void close() {
+    PIPES.remove(location);
+  }
+
+  private static Pipe getPipe(String peerLocation) throws IOException {
+    Pipe pipe = PIPES.get(peerLocation);
+    if (null == pipe) {
+      throw new IOException("No transfer is running at " + peerLocation);
+    }
+    return pipe;
+  }
+
+  /**
+   * @return Stream reading data written by the task into given location
+   */
+  public static InputStream openPeerInput(String peerLocation)
+      throws IOException {
+    return getPipe(peerLocation).getInput();
+  }
+
+  /**
+   * @return Stream writing data read by the task from given location
+   */
+  public static OutputStream openPeerOutput(String peerLocation)
+      throws IOException {
+    return getPipe(peerLocation).getOutput();
+  }
+
+  /**
+   * Ring buffer shared by one writer and one reader. Like a FIFO, the
+   * reader gets end of stream and the writer an error once the other side
+   * is gone. The peer counts as gone when its future completed.
+   */
+  private static final class Pipe {
+
+    private static final long POLL_MILLIS = 100;
+
+    private final byte[] buffer;
+    private int head;
+    private int size;
+    private boolean writerClosed;
+    private boolean readerClosed;
+    private volatile Future<?> peer;
+
+    private Pipe(int capacity) {
+      this.buffer = new byte[capacity];
+    }
+
+    private boolean isPeerDone() {
+      Future<?> future = peer;
+      return null != future && future.isDone();
+    }
+
+    private synchronized int read(byte[] b, int off, int len)
+        throws IOException {
+      try {
+        while (size == 0) {
+          if (writerClosed || readerClosed || isPeerDone()) {
+            return -1;
+          }
+          wait(POLL_MILLIS);
+        }
+      } catch (InterruptedException e) {
+        throw new InterruptedIOException("Interrupted while reading");
+      }
+      int n = Math.min(len, size);
+      int first = Math.min(n, buffer.length - head);
+      System.arraycopy(buffer, head, b, off, first);
+      System.arraycopy(buffer, 0, b, off + first, n - first);
+      head = (head + n) % buffer.length;
+      size -= n;
+      notifyAll();
+      return n;
+    }
+
+    private synchronized void write(byte[] b, int off, int len)
+        throws IOException {
+      try {
+        while (len > 0) {
+          if (readerClosed || writerClosed || isPeerDone()) {
+            throw new IOException("Pipe is closed");
+          }
+          if (size == buffer.length) {
+            wait(POLL_MILLIS);
+            continue;
+          }
+          int tail = (head + size) % buffer.length;
+          int n = Math.min(len, Math.min(buffer.length - size,
+              buffer.length - tail));
+          System.arraycopy(b, off, buffer, tail, n);
+          size += n;
+          off += n;
+          len -= n;
+          notifyAll();
+        }
+      } catch (InterruptedException e) {
+        throw new InterruptedIOException("Interrupted while writing");
+      }
+    }
+
+    private synchronized void closeWriter() {
+      writerClosed = true;
+      notifyAll();
+    }
+
+    private synchronized void closeReader() {
+      readerClosed = true;
+      notifyAll();
+    }
+
+    private InputStream getInput() {
+      return new InputStream() {
+        @Override
+        public int read() throws IOException {
+          byte[] b = new byte[1];
+          return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+          if (len == 0) {
+            return 0;
+          }
+          return Pipe.this.read(b, off, len);
+        }
+
+        @Override
+        public void close() {
+          closeReader();
+        }
+      };
+    }
+
+    private OutputStream getOutput() {
+      return new OutputStream() {
+        @Override
+        public void write(int b) throws IOException {
+          write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+          Pipe.this.write(b, off, len);
+        }
+
+        @Override
+        public void close() {
+          closeWriter();
+        }
+      };
+    }
+  }
+}
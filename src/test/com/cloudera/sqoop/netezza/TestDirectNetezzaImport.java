@@ -149,6 +149,25 @@ public class TestDirectNetezzaImport extends TestJdbcNetezzaImport {
     runImport(options, null, VIEW_NAME);
   }
 
+  @Test
+  public void testMaterializedView() throws Exception {
+    final String TABLE_NAME = "MY_TABLE";
+    createTable(conn, null, TABLE_NAME, "INTEGER", "VARCHAR(32)");
+    addRow(conn, null, TABLE_NAME, "1", "'meep,beep'");
+    addRow(conn, null, TABLE_NAME, "2", "'foo'");
+
+    final String VIEW_NAME = "MY_MATERIALIZED_VIEW";
+    createView(conn, null, VIEW_NAME, "SELECT * FROM " + TABLE_NAME);
+
+    String[] extraArgs = { "--",
+        "--" + DirectNetezzaManager.NZ_MATERIALIZE_ARG, };
+    options.setNumMappers(2);
+    runImport(options, null, VIEW_NAME, extraArgs);
+    verifyImportCount(VIEW_NAME, 2);
+    verifyImportLine(VIEW_NAME, "1,meep\\,beep");
+    verifyImportLine(VIEW_NAME, "2,foo");
+  }
+
   @Test
   public void testNullBehavior() throws Exception {
     // Ensure that we're correctly supporting NULL substitutions
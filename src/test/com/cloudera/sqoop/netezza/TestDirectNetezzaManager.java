@@ -2,16 +2,23 @@
 
 package com.cloudera.sqoop.netezza;
 
+import java.io.IOException;
+
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.ParseException;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
 
 import org.apache.sqoop.SqoopOptions;
 import org.apache.sqoop.SqoopOptions.InvalidOptionsException;
+import org.apache.sqoop.manager.ImportJobContext;
+import org.apache.sqoop.tool.ImportAllTablesTool;
+import org.apache.sqoop.util.ImportException;
 import org.junit.Test;
 
 import static com.cloudera.sqoop.netezza.util.NetezzaConstants.*;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -60,6 +67,51 @@ public class TestDirectNetezzaManager {
     assertEquals("/tmp/nz", conf.get(DirectNetezzaManager.NZ_LOGDIR_CONF));
   }
 
+  /**
+   * Test verifies that the routing options are correctly parsed and present
+   * in the configuration used by MR jobs.
+   *
+   * @throws ParseException
+   * @throws InvalidOptionsException
+   */
+  @Test
+  public void testParseExtraArgsRouting() throws ParseException,
+      InvalidOptionsException {
+    SqoopOptions opts = new SqoopOptions();
+    DirectNetezzaManager m = new DirectNetezzaManager(opts);
+    String[] args = {
+      "--" + DirectNetezzaManager.NZ_ROUTE_COLUMN_ARG, "REGION",
+      "--" + DirectNetezzaManager.NZ_ROUTE_TABLES_ARG, "EU=T_EU,US=T_US",
+    };
+    Configuration conf = opts.getConf();
+    CommandLine parser = m.getParser(args);
+    m.applyCliOptions(parser, conf);
+
+    assertEquals("REGION",
+      conf.get(DirectNetezzaManager.NZ_ROUTE_COLUMN_CONF));
+    assertEquals("EU=T_EU,US=T_US",
+      conf.get(DirectNetezzaManager.NZ_ROUTE_TABLES_CONF));
+  }
+
+  @Test
+  public void testParseExtraArgsMaterialize() throws ParseException,
+      InvalidOptionsException {
+    SqoopOptions opts = new SqoopOptions();
+    DirectNetezzaManager m = new DirectNetezzaManager(opts);
+    String[] args = {
+      "--" + DirectNetezzaManager.NZ_MATERIALIZE_ARG,
+      "--" + DirectNetezzaManager.NZ_MATERIALIZE_DISTRIBUTE_ARG, "ID",
+    };
+    Configuration conf = opts.getConf();
+    CommandLine parser = m.getParser(args);
+    m.applyCliOptions(parser, conf);
+
+    assertTrue(conf.getBoolean(DirectNetezzaManager.NZ_MATERIALIZE_CONF,
+      false));
+    assertEquals("ID",
+      conf.get(DirectNetezzaManager.NZ_MATERIALIZE_DISTRIBUTE_CONF));
+  }
+
   /**
    * Test verifies that bad "extra args" are parsed and present in conf's used
    * by MR jobs.
@@ -183,6 +235,124 @@ public class TestDirectNetezzaManager {
     runTestValidateparameterCompatibility(opts, "--as-parquetfile");
   }
 
+  /**
+   * Test verifies that the multi-table import flag is present in the
+   * configuration used by MR jobs.
+   */
+  @Test
+  public void testParseExtraArgsBatchTables() throws ParseException,
+      InvalidOptionsException {
+    SqoopOptions opts = new SqoopOptions();
+    DirectNetezzaManager m = new DirectNetezzaManager(opts);
+    String[] args = { "--" + DirectNetezzaManager.NZ_BATCH_TABLES_ARG };
+    Configuration conf = opts.getConf();
+    CommandLine parser = m.getParser(args);
+    m.applyCliOptions(parser, conf);
+
+    assertTrue(conf.getBoolean(DirectNetezzaManager.NZ_BATCH_TABLES_CONF,
+      false));
+  }
+
+  /**
+   * Test verifies that multi-table imports refuse --delete-target-dir,
+   * which would delete tables imported by the batch.
+   */
+  @Test
+  public void testBatchTablesWithDeleteTargetDir() throws ImportException {
+    SqoopOptions opts = new SqoopOptions();
+    opts.setTableName("T1");
+    opts.setDeleteMode(true);
+    opts.setActiveSqoopTool(new ImportAllTablesTool());
+    opts.getConf().setBoolean(DirectNetezzaManager.NZ_BATCH_TABLES_CONF,
+        true);
+    DirectNetezzaManager m = new DirectNetezzaManager(opts);
+    try {
+      m.importTable(new ImportJobContext("T1", null, opts,
+          new Path("warehouse", "T1")));
+      fail("Batch import with --delete-target-dir should fail");
+    } catch (IOException e) {
+      assertTrue(e.getMessage().contains("--delete-target-dir"));
+    }
+  }
+
+  @Test
+  public void testParseExtraArgsSessionSlots() throws ParseException,
+      InvalidOptionsException {
+    SqoopOptions opts = new SqoopOptions();
+    DirectNetezzaManager m = new DirectNetezzaManager(opts);
+    String[] args = { "--" + DirectNetezzaManager.NZ_SESSION_SLOTS_ARG, "16" };
+    Configuration conf = opts.getConf();
+    CommandLine parser = m.getParser(args);
+    m.applyCliOptions(parser, conf);
+
+    assertEquals(16, conf.getInt(DirectNetezzaManager.NZ_SESSION_SLOTS_CONF,
+      0));
+  }
+
+  @Test
+  public void testParseExtraArgsTransport() throws ParseException,
+      InvalidOptionsException {
+    SqoopOptions opts = new SqoopOptions();
+    DirectNetezzaManager m = new DirectNetezzaManager(opts);
+    String[] args = { "--" + DirectNetezzaManager.NZ_TRANSPORT_ARG, "file" };
+    Configuration conf = opts.getConf();
+    CommandLine parser = m.getParser(args);
+    m.applyCliOptions(parser, conf);
+
+    assertEquals(NetezzaFileTransport.class,
+      conf.getClass(DirectNetezzaManager.NZ_TRANSPORT_CONF, null));
+    assertEquals("com.example.Transport",
+      DirectNetezzaManager.getTransportClass("com.example.Transport"));
+    // The in-memory transport is not offered to users
+    assertEquals("memory", DirectNetezzaManager.getTransportClass("memory"));
+  }
+
+  /**
+   * Test choice of the in-process transfer by size of the data.
+   */
+  @Test
+  public void testIsLocalTransfer() throws Exception {
+    SqoopOptions opts = new SqoopOptions();
+    DirectNetezzaManager m = new DirectNetezzaManager(opts);
+    assertFalse(m.isLocalTransfer(-1,
+      DirectNetezzaManager.DEFAULT_LOCAL_MAX_BYTES + 1));
+    assertFalse(m.isLocalTransfer(
+      DirectNetezzaManager.DEFAULT_LOCAL_MAX_ROWS + 1, 1024));
+    assertEquals(NetezzaManager.isFifoSupported(),
+      m.isLocalTransfer(100, 1024));
+    assertTrue(m.isLocalTransferEnabled());
+
+    opts.getConf().setBoolean(DirectNetezzaManager.NZ_LOCAL_CONF, false);
+    assertFalse(m.isLocalTransferEnabled());
+    assertFalse(m.isLocalTransfer(100, 1024));
+
+    opts.getConf().setBoolean(DirectNetezzaManager.NZ_LOCAL_CONF, true);
+    opts.getConf().set("mapreduce.framework.name", "local");
+    assertFalse(m.isLocalTransferEnabled());
+  }
+
+  /**
+   * Test that code generation is skipped unless the record class is
+   * needed up front.
+   */
+  @Test
+  public void testORMFacilitySelfManaged() throws Exception {
+    SqoopOptions opts = new SqoopOptions();
+    assertTrue(new DirectNetezzaManager(opts).isORMFacilitySelfManaged());
+
+    opts.getConf().setBoolean(DirectNetezzaManager.NZ_LAZY_CODEGEN_CONF,
+        false);
+    assertFalse(new DirectNetezzaManager(opts).isORMFacilitySelfManaged());
+
+    opts = new SqoopOptions();
+    opts.setClassName("com.example.Record");
+    assertFalse(new DirectNetezzaManager(opts).isORMFacilitySelfManaged());
+
+    opts = new SqoopOptions();
+    opts.setIncrementalMode(SqoopOptions.IncrementalMode.DateLastModified);
+    assertFalse(new DirectNetezzaManager(opts).isORMFacilitySelfManaged());
+  }
+
   private void runTestValidateparameterCompatibility(SqoopOptions opts, String param) throws Exception {
     DirectNetezzaManager m = new DirectNetezzaManager(opts);
 
@@ -0,0 +1,72 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+
+package com.cloudera.sqoop.netezza;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class DualTargetOutputStream.
+ */
+public class TestDualTargetOutputStream {
+
+  /**
+   * Stream that fails every write.
+   */
+  private static class FailingOutputStream extends OutputStream {
+    @Override
+    public void write(int b) throws IOException {
+      throw new IOException("Broken pipe");
+    }
+  }
+
+  @Test
+  public void testWritesBothSides() throws Exception {
+    ByteArrayOutputStream primary = new ByteArrayOutputStream();
+    ByteArrayOutputStream standby = new ByteArrayOutputStream();
+    DualTargetOutputStream stream =
+      new DualTargetOutputStream(primary, standby, false);
+
+    byte[] data = "1,a\n".getBytes("UTF-8");
+    stream.write(data, 0, data.length);
+    stream.close();
+
+    assertArrayEquals(data, primary.toByteArray());
+    assertArrayEquals(data, standby.toByteArray());
+  }
+
+  @Test(expected = IOException.class)
+  public void testFailWithoutDegrade() throws Exception {
+    DualTargetOutputStream stream = new DualTargetOutputStream(
+      new ByteArrayOutputStream(), new FailingOutputStream(), false);
+    stream.write(1);
+  }
+
+  @Test
+  public void testDegrade() throws Exception {
+    ByteArrayOutputStream primary = new ByteArrayOutputStream();
+    DualTargetOutputStream stream = new DualTargetOutputStream(
+      primary, new FailingOutputStream(), true);
+
+    stream.write(1);
+    stream.write(2);
+
+    assertFalse(stream.isPrimaryFailed());
+    assertTrue(stream.isStandbyFailed());
+    assertArrayEquals(new byte[] {1, 2}, primary.toByteArray());
+  }
+
+  @Test(expected = IOException.class)
+  public void testDegradeBothSidesFailed() throws Exception {
+    DualTargetOutputStream stream = new DualTargetOutputStream(
+      new FailingOutputStream(), new FailingOutputStream(), true);
+    stream.write(1);
+  }
+}
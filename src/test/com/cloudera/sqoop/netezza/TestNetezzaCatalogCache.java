@@ -0,0 +1,90 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+
+package com.cloudera.sqoop.netezza;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Types;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests the on-disk table metadata cache.
+ */
+public class TestNetezzaCatalogCache {
+
+  private static final String CONNECT = "jdbc:netezza://nzhost:5480/db";
+
+  private File directory;
+
+  @Before
+  public void setUp() throws IOException {
+    directory = File.createTempFile("test", "nzcatalog");
+    directory.delete();
+  }
+
+  @After
+  public void tearDown() {
+    File[] files = directory.listFiles();
+    if (null != files) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    directory.delete();
+  }
+
+  private NetezzaTableMetadata createMetadata(String signature) {
+    NetezzaTableMetadata metadata =
+        new NetezzaTableMetadata(signature, "TABLE");
+    metadata.addColumn("ID", Types.INTEGER, 10, 0, "INTEGER");
+    metadata.addColumn("PRICE", Types.NUMERIC, 12, 2, "NUMERIC");
+    metadata.addColumn("NAME", Types.VARCHAR, 20, 0, null);
+    return metadata;
+  }
+
+  @Test
+  public void testStoreAndLoad() {
+    NetezzaCatalogCache cache = new NetezzaCatalogCache(directory);
+    assertNull(cache.load(CONNECT, "", "T1"));
+
+    cache.store(CONNECT, "", "T1", createMetadata("v1"));
+    NetezzaTableMetadata loaded = cache.load(CONNECT, "", "T1");
+    assertEquals("v1", loaded.getSignature());
+    assertEquals("TABLE", loaded.getObjectType());
+    assertArrayEquals(new String[] {"ID", "PRICE", "NAME"},
+        loaded.getColumnNames());
+    assertEquals(Types.NUMERIC, loaded.getColumnType(1));
+    assertEquals(12, loaded.getPrecision(1));
+    assertEquals(2, loaded.getScale(1));
+    assertEquals("INTEGER", loaded.getColumnTypeName(0));
+    assertNull(loaded.getColumnTypeName(2));
+
+    // Entries are separated by connection, schema and table
+    assertNull(cache.load(CONNECT, "ADMIN", "T1"));
+    assertNull(cache.load(CONNECT + "2", "", "T1"));
+    assertNull(cache.load(CONNECT, "", "T2"));
+  }
+
+  @Test
+  public void testReplace() {
+    NetezzaCatalogCache cache = new NetezzaCatalogCache(directory);
+    cache.store(CONNECT, "", "T1", createMetadata("v1"));
+
+    NetezzaTableMetadata metadata = new NetezzaTableMetadata("v2", "VIEW");
+    metadata.addColumn("ID", Types.BIGINT, 19, 0, "BIGINT");
+    cache.store(CONNECT, "", "T1", metadata);
+
+    NetezzaTableMetadata loaded = cache.load(CONNECT, "", "T1");
+    assertEquals("v2", loaded.getSignature());
+    assertEquals("VIEW", loaded.getObjectType());
+    assertEquals(1, loaded.getColumnCount());
+    assertEquals(1, directory.listFiles().length);
+  }
+}
@@ -171,7 +171,8 @@ public class TestNetezzaDirectExport extends TestNetezzaJdbcExport {
     runExport(options, p, extraArgs);
 
     assertLogs(logDirPath, 1, 1);
-    assertLogs(uploadDirPath, 1, 1);
+    // Uploaded logs are compressed
+    assertLogs(uploadDirPath, 1, 1, ".gz");
 
     FileSystem lfs = FileSystem.getLocal(conf);
     lfs.delete(new Path(logDirPath), true);
@@ -188,6 +189,21 @@ public class TestNetezzaDirectExport extends TestNetezzaJdbcExport {
    * @throws Exception
    */
   public static void assertLogs(String logDirPath, int numBadFiles, int numLogFiles) throws Exception {
+    assertLogs(logDirPath, numBadFiles, numLogFiles, "");
+  }
+
+  /**
+   * Assert Netezza logs with given suffix appended after the log extension.
+   *
+   * @param logDirPath Log directory
+   * @param numBadFiles Number of bad files
+   * @param numLogFiles Number of log files
+   * @param suffix Suffix of the files, e.g. compression extension
+   *
+   * @throws Exception
+   */
+  public static void assertLogs(String logDirPath, int numBadFiles,
+      int numLogFiles, final String suffix) throws Exception {
     File dir = new File(logDirPath);
     Assert.assertTrue(dir.exists());
 
@@ -195,7 +211,7 @@ public class TestNetezzaDirectExport extends TestNetezzaJdbcExport {
       @Override
       public boolean accept(File pathname) {
         return pathname != null
-          && pathname.getName().toLowerCase().endsWith(".nzbad");
+          && pathname.getName().toLowerCase().endsWith(".nzbad" + suffix);
       }
     });
 
@@ -206,7 +222,7 @@ public class TestNetezzaDirectExport extends TestNetezzaJdbcExport {
       @Override
       public boolean accept(File pathname) {
         return pathname != null
-          && pathname.getName().toLowerCase().endsWith(".nzlog");
+          && pathname.getName().toLowerCase().endsWith(".nzlog" + suffix);
       }
     });
 
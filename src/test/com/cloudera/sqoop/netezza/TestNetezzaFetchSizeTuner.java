@@ -0,0 +1,43 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+
+package com.cloudera.sqoop.netezza;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests adaptive fetch size used by JDBC imports.
+ */
+public class TestNetezzaFetchSizeTuner {
+
+  @Test
+  public void testInitialFetchSizeIsBounded() {
+    assertEquals(NetezzaFetchSizeTuner.MIN_FETCH_SIZE,
+      new NetezzaFetchSizeTuner(1, 1024).getFetchSize());
+    assertEquals(NetezzaFetchSizeTuner.MAX_FETCH_SIZE,
+      new NetezzaFetchSizeTuner(Integer.MAX_VALUE, 1024).getFetchSize());
+  }
+
+  @Test
+  public void testRowWidthLimitsFetchSize() {
+    NetezzaFetchSizeTuner tuner = new NetezzaFetchSizeTuner(5000, 1000000);
+    assertEquals(2000, tuner.setRowWidth(500));
+    assertEquals(2000, tuner.update(100, 100));
+
+    tuner = new NetezzaFetchSizeTuner(5000, 1000000);
+    assertEquals(NetezzaFetchSizeTuner.MIN_FETCH_SIZE,
+      tuner.setRowWidth(100000000));
+  }
+
+  @Test
+  public void testUpdate() {
+    NetezzaFetchSizeTuner tuner = new NetezzaFetchSizeTuner(1000, 1 << 30);
+
+    // Database is fast, nothing changes
+    assertEquals(1000, tuner.update(10, 100));
+    // Waiting for database, fetch more rows at once
+    assertEquals(2000, tuner.update(50, 100));
+    assertEquals(4000, tuner.update(100, 100));
+  }
+}
@@ -0,0 +1,95 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+
+package com.cloudera.sqoop.netezza;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class NetezzaFieldValidator.
+ */
+public class TestNetezzaFieldValidator {
+
+  private NetezzaFieldValidator validator;
+
+  @Before
+  public void setUp() {
+    Map<String, List<Integer>> info = new HashMap<String, List<Integer>>();
+    info.put("ID", Arrays.asList(Types.INTEGER, 10, 0));
+    info.put("SMALL", Arrays.asList(Types.SMALLINT, 5, 0));
+    info.put("BIG", Arrays.asList(Types.BIGINT, 19, 0));
+    info.put("PRICE", Arrays.asList(Types.NUMERIC, 6, 2));
+    info.put("NAME", Arrays.asList(Types.VARCHAR, 8, 0));
+
+    String description = NetezzaFieldValidator.describeColumns(
+      new String[] {"ID", "SMALL", "BIG", "PRICE", "NAME"}, info);
+    validator = new NetezzaFieldValidator(description, '|', '\\', "null");
+  }
+
+  private boolean isValid(String record) {
+    byte[] bytes = record.getBytes(StandardCharsets.UTF_8);
+    return validator.isValid(bytes, bytes.length);
+  }
+
+  @Test
+  public void testValidRecords() {
+    assertTrue(isValid("1|-32768|9223372036854775807|1234.56|anything"));
+    assertTrue(isValid("-2147483648|0|-9223372036854775808|-0.5|a\\|b"));
+    assertTrue(isValid("null|||null|"));
+    assertTrue(isValid("007|+12|000000000000000000001|.25|x"));
+  }
+
+  @Test
+  public void testNotANumber() {
+    assertFalse(isValid("twenty|1|1|1|x"));
+    assertEquals(NetezzaFieldValidator.ERROR_NOT_A_NUMBER,
+      validator.getError());
+    assertEquals(0, validator.getErrorColumn());
+
+    assertFalse(isValid("1|1|1|1.2.3|x"));
+    assertEquals(3, validator.getErrorColumn());
+  }
+
+  @Test
+  public void testOutOfRange() {
+    assertFalse(isValid("2147483648|1|1|1|x"));
+    assertEquals(NetezzaFieldValidator.ERROR_OUT_OF_RANGE,
+      validator.getError());
+
+    assertFalse(isValid("1|32768|1|1|x"));
+    assertFalse(isValid("1|1|9223372036854775808|1|x"));
+    assertFalse(isValid("1|1|1|12345.6|x"));
+  }
+
+  @Test
+  public void testFieldCount() {
+    assertFalse(isValid("1|1|1|1"));
+    assertEquals(NetezzaFieldValidator.ERROR_FIELD_COUNT,
+      validator.getError());
+
+    assertFalse(isValid("1|1|1|1|x|y"));
+    assertEquals(NetezzaFieldValidator.ERROR_FIELD_COUNT,
+      validator.getError());
+  }
+
+  @Test
+  public void testColumnNamesIgnoringCase() {
+    Map<String, List<Integer>> info = new HashMap<String, List<Integer>>();
+    info.put("ID", Arrays.asList(Types.INTEGER, 10, 0));
+    info.put("Price", Arrays.asList(Types.NUMERIC, 6, 2));
+    assertEquals("I" + Integer.MAX_VALUE + ",N4,S",
+      NetezzaFieldValidator.describeColumns(
+        new String[] {"id", "PRICE", "unknown"}, info));
+  }
+}
@@ -0,0 +1,47 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+
+package com.cloudera.sqoop.netezza;
+
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.junit.Test;
+
+import static com.cloudera.sqoop.netezza.util.NetezzaConstants.*;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests splits of direct imports.
+ */
+public class TestNetezzaImportInputFormat {
+
+  private List<InputSplit> getSplits(Configuration conf) throws Exception {
+    return new NetezzaImportInputFormat().getSplits(Job.getInstance(conf));
+  }
+
+  @Test
+  public void testSingleTable() throws Exception {
+    Configuration conf = new Configuration();
+    conf.setInt("mapreduce.job.maps", 4);
+
+    List<InputSplit> splits = getSplits(conf);
+    assertEquals(4, splits.size());
+    assertEquals(3,
+      ((NetezzaImportInputFormat.IntSplit) splits.get(3)).getValue());
+  }
+
+  @Test
+  public void testMultipleTables() throws Exception {
+    Configuration conf = new Configuration();
+    conf.setInt("mapreduce.job.maps", 4);
+    conf.setInt(PROPERTY_BATCH_TABLE_COUNT, 3);
+    conf.setInt(PROPERTY_BATCH_SLICES, 2);
+
+    List<InputSplit> splits = getSplits(conf);
+    assertEquals(6, splits.size());
+    assertEquals(5,
+      ((NetezzaImportInputFormat.IntSplit) splits.get(5)).getValue());
+  }
+}
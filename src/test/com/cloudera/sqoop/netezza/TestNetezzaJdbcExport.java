@@ -286,6 +286,29 @@ public class TestNetezzaJdbcExport {
     });
   }
 
+  @Test
+  public void testBatchedIntExport() throws Exception {
+    SqoopOptions options = getSqoopOptions();
+    Configuration conf = options.getConf();
+    // Last batch is incomplete
+    conf.setInt(NetezzaManager.NZ_JDBC_BATCH_SIZE_CONF, 2);
+
+    createTableForType("INT");
+    Path p = new Path(getBasePath(), "intbatch.txt");
+    writeFileWithLine(conf, p, "1,42\n2,43\n3,44\n");
+    runExport(options, p);
+    checkValForId(1, new Checker() {
+      public void check(ResultSet rs) throws SQLException {
+        assertEquals(42, rs.getInt(1));
+      }
+    });
+    checkValForId(3, new Checker() {
+      public void check(ResultSet rs) throws SQLException {
+        assertEquals(44, rs.getInt(1));
+      }
+    });
+  }
+
   @Test
   public void testNullIntExport() throws Exception {
     SqoopOptions options = getSqoopOptions();
@@ -453,6 +476,40 @@ public class TestNetezzaJdbcExport {
     });
   }
 
+  @Test
+  public void testParallelUpdateExport() throws Exception {
+    SqoopOptions options = getSqoopOptions();
+    Configuration conf = options.getConf();
+
+    // The update key is the first column, records bind it last
+    createTableForType("VARCHAR(10)");
+    Connection conn = mgr.getConnection();
+    PreparedStatement ps = conn.prepareStatement("INSERT INTO "
+        + getTableName() + " VALUES (?, ?)");
+    try {
+      for (int id = 1; id <= 4; id++) {
+        ps.setInt(1, id);
+        ps.setString(2, "old" + id);
+        ps.executeUpdate();
+      }
+      conn.commit();
+    } finally {
+      ps.close();
+    }
+
+    Path p = new Path(getBasePath(), "updatex.txt");
+    writeFileWithLine(conf, p, "1,new1\n2,new2\n3,new3\n");
+    runExport(options, p, new String[] {"--update-key", "ID", "-m", "2"});
+    for (int id = 1; id <= 4; id++) {
+      final String expected = (id < 4 ? "new" : "old") + id;
+      checkValForId(id, new Checker() {
+        public void check(ResultSet rs) throws SQLException {
+          assertEquals(expected, rs.getString(1));
+        }
+      });
+    }
+  }
+
   @Test
   public void testIntExportWithDifferentSchema() throws Exception {
     if (NzTestUtil.supportsMultipleSchema(mgr.getConnection())) {
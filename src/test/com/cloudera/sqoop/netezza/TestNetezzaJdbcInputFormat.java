@@ -0,0 +1,55 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+
+package com.cloudera.sqoop.netezza;
+
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.sqoop.config.ConfigurationHelper;
+import org.apache.sqoop.mapreduce.DBWritable;
+import org.apache.sqoop.mapreduce.db.DBConfiguration;
+import org.apache.sqoop.mapreduce.db.DataDrivenDBInputFormat;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests DATASLICEID based splitting of JDBC imports.
+ */
+public class TestNetezzaJdbcInputFormat {
+
+  @Test
+  public void testIsDataSliceIdColumn() {
+    assertTrue(NetezzaJdbcInputFormat.isDataSliceIdColumn("DATASLICEID"));
+    assertTrue(NetezzaJdbcInputFormat.isDataSliceIdColumn("o.dataSliceId"));
+    assertFalse(NetezzaJdbcInputFormat.isDataSliceIdColumn("ID"));
+    assertFalse(NetezzaJdbcInputFormat.isDataSliceIdColumn(
+        "MY_DATASLICEID"));
+    assertFalse(NetezzaJdbcInputFormat.isDataSliceIdColumn(null));
+  }
+
+  @Test
+  public void testQuerySplits() throws Exception {
+    Job job = Job.getInstance(new Configuration());
+    ConfigurationHelper.setJobNumMaps(job, 3);
+    DataDrivenDBInputFormat.setInput(job, DBWritable.class,
+        "SELECT o.ID FROM ORDERS o JOIN ITEMS i ON o.ID = i.ID "
+        + "WHERE $CONDITIONS", "SELECT 1, 1");
+    new DBConfiguration(job.getConfiguration())
+        .setInputOrderBy("o.DATASLICEID");
+
+    List<InputSplit> splits =
+        new NetezzaJdbcInputFormat<DBWritable>().getSplits(job);
+    assertEquals(3, splits.size());
+    for (int i = 0; i < splits.size(); i++) {
+      DataDrivenDBInputFormat.DataDrivenDBInputSplit split =
+          (DataDrivenDBInputFormat.DataDrivenDBInputSplit) splits.get(i);
+      assertEquals("MOD(o.DATASLICEID, 3) = " + i, split.getLowerClause());
+      assertEquals("1=1", split.getUpperClause());
+    }
+  }
+}
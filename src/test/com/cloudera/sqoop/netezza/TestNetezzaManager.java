@@ -2,14 +2,33 @@
 
 package com.cloudera.sqoop.netezza;
 
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.Map;
+
 import org.apache.commons.cli.ParseException;
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.fs.Path;
 import org.apache.sqoop.SqoopOptions;
 import org.apache.sqoop.SqoopOptions.InvalidOptionsException;
+import org.apache.sqoop.manager.ExportJobContext;
+import org.apache.sqoop.manager.ImportJobContext;
+import org.apache.sqoop.util.ExportException;
+import org.apache.sqoop.util.ImportException;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * This tests some of the helper functions found in the Direct Netezza Manager.
@@ -40,4 +59,324 @@ public class TestNetezzaManager {
     assertNotNull(m.getParser(new String[]{"--test", "test"}));
     assertNotNull(m.getParser(null));
   }
+
+  @Test
+  public void testGetUpdateFromStatement() {
+    SqoopOptions opts = new SqoopOptions();
+    NetezzaManager m = new NetezzaManager(opts);
+
+    assertEquals("UPDATE \"T\" t SET \"B\" = s.\"B\", \"D\" = s.\"D\" "
+        + "FROM \"T_STG\" s WHERE t.\"A\" = s.\"A\" AND t.\"C\" = s.\"C\"",
+        m.getUpdateFromStatement("T_STG", "T", new String[] {"A", " C"},
+            new String[] {"A", "B", "C", "D"}));
+  }
+
+  /**
+   * Manager with columns ID and NAME that fails on any statement.
+   */
+  private static class UpdateManager extends NetezzaManager {
+    UpdateManager(SqoopOptions opts) {
+      super(opts);
+    }
+
+    @Override
+    public String[] getColumnNames(String tableName) {
+      return new String[] {"ID", "NAME"};
+    }
+
+    @Override
+    protected int executeUpdateStatement(String sql) throws SQLException {
+      throw new SQLException("Unexpected statement " + sql);
+    }
+  }
+
+  private void assertUpdateRefused(SqoopOptions opts) throws IOException {
+    opts.setTableName("T");
+    opts.setUpdateKeyCol("ID");
+    opts.setNumMappers(2);
+    try {
+      new UpdateManager(opts).updateTable(
+          new ExportJobContext("T", null, opts));
+      fail("Parallel update should be refused");
+    } catch (ExportException e) {
+      // Refused before creating the staging table
+      assertNull(e.getCause());
+    }
+  }
+
+  @Test
+  public void testParallelUpdateVetoes() throws IOException {
+    // Non batch writer doesn't order the staged columns
+    SqoopOptions opts = new SqoopOptions();
+    opts.getConf().setBoolean(NetezzaManager.NZ_JDBC_BATCH_CONF, false);
+    assertUpdateRefused(opts);
+
+    opts = new SqoopOptions();
+    opts.setHCatTableName("T");
+    assertUpdateRefused(opts);
+
+    // Nothing left for the SET clause
+    opts = new SqoopOptions();
+    opts.setColumns(new String[] {"ID"});
+    assertUpdateRefused(opts);
+  }
+
+  /**
+   * Manager with a fixed table that delegates to a direct manager which
+   * doesn't connect to Netezza.
+   */
+  private static class AcceleratedManager extends NetezzaManager {
+    private final Map<String, Integer> types =
+        new HashMap<String, Integer>();
+    private String objectType = "TABLE";
+    private boolean imported;
+    private boolean exported;
+
+    AcceleratedManager(SqoopOptions opts) {
+      super(opts);
+      types.put("ID", Types.INTEGER);
+      types.put("NAME", Types.VARCHAR);
+    }
+
+    @Override
+    public String[] getColumnNames(String tableName) {
+      return types.keySet().toArray(new String[0]);
+    }
+
+    @Override
+    public Map<String, Integer> getColumnTypes(String tableName) {
+      return types;
+    }
+
+    @Override
+    protected NetezzaTableMetadata getTableMetadata(String tableName) {
+      return null;
+    }
+
+    @Override
+    DirectNetezzaManager getAcceleratedManager() {
+      return new DirectNetezzaManager(options) {
+        @Override
+        String getTargetObjectType() {
+          return objectType;
+        }
+
+        @Override
+        public void importTable(ImportJobContext context) {
+          imported = isDefaultEscapeKept();
+        }
+
+        @Override
+        public void exportTable(ExportJobContext context) {
+          exported = true;
+        }
+
+        @Override
+        public void close() throws SQLException {
+          throw new SQLException("Connection already closed");
+        }
+      };
+    }
+  }
+
+  private File exportDir;
+
+  @Before
+  public void setUp() throws IOException {
+    exportDir = File.createTempFile("test", "nzexport");
+    exportDir.delete();
+    FileUtils.writeStringToFile(new File(exportDir, "part-m-00000"),
+        "1,one\n", "UTF-8");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    if (null != exportDir) {
+      FileUtils.deleteDirectory(exportDir);
+    }
+  }
+
+  private SqoopOptions getImportOptions() {
+    // Transfers are never accelerated without named pipes
+    Assume.assumeTrue(NetezzaManager.isFifoSupported());
+    SqoopOptions opts = new SqoopOptions();
+    opts.setTableName("T");
+    opts.setEscapedBy('\\');
+    return opts;
+  }
+
+  private ImportJobContext getImportContext(SqoopOptions opts) {
+    return new ImportJobContext(opts.getTableName(), null, opts,
+        new Path("T"));
+  }
+
+  private SqoopOptions getExportOptions() {
+    Assume.assumeTrue(NetezzaManager.isFifoSupported());
+    SqoopOptions opts = new SqoopOptions();
+    opts.setTableName("T");
+    opts.setExportDir(exportDir.getAbsolutePath());
+    opts.setInputEscapedBy('\\');
+    return opts;
+  }
+
+  private ExportJobContext getExportContext(SqoopOptions opts) {
+    return new ExportJobContext(opts.getTableName(), null, opts);
+  }
+
+  private String getImportVeto(SqoopOptions opts) throws IOException {
+    return new AcceleratedManager(opts).getImportVeto(getImportContext(opts));
+  }
+
+  private String getExportVeto(SqoopOptions opts) throws IOException {
+    return new AcceleratedManager(opts).getExportVeto(getExportContext(opts));
+  }
+
+  @Test
+  public void testAcceleratedImport() throws IOException, ImportException {
+    SqoopOptions opts = getImportOptions();
+    AcceleratedManager m = new AcceleratedManager(opts);
+    m.importTable(getImportContext(opts));
+    assertTrue(m.imported);
+  }
+
+  @Test
+  public void testAcceleratedExport() throws IOException, ExportException {
+    SqoopOptions opts = getExportOptions();
+    AcceleratedManager m = new AcceleratedManager(opts);
+    m.exportTable(getExportContext(opts));
+    assertTrue(m.exported);
+  }
+
+  @Test
+  public void testImportEscaping() throws IOException {
+    // Unescaped strings might hold delimiters
+    SqoopOptions opts = getImportOptions();
+    opts.setEscapedBy('\000');
+    assertNotNull(getImportVeto(opts));
+    opts.setEscapedBy('\\');
+    assertNull(getImportVeto(opts));
+    opts.setEscapedBy('|');
+    assertNotNull(getImportVeto(opts));
+
+    // Other types never need escaping
+    opts = getImportOptions();
+    opts.setEscapedBy('\000');
+    AcceleratedManager m = new AcceleratedManager(opts);
+    m.types.remove("NAME");
+    assertNull(m.getImportVeto(getImportContext(opts)));
+  }
+
+  @Test
+  public void testColumnarImportEscaping() throws IOException {
+    SqoopOptions opts = new SqoopOptions();
+    opts.setTableName("T");
+    AcceleratedManager m = new AcceleratedManager(opts);
+    ImportJobContext context = getImportContext(opts);
+    assertTrue(m.isColumnarImport(context));
+    opts.setEscapedBy('\\');
+    assertTrue(m.isColumnarImport(context));
+
+    // Delimiters might be escaped differently by the record class
+    opts.setEscapedBy('#');
+    assertFalse(m.isColumnarImport(context));
+    opts.setEnclosedBy('"');
+    assertTrue(m.isColumnarImport(context));
+  }
+
+  @Test
+  public void testImportVetoes() throws IOException {
+    SqoopOptions opts = getImportOptions();
+    opts.getConf().setBoolean(NetezzaManager.NZ_JDBC_ACCELERATE_CONF, false);
+    assertNotNull(getImportVeto(opts));
+
+    opts = getImportOptions();
+    opts.setFileLayout(SqoopOptions.FileLayout.AvroDataFile);
+    assertNotNull(getImportVeto(opts));
+
+    opts = getImportOptions();
+    opts.setHBaseTable("T");
+    assertNotNull(getImportVeto(opts));
+
+    opts = getImportOptions();
+    opts.setEnclosedBy('"');
+    assertNotNull(getImportVeto(opts));
+
+    opts = getImportOptions();
+    opts.setLinesTerminatedBy('|');
+    assertNotNull(getImportVeto(opts));
+
+    opts = getImportOptions();
+    opts.setHiveDropDelims(true);
+    assertNotNull(getImportVeto(opts));
+
+    opts = getImportOptions();
+    opts.setHCatTableName("T");
+    assertNotNull(getImportVeto(opts));
+
+    opts = getImportOptions();
+    opts.setMapColumnJava("ID=String");
+    assertNotNull(getImportVeto(opts));
+
+    opts = getImportOptions();
+    opts.setNullNonStringValue("\\N");
+    assertNotNull(getImportVeto(opts));
+
+    opts = getImportOptions();
+    opts.setNullStringValue("\\001");
+    assertNotNull(getImportVeto(opts));
+  }
+
+  @Test
+  public void testQueryImportVeto() throws IOException {
+    SqoopOptions opts = getImportOptions();
+    opts.setTableName(null);
+    assertNotNull(new AcceleratedManager(opts).getImportVeto(
+        new ImportJobContext(null, null, opts, new Path("T"))));
+  }
+
+  @Test
+  public void testTableVetoes() throws IOException {
+    SqoopOptions opts = getImportOptions();
+    AcceleratedManager m = new AcceleratedManager(opts);
+    m.types.put("DATA", Types.BLOB);
+    assertNotNull(m.getImportVeto(getImportContext(opts)));
+
+    m = new AcceleratedManager(opts);
+    m.objectType = "VIEW";
+    assertNotNull(m.getImportVeto(getImportContext(opts)));
+  }
+
+  @Test
+  public void testExportVetoes() throws IOException {
+    SqoopOptions opts = getExportOptions();
+    assertNull(getExportVeto(opts));
+
+    opts = getExportOptions();
+    opts.setStagingTableName("T_STG");
+    assertNotNull(getExportVeto(opts));
+
+    opts = getExportOptions();
+    opts.setInputEscapedBy('\000');
+    assertNotNull(getExportVeto(opts));
+
+    opts = getExportOptions();
+    opts.setInputEnclosedBy('"');
+    assertNotNull(getExportVeto(opts));
+
+    opts = getExportOptions();
+    opts.setColumns(new String[] {"ID"});
+    assertNotNull(getExportVeto(opts));
+
+    opts = getExportOptions();
+    opts.setInNullNonStringValue("\\N");
+    assertNotNull(getExportVeto(opts));
+  }
+
+  @Test
+  public void testExportFileTypeVeto() throws IOException {
+    // Avro data files start with the magic bytes Obj and version 1
+    FileUtils.writeByteArrayToFile(new File(exportDir, "part-m-00000"),
+        new byte[] {'O', 'b', 'j', 1});
+    assertNotNull(getExportVeto(getExportOptions()));
+  }
 }
@@ -0,0 +1,336 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+
+package com.cloudera.sqoop.netezza;
+
+import com.cloudera.sqoop.netezza.util.NetezzaUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.StatusReporter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.lib.map.WrappedMapper;
+import org.apache.hadoop.mapreduce.task.MapContextImpl;
+import org.apache.sqoop.mapreduce.db.DBConfiguration;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the direct mappers with sessions standing in for Netezza on the
+ * other side of the in-memory transport.
+ */
+public class TestNetezzaMapperPeers {
+
+  private static final String DATA = "1,one\n2,two\n3,three\n";
+  private static final TaskAttemptID ATTEMPT =
+      TaskAttemptID.forName("attempt_201012011200_0001_m_000000_0");
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private Configuration conf;
+  private Counters counters;
+
+  /**
+   * Session playing the Netezza side of the transport named in the SQL.
+   */
+  private static class PeerSession extends NetezzaTransferSession {
+    private final Configuration sessionConf;
+    private final String unloaded;
+    private String nzlog;
+    private final ByteArrayOutputStream loaded = new ByteArrayOutputStream();
+    private volatile String statement;
+
+    /**
+     * @param unloaded Data written by an unload, null for a load
+     */
+    PeerSession(Configuration conf, String table, TaskAttemptContext context,
+        String unloaded) {
+      super(conf, NetezzaUtil.IMPORT, table, context);
+      this.sessionConf = conf;
+      this.unloaded = unloaded;
+    }
+
+    /**
+     * Write given nzlog content into LOGDIR of the session.
+     */
+    void setNzlog(String content) {
+      this.nzlog = content;
+    }
+
+    @Override
+    public void connect(boolean acquireSlot) {
+    }
+
+    @Override
+    public Future<Void> start(String sql) {
+      this.statement = sql;
+      return super.start(sql);
+    }
+
+    @Override
+    public Void call() throws SQLException {
+      // The location is the first quoted string of the statement
+      int start = statement.indexOf('\'') + 1;
+      String location = statement.substring(start,
+          statement.indexOf('\'', start));
+      try {
+        if (null != nzlog) {
+          FileWriter writer = new FileWriter(new File(
+              sessionConf.get(DirectNetezzaManager.NZ_LOGDIR_CONF),
+              "DB.T.nzlog"));
+          writer.write(nzlog);
+          writer.close();
+        }
+        if (null == unloaded) {
+          IOUtils.copy(NetezzaMemoryTransport.openPeerInput(location),
+              loaded);
+        } else {
+          OutputStream out = NetezzaMemoryTransport.openPeerOutput(location);
+          out.write(unloaded.getBytes("UTF-8"));
+          out.close();
+        }
+      } catch (IOException e) {
+        throw new SQLException(e);
+      }
+      return null;
+    }
+
+    String getStatement() {
+      return statement;
+    }
+
+    Configuration getSessionConf() {
+      return sessionConf;
+    }
+
+    String getLoaded() throws IOException {
+      return loaded.toString("UTF-8");
+    }
+  }
+
+  @Before
+  public void setUp() {
+    conf = new Configuration();
+    conf.setClass(DirectNetezzaManager.NZ_TRANSPORT_CONF,
+        NetezzaMemoryTransport.class, NetezzaTransport.class);
+    conf.set(DBConfiguration.INPUT_TABLE_NAME_PROPERTY, "T");
+    counters = new Counters();
+  }
+
+  private StatusReporter getReporter() {
+    return new StatusReporter() {
+      @Override
+      public Counter getCounter(Enum<?> name) {
+        return counters.findCounter(name);
+      }
+
+      @Override
+      public Counter getCounter(String group, String name) {
+        return counters.findCounter(group, name);
+      }
+
+      @Override
+      public void progress() {
+      }
+
+      @Override
+      public float getProgress() {
+        return 0;
+      }
+
+      @Override
+      public void setStatus(String status) {
+      }
+    };
+  }
+
+  @Test(timeout = 10000)
+  public void testImport() throws Exception {
+    final List<PeerSession> peers = new ArrayList<PeerSession>();
+    NetezzaImportMapper mapper = new NetezzaImportMapper() {
+      @Override
+      protected NetezzaTransferSession createSession(String table,
+          Context context) {
+        PeerSession peer = new PeerSession(context.getConfiguration(), table,
+            context, DATA);
+        peers.add(peer);
+        return peer;
+      }
+    };
+
+    final StringBuilder imported = new StringBuilder();
+    RecordWriter<String, Object> writer = new RecordWriter<String, Object>() {
+      @Override
+      public void write(String key, Object value) {
+        imported.append(key);
+      }
+
+      @Override
+      public void close(TaskAttemptContext context) {
+      }
+    };
+    Mapper<Integer, NullWritable, String, Object>.Context context =
+        new WrappedMapper<Integer, NullWritable, String, Object>()
+            .getMapContext(
+                new MapContextImpl<Integer, NullWritable, String, Object>(
+                    conf, ATTEMPT, null, writer, null, getReporter(), null));
+
+    mapper.setup(context);
+    mapper.map(0, NullWritable.get(), context);
+    mapper.cleanup(context);
+
+    assertEquals(DATA, imported.toString());
+    assertEquals(1, peers.size());
+    assertTrue(peers.get(0).getStatement().contains(" FROM T WHERE "));
+    assertEquals(3, counters.findCounter(NetezzaCounter.NZ_TRANSFER_ROWS)
+        .getValue());
+  }
+
+  /**
+   * Reader returning the given lines as values.
+   */
+  private static class LineReader extends RecordReader<LongWritable, Text> {
+    private final Iterator<String> lines;
+    private final LongWritable key = new LongWritable();
+    private final Text value = new Text();
+
+    LineReader(String... lines) {
+      this.lines = Arrays.asList(lines).iterator();
+    }
+
+    @Override
+    public void initialize(InputSplit split, TaskAttemptContext context) {
+    }
+
+    @Override
+    public boolean nextKeyValue() {
+      if (!lines.hasNext()) {
+        return false;
+      }
+      key.set(key.get() + 1);
+      value.set(lines.next());
+      return true;
+    }
+
+    @Override
+    public LongWritable getCurrentKey() {
+      return key;
+    }
+
+    @Override
+    public Text getCurrentValue() {
+      return value;
+    }
+
+    @Override
+    public float getProgress() {
+      return 0;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void testExport() throws Exception {
+    final List<PeerSession> peers = new ArrayList<PeerSession>();
+    NetezzaTextExportMapper mapper = new NetezzaTextExportMapper() {
+      @Override
+      protected NetezzaTransferSession createSession(
+          Configuration sessionConf, String tableName, Context context) {
+        PeerSession peer =
+            new PeerSession(sessionConf, tableName, context, null);
+        peers.add(peer);
+        return peer;
+      }
+    };
+
+    Mapper<LongWritable, Text, NullWritable, NullWritable>.Context context =
+        new WrappedMapper<LongWritable, Text, NullWritable, NullWritable>()
+            .getMapContext(
+                new MapContextImpl<LongWritable, Text, NullWritable,
+                    NullWritable>(conf, ATTEMPT,
+                    new LineReader("1,one", "2,two", "3,three"), null, null,
+                    getReporter(), null));
+    mapper.run(context);
+
+    assertEquals(1, peers.size());
+    assertTrue(peers.get(0).getStatement().startsWith("INSERT INTO T "));
+    assertEquals(DATA, peers.get(0).getLoaded());
+  }
+
+  @Test(timeout = 10000)
+  public void testExportStandbyLogs() throws Exception {
+    File logDir = folder.newFolder("nzlogs");
+    conf.set(DirectNetezzaManager.NZ_LOGDIR_CONF, logDir.getPath());
+    conf.set(DirectNetezzaManager.NZ_STANDBY_CONNECT_CONF,
+        "jdbc:netezza://standby/DB");
+    final List<PeerSession> peers = new ArrayList<PeerSession>();
+    NetezzaTextExportMapper mapper = new NetezzaTextExportMapper() {
+      @Override
+      protected NetezzaTransferSession createSession(
+          Configuration sessionConf, String tableName, Context context) {
+        PeerSession peer =
+            new PeerSession(sessionConf, tableName, context, null);
+        if (!peers.isEmpty()) {
+          // The standby rejects one record
+          peer.setNzlog("1: 2(3) [1, INT4] expected field delimiter or end "
+              + "of record, \"two\"[t]\n");
+        }
+        peers.add(peer);
+        return peer;
+      }
+    };
+
+    Mapper<LongWritable, Text, NullWritable, NullWritable>.Context context =
+        new WrappedMapper<LongWritable, Text, NullWritable, NullWritable>()
+            .getMapContext(
+                new MapContextImpl<LongWritable, Text, NullWritable,
+                    NullWritable>(conf, ATTEMPT,
+                    new LineReader("1,one", "2,two"), null, null,
+                    getReporter(), null));
+    mapper.run(context);
+
+    assertEquals(2, peers.size());
+    File primaryLogs = new File(logDir, ATTEMPT.toString());
+    File standbyLogs = new File(logDir, ATTEMPT + "-standby");
+    assertEquals(primaryLogs.getPath(), peers.get(0).getSessionConf()
+        .get(DirectNetezzaManager.NZ_LOGDIR_CONF));
+    assertEquals(standbyLogs.getPath(), peers.get(1).getSessionConf()
+        .get(DirectNetezzaManager.NZ_LOGDIR_CONF));
+    assertEquals(0, primaryLogs.list().length);
+    assertTrue(new File(standbyLogs, "DB.T.nzlog").exists());
+    assertEquals(0, counters.findCounter(NetezzaCounter.NZ_REJECTED_RECORDS)
+        .getValue());
+    assertEquals(1, counters.findCounter(
+        NetezzaCounter.NZ_STANDBY_REJECTED_RECORDS).getValue());
+  }
+}
@@ -0,0 +1,152 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+
+package com.cloudera.sqoop.netezza;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.StatusReporter;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.apache.sqoop.io.NamedFifo;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests opening of FIFOs shared with the Netezza session.
+ */
+public class TestNetezzaPeerWatchdog {
+
+  private File fifo;
+  private Configuration conf;
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() throws IOException {
+    fifo = File.createTempFile("test", "nzfifo");
+    fifo.delete();
+    new NamedFifo(fifo).create();
+
+    conf = new Configuration();
+    conf.setLong(NetezzaPeerWatchdog.INTERVAL_MILLIS_CONF, 10);
+    executor = Executors.newCachedThreadPool();
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+    fifo.delete();
+  }
+
+  @Test
+  public void testPeerOpensFifo() throws Exception {
+    Future<?> peer = executor.submit(new Callable<Void>() {
+      @Override
+      public Void call() throws IOException {
+        FileOutputStream out = new FileOutputStream(fifo);
+        out.write(42);
+        out.close();
+        return null;
+      }
+    });
+
+    NetezzaPeerWatchdog watchdog = new NetezzaPeerWatchdog(peer, null, conf);
+    watchdog.start();
+    FileInputStream in = watchdog.openInput(fifo);
+    assertNotNull(in);
+    assertEquals(42, in.read());
+    in.close();
+    watchdog.close();
+  }
+
+  @Test(timeout = 10000)
+  public void testPeerFailsBeforeOpen() throws Exception {
+    Future<?> peer = executor.submit(new Callable<Void>() {
+      @Override
+      public Void call() throws SQLException {
+        throw new SQLException("Login failed");
+      }
+    });
+
+    NetezzaPeerWatchdog watchdog = new NetezzaPeerWatchdog(peer, null, conf);
+    watchdog.start();
+    assertNull(watchdog.openInput(fifo));
+    assertNull(watchdog.openOutput(fifo));
+    watchdog.close();
+  }
+
+  @Test(timeout = 10000)
+  public void testNoProgressOnceOpen() throws Exception {
+    final CountDownLatch loaded = new CountDownLatch(1);
+    Future<?> peer = executor.submit(new Callable<Void>() {
+      @Override
+      public Void call() throws Exception {
+        FileInputStream in = new FileInputStream(fifo);
+        // The peer stays alive while the task doesn't write
+        loaded.await();
+        in.close();
+        return null;
+      }
+    });
+
+    final AtomicInteger progress = new AtomicInteger();
+    TaskAttemptContextImpl context = new TaskAttemptContextImpl(conf,
+        TaskAttemptID.forName("attempt_201012011200_0001_m_000000_0"),
+        new StatusReporter() {
+          @Override
+          public Counter getCounter(Enum<?> name) {
+            return null;
+          }
+
+          @Override
+          public Counter getCounter(String group, String name) {
+            return null;
+          }
+
+          @Override
+          public void progress() {
+            progress.incrementAndGet();
+          }
+
+          @Override
+          public float getProgress() {
+            return 0;
+          }
+
+          @Override
+          public void setStatus(String status) {
+          }
+        });
+
+    NetezzaPeerWatchdog watchdog =
+        new NetezzaPeerWatchdog(peer, context, conf);
+    watchdog.start();
+    FileOutputStream out = watchdog.openOutput(fifo);
+    assertNotNull(out);
+
+    Thread.sleep(50);
+    int reported = progress.get();
+    Thread.sleep(200);
+    assertEquals(reported, progress.get());
+
+    loaded.countDown();
+    out.close();
+    watchdog.close();
+  }
+}
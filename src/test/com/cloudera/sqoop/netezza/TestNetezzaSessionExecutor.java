@@ -0,0 +1,58 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+
+package com.cloudera.sqoop.netezza;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests executors running Netezza sessions.
+ */
+public class TestNetezzaSessionExecutor {
+
+  private boolean runsOnDaemon(ExecutorService executor) throws Exception {
+    return executor.submit(new Callable<Boolean>() {
+      @Override
+      public Boolean call() {
+        return Thread.currentThread().isDaemon();
+      }
+    }).get();
+  }
+
+  @Test
+  public void testPlatformThreads() throws Exception {
+    Configuration conf = new Configuration();
+    ExecutorService executor = NetezzaSessionExecutor.get(conf);
+    assertTrue(runsOnDaemon(executor));
+
+    // Platform threads are the default
+    conf.setBoolean(DirectNetezzaManager.NZ_VIRTUAL_THREADS_CONF, false);
+    assertSame(executor, NetezzaSessionExecutor.get(conf));
+  }
+
+  @Test
+  public void testVirtualThreadsWhenAvailable() throws Exception {
+    Configuration conf = new Configuration();
+    conf.setBoolean(DirectNetezzaManager.NZ_VIRTUAL_THREADS_CONF, true);
+    ExecutorService executor = NetezzaSessionExecutor.get(conf);
+    assertSame(executor, NetezzaSessionExecutor.get(conf));
+    // Virtual threads are always daemon threads
+    assertTrue(runsOnDaemon(executor));
+
+    boolean virtual = true;
+    try {
+      Thread.class.getMethod("isVirtual");
+    } catch (NoSuchMethodException e) {
+      virtual = false;
+    }
+    conf.setBoolean(DirectNetezzaManager.NZ_VIRTUAL_THREADS_CONF, false);
+    assertEquals(virtual, executor != NetezzaSessionExecutor.get(conf));
+  }
+}
@@ -0,0 +1,185 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+
+package com.cloudera.sqoop.netezza;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RawLocalFileSystem;
+import org.apache.sqoop.mapreduce.db.DBConfiguration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the cluster wide limit of Netezza sessions.
+ */
+public class TestNetezzaSessionSlots {
+
+  private File directory;
+  private Configuration conf;
+
+  @Before
+  public void setUp() throws IOException {
+    directory = File.createTempFile("test", "nzslots");
+    directory.delete();
+
+    conf = new Configuration();
+    conf.set("fs.defaultFS", "file:///");
+    conf.set(DBConfiguration.URL_PROPERTY, "jdbc:netezza://nzhost:5480/db");
+    conf.set(DirectNetezzaManager.NZ_SESSION_SLOTS_DIR_CONF,
+        directory.getAbsolutePath());
+    conf.setInt(DirectNetezzaManager.NZ_SESSION_SLOTS_CONF, 2);
+    conf.setLong(NetezzaSessionSlots.POLL_MILLIS_CONF, 10);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(directory);
+  }
+
+  private int countTickets() {
+    int tickets = 0;
+    for (String name : new File(directory, "nzhost_5480").list()) {
+      if (name.startsWith("ticket-")) {
+        tickets++;
+      }
+    }
+    return tickets;
+  }
+
+  @Test
+  public void testDisabled() throws Exception {
+    conf.setInt(DirectNetezzaManager.NZ_SESSION_SLOTS_CONF, 0);
+    assertNull(NetezzaSessionSlots.acquire(conf, 1, null));
+    assertFalse(directory.exists());
+  }
+
+  @Test
+  public void testApplianceKey() {
+    assertEquals("nzhost_5480", NetezzaSessionSlots.getApplianceKey(conf));
+  }
+
+  @Test
+  public void testWaitForFreeSlots() throws Exception {
+    NetezzaSessionSlots first = NetezzaSessionSlots.acquire(conf, 1, null);
+    NetezzaSessionSlots second = NetezzaSessionSlots.acquire(conf, 1, null);
+    assertNotNull(first);
+    assertNotNull(second);
+
+    // Third session has to wait until one of the first two is released
+    final NetezzaSessionSlots[] third = new NetezzaSessionSlots[1];
+    Thread waiting = new Thread() {
+      @Override
+      public void run() {
+        try {
+          third[0] = NetezzaSessionSlots.acquire(conf, 1, null);
+        } catch (Exception e) {
+          throw new RuntimeException(e);
+        }
+      }
+    };
+    waiting.start();
+    waiting.join(200);
+    assertTrue(waiting.isAlive());
+
+    first.close();
+    waiting.join(5000);
+    assertFalse(waiting.isAlive());
+    assertNotNull(third[0]);
+
+    second.close();
+    third[0].close();
+    assertEquals(0, countTickets());
+  }
+
+  @Test
+  public void testFirstTicketAlwaysProceeds() throws Exception {
+    // Task needing more sessions than the limit is not blocked forever
+    NetezzaSessionSlots slots = NetezzaSessionSlots.acquire(conf, 3, null);
+    assertNotNull(slots);
+    slots.close();
+    // Closing twice has no effect
+    slots.close();
+  }
+
+  @Test
+  public void testStaleTicketIsRemoved() throws Exception {
+    conf.setLong(NetezzaSessionSlots.HEARTBEAT_MILLIS_CONF, 60000);
+    NetezzaSessionSlots dead = NetezzaSessionSlots.acquire(conf, 2, null);
+    assertNotNull(dead);
+
+    // Ticket of the dead task is older than six heartbeats of new tasks
+    conf.setLong(NetezzaSessionSlots.HEARTBEAT_MILLIS_CONF, 1);
+    Thread.sleep(50);
+    NetezzaSessionSlots slots = NetezzaSessionSlots.acquire(conf, 1, null);
+    assertNotNull(slots);
+    assertEquals(1, countTickets());
+    slots.close();
+  }
+
+  /**
+   * Local file system whose clock is ten minutes behind the client.
+   */
+  public static class LaggingFileSystem extends RawLocalFileSystem {
+    private static final long LAG = 10 * 60 * 1000;
+
+    private static FileStatus lag(FileStatus status) {
+      return new FileStatus(status.getLen(), status.isDirectory(),
+          status.getReplication(), status.getBlockSize(),
+          status.getModificationTime() - LAG, status.getPath());
+    }
+
+    @Override
+    public FileStatus getFileStatus(Path path) throws IOException {
+      return lag(super.getFileStatus(path));
+    }
+
+    @Override
+    public void setTimes(Path path, long mtime, long atime)
+        throws IOException {
+      super.setTimes(path, mtime + LAG, atime);
+    }
+  }
+
+  @Test
+  public void testClockSkew() throws Exception {
+    conf.setClass("fs.file.impl", LaggingFileSystem.class, FileSystem.class);
+    conf.setBoolean("fs.file.impl.disable.cache", true);
+    NetezzaSessionSlots holder = NetezzaSessionSlots.acquire(conf, 2, null);
+    assertNotNull(holder);
+
+    // Live ticket is not stale although it is older than the local clock
+    final NetezzaSessionSlots[] waiter = new NetezzaSessionSlots[1];
+    Thread waiting = new Thread() {
+      @Override
+      public void run() {
+        try {
+          waiter[0] = NetezzaSessionSlots.acquire(conf, 1, null);
+        } catch (Exception e) {
+          throw new RuntimeException(e);
+        }
+      }
+    };
+    waiting.start();
+    waiting.join(500);
+    assertTrue(waiting.isAlive());
+    assertEquals(2, countTickets());
+
+    holder.close();
+    waiting.join(5000);
+    assertFalse(waiting.isAlive());
+    waiter[0].close();
+  }
+}
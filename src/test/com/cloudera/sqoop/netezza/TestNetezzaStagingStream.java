@@ -0,0 +1,119 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+
+package com.cloudera.sqoop.netezza;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests staging of unloaded data in local chunk files.
+ */
+public class TestNetezzaStagingStream {
+
+  private File dir;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = File.createTempFile("test", "nzstaging");
+    dir.delete();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(dir);
+  }
+
+  private static byte[] getData(int size) {
+    byte[] data = new byte[size];
+    new Random(size).nextBytes(data);
+    return data;
+  }
+
+  @Test(timeout = 10000)
+  public void testChunks() throws IOException {
+    byte[] data = getData(1000000);
+    NetezzaStagingStream staging = new NetezzaStagingStream(
+        new ByteArrayInputStream(data), dir, 100000, 0);
+    staging.start();
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    IOUtils.copy(staging, out);
+    assertArrayEquals(data, out.toByteArray());
+    assertTrue(staging.getFinishTime() > 0);
+
+    // Chunks are removed once read
+    assertEquals(0, dir.list().length);
+    staging.close();
+    assertFalse(dir.exists());
+  }
+
+  @Test(timeout = 10000)
+  public void testEmptySource() throws IOException {
+    NetezzaStagingStream staging = new NetezzaStagingStream(
+        new ByteArrayInputStream(new byte[0]), dir, 100000, 0);
+    staging.start();
+    assertEquals(-1, staging.read());
+    staging.close();
+  }
+
+  @Test(timeout = 10000)
+  public void testLimitedSpace() throws Exception {
+    byte[] data = getData(500000);
+    NetezzaStagingStream staging = new NetezzaStagingStream(
+        new ByteArrayInputStream(data), dir, 10000, 100000);
+    staging.start();
+
+    // The pump stops once the limit is reached
+    Thread.sleep(200);
+    assertEquals(0, staging.getFinishTime());
+    assertTrue(FileUtils.sizeOfDirectory(dir) <= 100000);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    IOUtils.copy(staging, out);
+    assertArrayEquals(data, out.toByteArray());
+    staging.close();
+  }
+
+  @Test(timeout = 10000)
+  public void testSourceFailure() throws IOException {
+    InputStream source = new InputStream() {
+      private int count;
+
+      @Override
+      public int read() throws IOException {
+        if (count++ < 1000) {
+          return 'x';
+        }
+        throw new IOException("FIFO failed");
+      }
+    };
+
+    NetezzaStagingStream staging =
+        new NetezzaStagingStream(source, dir, 100, 0);
+    staging.start();
+    try {
+      IOUtils.copy(staging, new ByteArrayOutputStream());
+      fail("Failure of the source should be reported");
+    } catch (IOException ioe) {
+      assertEquals("FIFO failed", ioe.getCause().getMessage());
+    }
+    staging.close();
+    assertFalse(dir.exists());
+  }
+}
@@ -0,0 +1,64 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+
+package com.cloudera.sqoop.netezza;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests cancellation of running transfer statements.
+ */
+public class TestNetezzaStatementCanceller {
+
+  private int cancelCalls;
+
+  private Statement createStatement() {
+    return (Statement) Proxy.newProxyInstance(
+        getClass().getClassLoader(), new Class<?>[] {Statement.class},
+        new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) {
+            if (method.getName().equals("cancel")) {
+              cancelCalls++;
+            }
+            return null;
+          }
+        });
+  }
+
+  @Test
+  public void testCancelRunningStatement() throws SQLException {
+    NetezzaStatementCanceller canceller = new NetezzaStatementCanceller();
+    canceller.start(createStatement());
+    canceller.cancel();
+    canceller.finish();
+    assertEquals(1, cancelCalls);
+    assertTrue(canceller.isCancelled());
+
+    // Completed statements are not cancelled
+    canceller.cancel();
+    assertEquals(1, cancelCalls);
+  }
+
+  @Test
+  public void testCancelBeforeStart() {
+    NetezzaStatementCanceller canceller = new NetezzaStatementCanceller();
+    canceller.cancel();
+    try {
+      canceller.start(createStatement());
+      fail("Expected cancelled statement to fail");
+    } catch (SQLException e) {
+      // expected
+    }
+    assertEquals(0, cancelCalls);
+  }
+}
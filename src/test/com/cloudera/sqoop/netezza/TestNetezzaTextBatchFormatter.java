@@ -0,0 +1,139 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+
+package com.cloudera.sqoop.netezza;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Types;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests formatting of column batches as delimited text.
+ */
+public class TestNetezzaTextBatchFormatter {
+
+  private static final int[] TYPES = {
+    Types.INTEGER, Types.REAL, Types.DOUBLE, Types.VARCHAR, Types.NUMERIC,
+  };
+
+  private NetezzaColumnBatch createBatch() {
+    NetezzaColumnBatch batch = new NetezzaColumnBatch(TYPES, 2, true);
+    batch.setLong(0, -42);
+    batch.setDouble(1, 1.1f);
+    batch.setDouble(2, 0.5);
+    batch.setText(3, "a,b");
+    batch.setText(4, "10.00");
+    batch.endRow();
+
+    batch.setLong(0, Long.MIN_VALUE);
+    batch.setNull(1);
+    batch.setDouble(2, 1e20);
+    batch.setNull(3);
+    batch.setText(4, "\u017elu\u0165");
+    batch.endRow();
+    return batch;
+  }
+
+  private String format(NetezzaTextBatchFormatter formatter,
+                        NetezzaColumnBatch batch) {
+    formatter.format(batch);
+    return new String(formatter.getBytes(), 0, formatter.getLength(),
+      StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testDefaultDelimiters() {
+    NetezzaTextBatchFormatter formatter = new NetezzaTextBatchFormatter(',',
+      '\n', '\000', '\000', false, "null", "null");
+    assertEquals("-42,1.1,0.5,a,b,10.00\n"
+      + "-9223372036854775808,null,1.0E20,null,\u017elu\u0165\n",
+      format(formatter, createBatch()));
+  }
+
+  @Test
+  public void testEscaping() {
+    NetezzaTextBatchFormatter formatter = new NetezzaTextBatchFormatter(',',
+      '\n', '\000', '\\', false, "\\N", "NA");
+    assertEquals("-42,1.1,0.5,a\\,b,10.00\n"
+      + "-9223372036854775808,NA,1.0E20,\\\\N,\u017elu\u0165\n",
+      format(formatter, createBatch()));
+  }
+
+  @Test
+  public void testEnclosing() {
+    NetezzaTextBatchFormatter formatter = new NetezzaTextBatchFormatter('|',
+      '\n', '"', '\\', true, "null", "null");
+    NetezzaColumnBatch batch = new NetezzaColumnBatch(
+      new int[] {Types.VARCHAR, Types.BIGINT}, 1, true);
+    batch.setText(0, "say \"hi\"");
+    batch.setLong(1, 7);
+    batch.endRow();
+    assertEquals("\"say \\\"hi\\\"\"|\"7\"\n", format(formatter, batch));
+
+    // Optional enclosing only when delimiter is present
+    formatter = new NetezzaTextBatchFormatter('|', '\n', '"', '\000', false,
+      "null", "null");
+    batch.clear();
+    batch.setText(0, "a|b");
+    batch.setLong(1, 0);
+    batch.endRow();
+    assertEquals("\"a|b\"|0\n", format(formatter, batch));
+  }
+
+  @Test
+  public void testBatchReuse() {
+    NetezzaColumnBatch batch = createBatch();
+    assertTrue(batch.isFull());
+    batch.clear();
+    assertEquals(0, batch.getSize());
+
+    batch.setLong(0, 1);
+    batch.setDouble(1, 2);
+    batch.setDouble(2, 3);
+    batch.setText(3, "x");
+    batch.setText(4, "4");
+    batch.endRow();
+    assertFalse(batch.isNull(1, 0));
+    assertFalse(batch.isFull());
+
+    NetezzaTextBatchFormatter formatter = new NetezzaTextBatchFormatter(',',
+      '\n', '\000', '\000', false, "null", "null");
+    assertEquals("1,2.0,3.0,x,4\n", format(formatter, batch));
+  }
+
+  @Test
+  public void testDates() {
+    NetezzaColumnBatch batch = new NetezzaColumnBatch(
+      new int[] {Types.DATE, Types.VARCHAR}, 3, true);
+    Date[] dates = {
+      Date.valueOf("2010-01-05"), Date.valueOf("0099-12-31"),
+      new Date(Date.valueOf("9999-12-31").getTime() + 86400000L),
+    };
+    StringBuilder expected = new StringBuilder();
+    for (Date date : dates) {
+      batch.setDate(0, date);
+      batch.setText(1, "d\u00e1tum " + date);
+      batch.endRow();
+      expected.append(date + ",d\u00e1tum " + date + "\n");
+    }
+
+    NetezzaTextBatchFormatter formatter = new NetezzaTextBatchFormatter(',',
+      '\n', '\000', '\000', false, "null", "null");
+    assertEquals(expected.toString(), format(formatter, batch));
+  }
+
+  @Test
+  public void testSupportedTypes() {
+    assertTrue(NetezzaColumnBatch.isSupportedType(Types.BIGINT));
+    assertTrue(NetezzaColumnBatch.isSupportedType(Types.TIMESTAMP));
+    assertTrue(NetezzaColumnBatch.isSupportedType(Types.NVARCHAR));
+    assertFalse(NetezzaColumnBatch.isSupportedType(Types.VARBINARY));
+    assertFalse(NetezzaTextBatchFormatter.isSupported('\u00e9', '\n',
+      '\000', '\000'));
+  }
+}
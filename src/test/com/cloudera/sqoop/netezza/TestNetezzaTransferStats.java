@@ -0,0 +1,131 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+
+package com.cloudera.sqoop.netezza;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.StatusReporter;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests statistics of direct transfers.
+ */
+public class TestNetezzaTransferStats {
+
+  private Counters counters;
+  private String status;
+  private TaskAttemptContextImpl context;
+
+  @Before
+  public void setUp() {
+    counters = new Counters();
+    context = new TaskAttemptContextImpl(new Configuration(false),
+        TaskAttemptID.forName("attempt_201012011200_0001_m_000000_0"),
+        new StatusReporter() {
+          @Override
+          public Counter getCounter(Enum<?> name) {
+            return counters.findCounter(name);
+          }
+
+          @Override
+          public Counter getCounter(String group, String name) {
+            return counters.findCounter(group, name);
+          }
+
+          @Override
+          public void progress() {
+          }
+
+          @Override
+          public float getProgress() {
+            return 0;
+          }
+
+          @Override
+          public void setStatus(String s) {
+            status = s;
+          }
+        });
+  }
+
+  private long getCounter(NetezzaCounter counter) {
+    return counters.findCounter(counter).getValue();
+  }
+
+  @Test
+  public void testRecordSizes() {
+    NetezzaTransferStats stats = new NetezzaTransferStats("Slice 0");
+    stats.record(1);
+    stats.record(64);
+    stats.record(65);
+    stats.record(5000);
+    stats.record(100000);
+    stats.report(context);
+
+    assertEquals(5, getCounter(NetezzaCounter.NZ_TRANSFER_ROWS));
+    assertEquals(2, getCounter(NetezzaCounter.NZ_RECORDS_UP_TO_64B));
+    assertEquals(1, getCounter(NetezzaCounter.NZ_RECORDS_UP_TO_256B));
+    assertEquals(0, getCounter(NetezzaCounter.NZ_RECORDS_UP_TO_4KB));
+    assertEquals(1, getCounter(NetezzaCounter.NZ_RECORDS_UP_TO_16KB));
+    assertEquals(1, getCounter(NetezzaCounter.NZ_RECORDS_OVER_64KB));
+    assertTrue(status.startsWith("Slice 0: 5 rows"));
+  }
+
+  @Test
+  public void testTextRecordSizes() {
+    NetezzaTransferStats stats = new NetezzaTransferStats("Slice 0");
+    StringBuilder ascii = new StringBuilder();
+    for (int i = 0; i < 63; i++) {
+      ascii.append('a');
+    }
+    stats.record(ascii);
+    // 2 bytes per character in UTF-8
+    stats.record(ascii.toString().replace('a', '\u00e9'));
+    // 3 bytes per character, the pair of surrogates takes 4 bytes
+    stats.record("\u20ac\ud83d\ude00");
+    stats.report(context);
+
+    assertEquals(3, getCounter(NetezzaCounter.NZ_TRANSFER_ROWS));
+    assertEquals(2, getCounter(NetezzaCounter.NZ_RECORDS_UP_TO_64B));
+    assertEquals(1, getCounter(NetezzaCounter.NZ_RECORDS_UP_TO_256B));
+  }
+
+  @Test
+  public void testStreams() throws Exception {
+    NetezzaTransferStats stats = new NetezzaTransferStats("Slice 1");
+    stats.sessionStarted();
+    InputStream in = stats.wrap(new ByteArrayInputStream(new byte[1000]));
+    OutputStream out = stats.wrap(new ByteArrayOutputStream());
+    IOUtils.copy(in, out);
+    out.write(42);
+    assertEquals(2001, stats.getBytes());
+
+    stats.addStatementRows(-1);
+    stats.report(context);
+    assertEquals(0, getCounter(NetezzaCounter.NZ_STATEMENT_ROWS));
+    assertTrue(getCounter(NetezzaCounter.NZ_FIRST_BYTE_MILLIS) >= 0);
+  }
+
+  @Test
+  public void testStatementRows() {
+    NetezzaTransferStats stats = new NetezzaTransferStats("Export");
+    stats.addStatementRows(10);
+    stats.addStatementRows(5);
+    stats.addStatementRows(-1);
+    stats.report(context);
+    assertEquals(15, getCounter(NetezzaCounter.NZ_STATEMENT_ROWS));
+  }
+}
@@ -0,0 +1,210 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+
+package com.cloudera.sqoop.netezza;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.SQLException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests transports with peers standing in for the Netezza session.
+ */
+public class TestNetezzaTransport {
+
+  private static final String DATA = "1,one\n2,two\n3,three\n";
+
+  private File localDir;
+  private ExecutorService executor;
+  private Future<?> peerFuture;
+
+  @Before
+  public void setUp() throws IOException {
+    localDir = File.createTempFile("test", "nztransport");
+    localDir.delete();
+    executor = Executors.newCachedThreadPool();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    executor.shutdownNow();
+    FileUtils.deleteDirectory(localDir);
+  }
+
+  private TaskAttemptContext getContext(
+      Class<? extends NetezzaTransport> transport) {
+    Configuration conf = new Configuration(false);
+    conf.set("job.local.dir", localDir.getAbsolutePath());
+    conf.set("mapreduce.task.id", "attempt_201012011200_0001_m_000000_0");
+    conf.setClass(DirectNetezzaManager.NZ_TRANSPORT_CONF, transport,
+        NetezzaTransport.class);
+    conf.setInt(NetezzaMemoryTransport.BUFFER_SIZE_CONF, 4);
+    conf.setLong(NetezzaPeerWatchdog.INTERVAL_MILLIS_CONF, 10);
+    return new TaskAttemptContextImpl(conf,
+        TaskAttemptID.forName("attempt_201012011200_0001_m_000000_0"));
+  }
+
+  /**
+   * @return Peer running given callable on the executor
+   */
+  private NetezzaTransport.Peer getPeer(final Callable<Void> callable) {
+    return new NetezzaTransport.Peer() {
+      @Override
+      public Future<?> start() {
+        peerFuture = executor.submit(callable);
+        return peerFuture;
+      }
+    };
+  }
+
+  @Test
+  public void testCreateDefault() throws IOException {
+    TaskAttemptContext context = getContext(NetezzaFifoTransport.class);
+    context.getConfiguration().unset(DirectNetezzaManager.NZ_TRANSPORT_CONF);
+    NetezzaTransport transport = NetezzaTransport.create(context, "fifo");
+    assertTrue(transport instanceof NetezzaFifoTransport);
+    assertTrue(new File(transport.getLocation()).exists());
+    transport.close();
+  }
+
+  @Test(timeout = 10000)
+  public void testMemoryImport() throws Exception {
+    final NetezzaTransport transport = NetezzaTransport.create(
+        getContext(NetezzaMemoryTransport.class), "netezza-0.txt");
+    InputStream in = transport.openInput(getPeer(new Callable<Void>() {
+      @Override
+      public Void call() throws IOException {
+        OutputStream out =
+            NetezzaMemoryTransport.openPeerOutput(transport.getLocation());
+        out.write(DATA.getBytes("UTF-8"));
+        out.close();
+        return null;
+      }
+    }));
+    assertEquals(DATA, IOUtils.toString(in, "UTF-8"));
+    transport.close();
+  }
+
+  @Test(timeout = 10000)
+  public void testMemoryExport() throws Exception {
+    final NetezzaTransport transport = NetezzaTransport.create(
+        getContext(NetezzaMemoryTransport.class), "netezza.txt");
+    final ByteArrayOutputStream loaded = new ByteArrayOutputStream();
+    OutputStream out = transport.openOutput(getPeer(new Callable<Void>() {
+      @Override
+      public Void call() throws IOException {
+        IOUtils.copy(
+            NetezzaMemoryTransport.openPeerInput(transport.getLocation()),
+            loaded);
+        return null;
+      }
+    }));
+    out.write(DATA.getBytes("UTF-8"));
+    out.close();
+    peerFuture.get();
+    transport.close();
+    assertEquals(DATA, loaded.toString("UTF-8"));
+  }
+
+  @Test(timeout = 10000)
+  public void testMemoryPeerFails() throws Exception {
+    NetezzaTransport transport = NetezzaTransport.create(
+        getContext(NetezzaMemoryTransport.class), "netezza-0.txt");
+    InputStream in = transport.openInput(getPeer(new Callable<Void>() {
+      @Override
+      public Void call() throws SQLException {
+        throw new SQLException("Unload failed");
+      }
+    }));
+    assertEquals(-1, in.read());
+    transport.close();
+  }
+
+  @Test(timeout = 10000)
+  public void testFileImport() throws Exception {
+    final NetezzaTransport transport = NetezzaTransport.create(
+        getContext(NetezzaFileTransport.class), "netezza-0.txt");
+    InputStream in = transport.openInput(getPeer(new Callable<Void>() {
+      @Override
+      public Void call() throws IOException {
+        FileUtils.writeStringToFile(new File(transport.getLocation()), DATA,
+            "UTF-8");
+        return null;
+      }
+    }));
+    assertEquals(DATA, IOUtils.toString(in, "UTF-8"));
+    in.close();
+    transport.close();
+    assertFalse(new File(transport.getLocation()).exists());
+  }
+
+  @Test(timeout = 10000)
+  public void testFileImportFails() throws Exception {
+    NetezzaTransport transport = NetezzaTransport.create(
+        getContext(NetezzaFileTransport.class), "netezza-0.txt");
+    assertNull(transport.openInput(getPeer(new Callable<Void>() {
+      @Override
+      public Void call() throws SQLException {
+        throw new SQLException("Unload failed");
+      }
+    })));
+    transport.close();
+  }
+
+  @Test(timeout = 10000)
+  public void testFileExport() throws Exception {
+    final NetezzaTransport transport = NetezzaTransport.create(
+        getContext(NetezzaFileTransport.class), "netezza.txt");
+    final ByteArrayOutputStream loaded = new ByteArrayOutputStream();
+    OutputStream out = transport.openOutput(getPeer(new Callable<Void>() {
+      @Override
+      public Void call() throws IOException {
+        IOUtils.copy(new FileInputStream(transport.getLocation()), loaded);
+        return null;
+      }
+    }));
+    out.write(DATA.getBytes("UTF-8"));
+
+    // The load starts once all data were written
+    assertNull(peerFuture);
+    out.close();
+    peerFuture.get();
+    assertEquals(DATA, loaded.toString("UTF-8"));
+    transport.close();
+  }
+
+  @Test
+  public void testFileLocation() throws IOException {
+    NetezzaTransport transport = NetezzaTransport.create(
+        getContext(NetezzaFileTransport.class), "netezza.txt");
+    File file = new File(transport.getLocation());
+    assertEquals("netezza.txt", file.getName());
+    assertTrue(file.getParentFile().isDirectory());
+    new FileOutputStream(file).close();
+    transport.close();
+    assertFalse(file.exists());
+  }
+}
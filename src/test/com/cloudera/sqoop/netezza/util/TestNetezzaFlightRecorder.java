@@ -0,0 +1,33 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+
+package com.cloudera.sqoop.netezza.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class NetezzaFlightRecorder.
+ */
+public class TestNetezzaFlightRecorder {
+
+  @Test
+  public void testAvailability() {
+    boolean jfr;
+    try {
+      Class.forName("jdk.jfr.EventFactory");
+      jfr = true;
+    } catch (ClassNotFoundException e) {
+      jfr = false;
+    }
+    assertTrue(jfr == NetezzaFlightRecorder.isAvailable());
+  }
+
+  @Test
+  public void testPhaseWithoutRecording() {
+    NetezzaFlightRecorder.Phase phase = NetezzaFlightRecorder.begin(
+        NetezzaFlightRecorder.CONNECT, "TABLE", null);
+    phase.end();
+    phase.end();
+  }
+}
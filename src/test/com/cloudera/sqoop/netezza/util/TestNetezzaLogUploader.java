@@ -0,0 +1,58 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+
+package com.cloudera.sqoop.netezza.util;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test class NetezzaLogUploader.
+ */
+public class TestNetezzaLogUploader {
+
+  private static final String NZLOG =
+      "Load started at:01-Jan-10 12:00:00 PST\n"
+    + "\n"
+    + "  Database:         SQOOPTESTDB\n"
+    + "  Tablename:        NZ_DIRECT_TBL_1\n"
+    + "\n"
+    + "Found bad records\n"
+    + "\n"
+    + "bad #: input row #(byte offset to last char examined) "
+    + "[field #, declaration] diagnostic, \"text consumed\"[last char "
+    + "examined]\n"
+    + "-------------------------------------------------------------\n"
+    + "1: 1(3) [2, INT4] expected field delimiter or end of record, "
+    + "\"t\"[w]\n"
+    + "2: 3(10) [1, INT4] value out of range\n"
+    + "\n"
+    + "Statistics\n"
+    + "  number of records read:      3\n";
+
+  @Test
+  public void testParseBadRecords() throws Exception {
+    List<NetezzaLogUploader.BadRecord> records =
+      NetezzaLogUploader.parseBadRecords(
+        new BufferedReader(new StringReader(NZLOG)));
+
+    assertEquals(2, records.size());
+
+    NetezzaLogUploader.BadRecord first = records.get(0);
+    assertEquals(1, first.getNumber());
+    assertEquals(1, first.getRow());
+    assertEquals(2, first.getField());
+    assertEquals("INT4", first.getFieldType());
+    assertEquals("expected field delimiter or end of record",
+      first.getReason());
+
+    NetezzaLogUploader.BadRecord second = records.get(1);
+    assertEquals(3, second.getRow());
+    assertEquals(1, second.getField());
+    assertEquals("value out of range", second.getReason());
+  }
+}
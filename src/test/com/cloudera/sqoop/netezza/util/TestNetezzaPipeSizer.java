@@ -0,0 +1,92 @@
+// (c) Copyright 2010 Cloudera, Inc. All Rights Reserved.
+
+package com.cloudera.sqoop.netezza.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.sqoop.io.NamedFifo;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.cloudera.sqoop.netezza.DirectNetezzaManager;
+
+/**
+ * Test class NetezzaPipeSizer.
+ */
+public class TestNetezzaPipeSizer {
+
+  private File fifo;
+
+  @Before
+  public void setUp() throws IOException {
+    fifo = File.createTempFile("test", "nzpipe");
+    fifo.delete();
+    new NamedFifo(fifo).create();
+  }
+
+  @After
+  public void tearDown() {
+    fifo.delete();
+  }
+
+  @Test
+  public void testDisabled() {
+    assertEquals(-1, NetezzaPipeSizer.resize(new Configuration(), fifo));
+  }
+
+  private static boolean isJnaAvailable() {
+    try {
+      Class.forName("com.sun.jna.NativeLibrary");
+      return true;
+    } catch (ClassNotFoundException e) {
+      return false;
+    }
+  }
+
+  @Test
+  public void testResizeOpenFifo() throws Exception {
+    final FileInputStream[] in = new FileInputStream[1];
+    Thread reader = new Thread() {
+      @Override
+      public void run() {
+        try {
+          in[0] = new FileInputStream(fifo);
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      }
+    };
+    reader.start();
+    FileOutputStream out = new FileOutputStream(fifo);
+    reader.join();
+
+    Configuration conf = new Configuration();
+    conf.setInt(DirectNetezzaManager.NZ_PIPE_SIZE_CONF, 1024 * 1024);
+    int capacity = NetezzaPipeSizer.resize(conf, fifo);
+    File maxSize = new File("/proc/sys/fs/pipe-max-size");
+    if (isJnaAvailable() && maxSize.exists()) {
+      // Linux enlarges the pipe up to the limit for unprivileged processes
+      int limit = Integer.parseInt(
+          FileUtils.readFileToString(maxSize, "US-ASCII").trim());
+      assertTrue(capacity >= Math.min(limit, 1024 * 1024));
+    } else {
+      assertEquals(-1, capacity);
+    }
+
+    // Data still flow and the end of data is still detected
+    out.write(42);
+    out.close();
+    assertEquals(42, in[0].read());
+    assertEquals(-1, in[0].read());
+    in[0].close();
+  }
+}
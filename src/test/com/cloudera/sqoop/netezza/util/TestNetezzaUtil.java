@@ -2,10 +2,18 @@
 
 package com.cloudera.sqoop.netezza.util;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.apache.hadoop.conf.Configuration;
 import org.junit.Test;
 
+import com.cloudera.sqoop.netezza.DirectNetezzaManager;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -32,4 +40,81 @@ public class TestNetezzaUtil {
     assertEquals("\"", NetezzaUtil.removeEscapeCharacters("\\\""));
     assertEquals("jarcec", NetezzaUtil.removeEscapeCharacters("jarcec"));
   }
+
+  @Test
+  public void testSetStatementLogDirectory() {
+    Configuration conf = new Configuration(false);
+    NetezzaUtil.setStatementLogDirectory(conf, null, "attempt_0");
+    assertNull(conf.get(DirectNetezzaManager.NZ_LOGDIR_CONF));
+
+    NetezzaUtil.setStatementLogDirectory(conf, "/tmp/nzlogs ", "attempt_0");
+    assertEquals("/tmp/nzlogs/attempt_0",
+      conf.get(DirectNetezzaManager.NZ_LOGDIR_CONF));
+    assertTrue(NetezzaUtil.isNzLogEnabled(conf));
+  }
+
+  @Test
+  public void testParseRouteTables() {
+    assertTrue(NetezzaUtil.parseRouteTables(null).isEmpty());
+
+    Map<String, String> routes =
+      NetezzaUtil.parseRouteTables("2023-01=SALES_JAN, 2023-02=SALES_FEB");
+    assertEquals(2, routes.size());
+    assertEquals("SALES_JAN", routes.get("2023-01"));
+    assertEquals("SALES_FEB", routes.get("2023-02"));
+  }
+
+  @Test
+  public void testGetSessionStatements() {
+    Configuration conf = new Configuration();
+    assertTrue(NetezzaUtil.getSessionStatements(conf, NetezzaUtil.IMPORT,
+      "T1").isEmpty());
+
+    conf.set(DirectNetezzaManager.NZ_SESSION_PRIORITY_CONF, "low");
+    conf.set(DirectNetezzaManager.NZ_SESSION_SQL_CONF,
+      "SET a = 1; SET b = 2;");
+    conf.set("nz.export.session.priority", "normal");
+    conf.set("nz.export.session.priority.T2", "high");
+    conf.set(DirectNetezzaManager.NZ_SESSION_TIMEOUT_CONF, "60");
+    conf.set("nz.import.session.timeout.T2", "600");
+
+    assertEquals(Arrays.asList("ALTER SESSION SET PRIORITY TO low",
+      "SET a = 1", "SET b = 2"),
+      NetezzaUtil.getSessionStatements(conf, NetezzaUtil.IMPORT, "T1"));
+    assertEquals("ALTER SESSION SET PRIORITY TO normal",
+      NetezzaUtil.getSessionStatements(conf, NetezzaUtil.EXPORT, "T1")
+        .get(0));
+    assertEquals("ALTER SESSION SET PRIORITY TO high",
+      NetezzaUtil.getSessionStatements(conf, NetezzaUtil.EXPORT, "\"T2\"")
+        .get(0));
+
+    assertEquals(60,
+      NetezzaUtil.getSessionTimeout(conf, NetezzaUtil.IMPORT, "T1"));
+    assertEquals(600,
+      NetezzaUtil.getSessionTimeout(conf, NetezzaUtil.IMPORT, "T2"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetSessionStatementsInvalidPriority() {
+    Configuration conf = new Configuration();
+    conf.set(DirectNetezzaManager.NZ_SESSION_PRIORITY_CONF, "low; DROP");
+    NetezzaUtil.getSessionStatements(conf, NetezzaUtil.IMPORT, "T1");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testParseRouteTablesInvalid() {
+    NetezzaUtil.parseRouteTables("2023-01");
+  }
+
+  @Test
+  public void testExtractField() {
+    byte[] record = "1|a\\|b|EU".getBytes(StandardCharsets.UTF_8);
+    assertEquals("1",
+      NetezzaUtil.extractField(record, record.length, 0, '|', '\\'));
+    assertEquals("a\\|b",
+      NetezzaUtil.extractField(record, record.length, 1, '|', '\\'));
+    assertEquals("EU",
+      NetezzaUtil.extractField(record, record.length, 2, '|', '\\'));
+    assertNull(NetezzaUtil.extractField(record, record.length, 3, '|', '\\'));
+  }
 }